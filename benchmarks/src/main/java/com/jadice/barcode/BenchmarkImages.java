@@ -0,0 +1,77 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import com.jadice.barcode.grid.LuminanceGrid;
+import com.jadice.barcode.j2d.Java2DUtils;
+
+/**
+ * Access to the engine's test images which are packaged with the benchmarks.
+ */
+public class BenchmarkImages {
+  public static final String CODE128 = "com/jadice/barcode/linear/c128/levigo test.png";
+  public static final String CODE128_ALL_DIRECTIONS = "com/jadice/barcode/linear/c128/alle richtungen.png";
+  public static final String CODE39 = "com/jadice/barcode/linear/c39/800px-Code_3_of_9.svg.png";
+  public static final String TWO_OF_FIVE = "com/jadice/barcode/linear/tofi/2iof5.png";
+  public static final String DATAMATRIX = "com/jadice/barcode/twod/dmtx/compare_siemens/siemens_000_a.png";
+
+  private BenchmarkImages() {
+    // static methods only
+  }
+
+  /**
+   * Load the given image as a 3-byte BGR image, the same way the decode tests do.
+   * 
+   * @param name the resource name
+   * @return the image
+   * @throws IOException
+   */
+  public static BufferedImage load(String name) throws IOException {
+    InputStream is = BenchmarkImages.class.getClassLoader().getResourceAsStream(name);
+    if (null == is)
+      throw new IOException("Image not found: " + name);
+
+    try {
+      BufferedImage bi = ImageIO.read(is);
+      BufferedImage biCopy = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+      biCopy.createGraphics().drawImage(bi, 0, 0, null);
+      return biCopy;
+    } finally {
+      is.close();
+    }
+  }
+
+  /**
+   * Load the given image as a {@link LuminanceGrid}.
+   * 
+   * @param name the resource name
+   * @return the luminance grid
+   * @throws IOException
+   */
+  public static LuminanceGrid loadLuminance(String name) throws IOException {
+    return Java2DUtils.createLuminanceSource(load(name));
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jadice.barcode.grid.LuminanceGrid;
+import com.jadice.barcode.linear.c128.Code128;
+import com.jadice.barcode.linear.c39.Code39;
+import com.jadice.barcode.linear.tofi.TwoOfFiveInterleaved;
+import com.jadice.barcode.twod.dmtx.Datamatrix;
+
+/**
+ * Full {@link Detector#decode(Options, Grid)} runs per symbology, configured like the decode tests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DetectorBenchmark {
+  @Param({"code128", "code39", "2of5", "datamatrix"})
+  public String symbology;
+
+  private Options options;
+  private LuminanceGrid luminance;
+
+  @Setup
+  public void setup() throws Exception {
+    Symbology s;
+    String image;
+    if ("code128".equals(symbology)) {
+      s = new Code128();
+      image = BenchmarkImages.CODE128;
+    } else if ("code39".equals(symbology)) {
+      s = new Code39();
+      image = BenchmarkImages.CODE39;
+    } else if ("2of5".equals(symbology)) {
+      s = new TwoOfFiveInterleaved();
+      image = BenchmarkImages.TWO_OF_FIVE;
+    } else if ("datamatrix".equals(symbology)) {
+      s = new Datamatrix();
+      image = BenchmarkImages.DATAMATRIX;
+    } else
+      throw new IllegalArgumentException("Unknown symbology " + symbology);
+
+    luminance = BenchmarkImages.loadLuminance(image);
+
+    options = new Options();
+    options.getSettings(BaseSettings.class).setThresholds(Arrays.asList(new Integer[]{50, 10, 25, 75}));
+    options.getSettings(BaseSettings.class).setBarcodeCountLimit(1);
+    options.getSettings(BaseSettings.class).setSymbologyEnabled(s.getClass(), true);
+
+    if (decode().isEmpty())
+      throw new IllegalStateException("Nothing found in " + image);
+  }
+
+  @Benchmark
+  public List<Result> decode() {
+    return Detector.decode(options, luminance);
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.grid;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jadice.barcode.BaseSettings;
+import com.jadice.barcode.BenchmarkImages;
+import com.jadice.barcode.Detector;
+import com.jadice.barcode.Options;
+
+/**
+ * Binarization of a luminance image: histogram analysis, per-pixel thresholding and the packed
+ * grid the decoders work on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinarizerBenchmark {
+  @Param({BenchmarkImages.CODE128, BenchmarkImages.DATAMATRIX})
+  public String image;
+
+  private static final List<Integer> THRESHOLDS = Arrays.asList(50, 10, 25, 75);
+
+  private LuminanceGrid luminance;
+  private Options options;
+
+  @Setup
+  public void setup() throws Exception {
+    luminance = BenchmarkImages.loadLuminance(image);
+    options = new Options();
+  }
+
+  /**
+   * The histogram analysis performed when the threshold is chosen automatically.
+   */
+  @Benchmark
+  public int histogramThreshold() {
+    return new HistogramThresholdBinarizer(luminance).getThreshold();
+  }
+
+  /**
+   * Sample every pixel through the histogram threshold binarizer.
+   */
+  @Benchmark
+  public int histogramBinarizeAll() {
+    HistogramThresholdBinarizer binarizer = new HistogramThresholdBinarizer(luminance);
+    int width = binarizer.getWidth();
+    int height = binarizer.getHeight();
+    int black = 0;
+    for (int y = 0; y < height; y++)
+      for (int x = 0; x < width; x++)
+        if (binarizer.samplePixel(x, y))
+          black++;
+    return black;
+  }
+
+  /**
+   * Prepare the binary grid for a fixed threshold, like the detector does for each threshold.
+   */
+  @Benchmark
+  public BinaryGrid prepareBinaryGrid() {
+    return Detector.prepareBinaryGrid(options, luminance, 50);
+  }
+
+  /**
+   * Prepare the binary grids for the thresholds used by the decode tests, one at a time.
+   */
+  @Benchmark
+  public BinaryGrid[] prepareBinaryGridPerThreshold() {
+    BinaryGrid grids[] = new BinaryGrid[THRESHOLDS.size()];
+    for (int i = 0; i < grids.length; i++)
+      grids[i] = Detector.prepareBinaryGrid(options, luminance, THRESHOLDS.get(i));
+    return grids;
+  }
+
+  /**
+   * Prepare the binary grids for the thresholds used by the decode tests in a single pass.
+   */
+  @Benchmark
+  public List<BinaryGrid> prepareBinaryGrids() {
+    return Detector.prepareBinaryGrids(options, luminance, THRESHOLDS);
+  }
+
+  /**
+   * Prepare the binary grid using the histogram threshold.
+   */
+  @Benchmark
+  public BinaryGrid prepareBinaryGridAutoThreshold() {
+    return Detector.prepareBinaryGrid(options, luminance, BaseSettings.AUTO_THRESHOLD);
+  }
+
+  /**
+   * Prepare the binary grid using the adaptive threshold, as an alternative to
+   * {@link #prepareBinaryGrids()}.
+   */
+  @Benchmark
+  public BinaryGrid prepareBinaryGridAdaptiveThreshold() {
+    return Detector.prepareBinaryGrid(options, luminance, BaseSettings.ADAPTIVE_THRESHOLD);
+  }
+}
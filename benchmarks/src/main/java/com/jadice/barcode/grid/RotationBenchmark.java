@@ -0,0 +1,88 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.grid;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jadice.barcode.BenchmarkImages;
+import com.jadice.barcode.Detector;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.linear.LinearCodeSettings.Direction;
+
+/**
+ * Extracting the runs of every row in all four directions: through {@link QuadrantRotationGrid}s
+ * versus materialized rotations of the {@link PackedBinaryGrid}, including the cost of the
+ * rotation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotationBenchmark {
+  @Param({BenchmarkImages.CODE128_ALL_DIRECTIONS})
+  public String image;
+
+  private PackedBinaryGrid packed;
+  private int[] runLengths;
+
+  @Setup
+  public void setup() throws Exception {
+    packed = (PackedBinaryGrid) Detector.prepareBinaryGrid(new Options(), BenchmarkImages.loadLuminance(image), 50);
+    runLengths = new int[Math.max(packed.getWidth(), packed.getHeight()) + 2];
+  }
+
+  @Benchmark
+  public int quadrantRotationGrid() {
+    int runs = 0;
+    for (Direction d : Direction.values()) {
+      BinaryGrid grid = d == Direction.EAST ? packed : new QuadrantRotationGrid(packed, d);
+      for (int y = 0; y < grid.getHeight(); y++)
+        runs += grid instanceof RunLengthBinaryGrid
+            ? ((RunLengthBinaryGrid) grid).scanRow(y, 0, grid.getWidth() - 1, runLengths)
+            : PackedBinaryGrid.scanRowSampling(grid, y, 0, grid.getWidth() - 1, runLengths);
+    }
+    return runs;
+  }
+
+  @Benchmark
+  public int materialized() {
+    int runs = 0;
+    for (Direction d : Direction.values()) {
+      PackedBinaryGrid grid = packed.rotate(d);
+      for (int y = 0; y < grid.getHeight(); y++)
+        runs += grid.scanRow(y, 0, grid.getWidth() - 1, runLengths);
+    }
+    return runs;
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jadice.barcode.BenchmarkImages;
+import com.jadice.barcode.Detector;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.Result;
+import com.jadice.barcode.grid.BinaryGrid;
+import com.jadice.barcode.linear.c128.Code128;
+
+/**
+ * Edge post-processing: the line fit of {@link Edge#pruneHits()} and the partner matching via
+ * {@link Edge#getPartnerConfidence(Edge)}, on the edges found by scanning a test image. The edges
+ * are pruned once during setup, so that the benchmarks see a steady state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EdgeBenchmark {
+  @Param({BenchmarkImages.CODE128, BenchmarkImages.CODE128_ALL_DIRECTIONS})
+  public String image;
+
+  private final List<Edge> startEdges = new ArrayList<Edge>();
+  private final List<Edge> stopEdges = new ArrayList<Edge>();
+
+  @Setup
+  public void setup() throws Exception {
+    Options options = new Options();
+    BinaryGrid grid = Detector.prepareBinaryGrid(options, BenchmarkImages.loadLuminance(image), 50);
+
+    OneDDecoder decoder = (OneDDecoder) new Code128().createDecoder();
+    decoder.setOptions(options);
+    decoder.startDetection();
+    List<List<Result>> results = Collections.singletonList((List<Result>) new ArrayList<Result>());
+    LinearCodeScanner.scan(Collections.singletonList(decoder), grid, results);
+
+    for (Edge edge : decoder.startEdges)
+      if (edge.pruneHits())
+        startEdges.add(edge);
+    for (Edge edge : decoder.stopEdges)
+      if (edge.pruneHits())
+        stopEdges.add(edge);
+
+    if (startEdges.isEmpty() || stopEdges.isEmpty())
+      throw new IllegalStateException("No edges found in " + image);
+  }
+
+  @Benchmark
+  public int pruneHits() {
+    int valid = 0;
+    for (Edge edge : startEdges)
+      if (edge.pruneHits())
+        valid++;
+    for (Edge edge : stopEdges)
+      if (edge.pruneHits())
+        valid++;
+    return valid;
+  }
+
+  @Benchmark
+  public long partnerMatching() {
+    long confidence = 0;
+    for (Edge start : startEdges)
+      for (Edge stop : stopEdges)
+        confidence += start.getPartnerConfidence(stop);
+    return confidence;
+  }
+}
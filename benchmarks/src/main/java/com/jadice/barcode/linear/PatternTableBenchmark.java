@@ -0,0 +1,130 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jadice.barcode.linear.OneDDecoder.Symbol;
+
+/**
+ * Per-window symbol classification: the {@link PatternTable} against the boxed pattern map with a
+ * linear nearest-symbol scan it replaced. The symbols are all Code 128-like patterns of six bars
+ * spanning eleven modules, the windows are symbols with gaussian noise on the bar widths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternTableBenchmark {
+  private static final int WINDOW_SIZE = 6;
+  private static final int MAX_MODULE_WIDTH = 4;
+  private static final int WINDOW_COUNT = 1024;
+
+  /** The standard deviation of the noise added to the bar widths, in modules */
+  @Param({"0.1", "0.3"})
+  public float noise;
+
+  private final Map<Integer, Symbol> symbolsByPattern = new HashMap<Integer, Symbol>();
+  private PatternTable table;
+  private float windows[][];
+
+  @Setup
+  public void setup() {
+    addPatterns(0, 0, 0);
+    table = new PatternTable(symbolsByPattern, WINDOW_SIZE, MAX_MODULE_WIDTH);
+
+    Symbol symbols[] = symbolsByPattern.values().toArray(new Symbol[symbolsByPattern.size()]);
+    Random random = new Random(4711);
+    windows = new float[WINDOW_COUNT][WINDOW_SIZE];
+    for (float window[] : windows) {
+      Symbol s = symbols[random.nextInt(symbols.length)];
+      for (int i = 0; i < WINDOW_SIZE; i++)
+        window[i] = Math.max(1, Math.min(MAX_MODULE_WIDTH, s.widths[i] + (float) random.nextGaussian() * noise));
+    }
+  }
+
+  private void addPatterns(int pattern, int length, int modules) {
+    if (length == WINDOW_SIZE) {
+      if (modules == 11)
+        symbolsByPattern.put(pattern, new Symbol(OneDDecoder.splitCodeString(pattern, WINDOW_SIZE),
+            symbolsByPattern.size()));
+      return;
+    }
+    for (int w = 1; w <= MAX_MODULE_WIDTH && modules + w <= 11; w++)
+      addPatterns(pattern * 10 + w, length + 1, modules + w);
+  }
+
+  @Benchmark
+  public int patternTable() {
+    int sum = 0;
+    for (float window[] : windows) {
+      Symbol s = table.get(table.cellOf(window));
+      if (null == s)
+        s = table.findNearest(window);
+      sum += s.value;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int patternMap() {
+    int sum = 0;
+    for (float window[] : windows) {
+      int detectedCode = 0;
+      for (int i = 0; i < WINDOW_SIZE; i++)
+        detectedCode = detectedCode * 10 + Math.round(window[i]);
+
+      Symbol s = symbolsByPattern.get(detectedCode);
+      if (null == s) {
+        float leastMismatchSQ = Float.MAX_VALUE;
+        for (Map.Entry<Integer, Symbol> e : symbolsByPattern.entrySet()) {
+          float mismatchSQ = 0f;
+          for (int j = 0; j < WINDOW_SIZE; j++) {
+            final float barMismatch = Math.abs(window[j] - e.getValue().widths[j]);
+            mismatchSQ += barMismatch * barMismatch;
+          }
+          if (mismatchSQ < leastMismatchSQ) {
+            s = e.getValue();
+            leastMismatchSQ = mismatchSQ;
+          }
+        }
+      }
+      sum += s.value;
+    }
+    return sum;
+  }
+}
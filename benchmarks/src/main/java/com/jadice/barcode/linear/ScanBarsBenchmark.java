@@ -0,0 +1,102 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jadice.barcode.BenchmarkImages;
+import com.jadice.barcode.Detector;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.grid.BinaryGrid;
+import com.jadice.barcode.grid.FixedlThresholdBinarizer;
+import com.jadice.barcode.grid.LuminanceGrid;
+import com.jadice.barcode.linear.c128.Code128;
+
+/**
+ * {@link OneDDecoder#scanBars(BinaryGrid, int[], Point, Point)} over every row or column of an
+ * image, either on the packed grid prepared by the detector or directly on the binarizer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanBarsBenchmark {
+  @Param({"packed", "sampled"})
+  public String grid;
+
+  @Param({"rows", "columns"})
+  public String direction;
+
+  private BinaryGrid image;
+  private OneDDecoder decoder;
+  private int barWidths[];
+  private final Point p1 = new Point();
+  private final Point p2 = new Point();
+
+  @Setup
+  public void setup() throws Exception {
+    LuminanceGrid luminance = BenchmarkImages.loadLuminance(BenchmarkImages.CODE128);
+    Options options = new Options();
+    if ("packed".equals(grid))
+      image = Detector.prepareBinaryGrid(options, luminance, 50);
+    else {
+      FixedlThresholdBinarizer binarizer = new FixedlThresholdBinarizer(luminance);
+      binarizer.setThreshold(50 * 255 / 100);
+      image = binarizer;
+    }
+
+    decoder = (OneDDecoder) new Code128().createDecoder();
+    decoder.setOptions(options);
+    barWidths = new int[Math.max(image.getWidth(), image.getHeight()) + 2];
+  }
+
+  @Benchmark
+  public int scanBars() {
+    int bars = 0;
+    if ("rows".equals(direction))
+      for (int y = 0; y < image.getHeight(); y++) {
+        p1.setLocation(0, y);
+        p2.setLocation(image.getWidth() - 1, y);
+        bars += decoder.scanBars(image, barWidths, p1, p2);
+      }
+    else
+      for (int x = 0; x < image.getWidth(); x++) {
+        p1.setLocation(x, 0);
+        p2.setLocation(x, image.getHeight() - 1);
+        bars += decoder.scanBars(image, barWidths, p1, p2);
+      }
+    return bars;
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.twod.dmtx;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Codec#DecodeDataStream(SymbolSize, byte[])} of an ASCII-encoded data stream containing
+ * letters as well as digit pairs, followed by padding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+  private static final String TEXT = "abcdefghijklmABCDEFGHIJKLM0123456789";
+
+  private final SymbolSize sizeIdx = SymbolSize.Fixed32x32;
+  private Message msg;
+
+  @Setup
+  public void setup() {
+    msg = new Message(sizeIdx, Message.Format.DmtxFormatMatrix);
+
+    int idx = 0;
+    for (int i = 0; i < TEXT.length(); i++) {
+      char c = TEXT.charAt(i);
+      if (Character.isDigit(c) && i + 1 < TEXT.length() && Character.isDigit(TEXT.charAt(i + 1))) {
+        // digit pair
+        msg.code[idx++] = (byte) (130 + (c - '0') * 10 + TEXT.charAt(i + 1) - '0');
+        i++;
+      } else
+        msg.code[idx++] = (byte) (c + 1);
+    }
+    if (idx < sizeIdx.symbolDataWords)
+      msg.code[idx] = (byte) 129; // pad
+
+    if (!TEXT.equals(decode()))
+      throw new IllegalStateException("Unexpected decode result: " + decode());
+  }
+
+  private String decode() {
+    decodeDataStream();
+    return new String(msg.output, 0, msg.outputIdx);
+  }
+
+  @Benchmark
+  public int decodeDataStream() {
+    new Codec(msg).DecodeDataStream(sizeIdx, null);
+    return msg.outputIdx;
+  }
+}
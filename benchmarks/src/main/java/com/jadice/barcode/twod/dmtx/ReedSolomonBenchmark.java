@@ -0,0 +1,93 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.twod.dmtx;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ReedSolomon#decode(byte[], SymbolSize, int)} of encoded random data, both for an intact
+ * symbol and for one with a correctable number of errors in every interleaved block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReedSolomonBenchmark {
+  @Param({"Fixed14x14", "Fixed48x48", "Fixed96x96"})
+  public String size;
+
+  private SymbolSize sizeIdx;
+  private byte clean[];
+  private byte damaged[];
+  private byte work[];
+
+  @Setup
+  public void setup() {
+    sizeIdx = SymbolSize.valueOf(size);
+
+    Message msg = new Message(sizeIdx, Message.Format.DmtxFormatMatrix);
+    Random random = new Random(4711);
+    for (int i = 0; i < sizeIdx.symbolDataWords; i++)
+      msg.code[i] = (byte) random.nextInt(256);
+    ReedSolomon.encode(msg, sizeIdx);
+
+    clean = msg.code.clone();
+    damaged = msg.code.clone();
+    int totalWords = sizeIdx.symbolDataWords + sizeIdx.symbolErrorWords;
+    int errorsPerBlock = Math.max(1, sizeIdx.blockMaxCorrectable / 2);
+    for (int block = 0; block < sizeIdx.interleavedBlocks; block++)
+      for (int e = 0; e < errorsPerBlock; e++) {
+        int word = block + sizeIdx.interleavedBlocks * e * 3;
+        if (word < totalWords)
+          damaged[word] ^= 0x5a;
+      }
+    work = new byte[clean.length];
+
+    if (!decodeDamaged() || !java.util.Arrays.equals(work, clean))
+      throw new IllegalStateException("Errors not corrected for " + size);
+  }
+
+  @Benchmark
+  public boolean decodeClean() {
+    System.arraycopy(clean, 0, work, 0, clean.length);
+    return ReedSolomon.decode(work, sizeIdx, -1);
+  }
+
+  @Benchmark
+  public boolean decodeDamaged() {
+    System.arraycopy(damaged, 0, work, 0, damaged.length);
+    return ReedSolomon.decode(work, sizeIdx, -1);
+  }
+}
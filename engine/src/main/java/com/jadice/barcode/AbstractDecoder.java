@@ -54,6 +54,9 @@ public abstract class AbstractDecoder implements Decoder {
     /** The code array truncated to it's real length */
     private int truncatedCodes[];
 
+    /** Whether truncatedCodes reflects the current codes */
+    private boolean truncatedCodesValid;
+
     /** Current write offset */
     private int offset = 0;
 
@@ -88,13 +91,24 @@ public abstract class AbstractDecoder implements Decoder {
         codes = newCodes;
       }
       codes[offset++] = code;
-      truncatedCodes = null;
+      truncatedCodesValid = false;
     }
 
     public int size() {
       return offset;
     }
 
+    /**
+     * Reset the string to its initial, empty state so that it can be re-used.
+     */
+    public void reset() {
+      offset = 0;
+      confidence = 0;
+      detectionMethod = 0;
+      checksumVerificationOK = false;
+      truncatedCodesValid = false;
+    }
+
     /**
      * Set a code character in the string.
      * 
@@ -108,7 +122,7 @@ public abstract class AbstractDecoder implements Decoder {
         codes = newCodes;
       }
       codes[offset] = code;
-      truncatedCodes = null;
+      truncatedCodesValid = false;
     }
 
     /**
@@ -117,9 +131,11 @@ public abstract class AbstractDecoder implements Decoder {
      * @return
      */
     public int[] getCodes() {
-      if (null == truncatedCodes) {
-        truncatedCodes = new int[offset];
+      if (!truncatedCodesValid) {
+        if (null == truncatedCodes || truncatedCodes.length != offset)
+          truncatedCodes = new int[offset];
         System.arraycopy(codes, 0, truncatedCodes, 0, offset);
+        truncatedCodesValid = true;
       }
       return truncatedCodes;
     }
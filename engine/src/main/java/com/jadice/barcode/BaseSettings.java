@@ -22,11 +22,10 @@ package com.jadice.barcode;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.ServiceLoader;
 import java.util.Set;
-
-import javax.imageio.spi.ServiceRegistry;
+import java.util.concurrent.Executor;
 
 /**
  * The basic {@link Settings} which either apply to all symbologies or control the global decoding
@@ -37,6 +36,15 @@ public class BaseSettings implements Settings {
 
   public static final int AUTO_THRESHOLD = -1;
 
+  /**
+   * A threshold which makes the image binarized with a separate threshold for each pixel, derived
+   * from the neighborhood of the pixel. This copes with shadows and uneven illumination, which
+   * otherwise require several global thresholds to be tried.
+   * 
+   * @see com.jadice.barcode.grid.AdaptiveThresholdBinarizer
+   */
+  public static final int ADAPTIVE_THRESHOLD = -2;
+
   private List<Integer> thresholds = new ArrayList<Integer>();
 
   /**
@@ -67,14 +75,44 @@ public class BaseSettings implements Settings {
    */
   private int barcodeCountLimit = NO_BARCODELIMIT;
 
+  /**
+   * The executor used to run the individual decoding passes (threshold, region and direction
+   * combinations) concurrently. If <code>null</code>, all passes are run sequentially on the
+   * calling thread.
+   * 
+   * Default: <code>null</code>
+   */
+  private Executor executor;
+
+  /**
+   * The deadline bounding the latency of a decoding run.
+   * 
+   * Default: {@link Deadline#NONE}
+   */
+  private Deadline deadline = Deadline.NONE;
+
   public BaseSettings() {
   }
 
+  /**
+   * Create a copy of the given settings.
+   * 
+   * @param other the settings to copy
+   */
+  BaseSettings(BaseSettings other) {
+    enabledSymbologies.addAll(other.enabledSymbologies);
+    thresholds.addAll(other.thresholds);
+    overprintTolerance = other.overprintTolerance;
+    regions.addAll(other.regions);
+    barcodeCountLimit = other.barcodeCountLimit;
+    executor = other.executor;
+    deadline = other.deadline;
+  }
+
   public List<Class<? extends Symbology>> getAvailableSymbologies() {
-    Iterator<Symbology> i = ServiceRegistry.lookupProviders(Symbology.class, getClass().getClassLoader());
     ArrayList<Class<? extends Symbology>> result = new ArrayList<Class<? extends Symbology>>();
-    while (i.hasNext())
-      result.add(i.next().getClass());
+    for (Symbology s : ServiceLoader.load(Symbology.class, getClass().getClassLoader()))
+      result.add(s.getClass());
     return result;
   }
 
@@ -162,7 +200,8 @@ public class BaseSettings implements Settings {
    * Set the thresholds used to binarize the image. If no threshold is set, {@link #AUTO_THRESHOLD}
    * is used, in order to let the decoder automatically determine a useful threshold.
    * 
-   * The thresholds must be between [0, 100].
+   * The thresholds must be between [0, 100], {@link #AUTO_THRESHOLD} or
+   * {@link #ADAPTIVE_THRESHOLD}.
    * 
    * Default: {@link #AUTO_THRESHOLD}
    * 
@@ -176,7 +215,8 @@ public class BaseSettings implements Settings {
   /**
    * Set the threshold used to binarize the image. The threshold must be between 0 and 100. The
    * threshold may be set to the constant {@link #AUTO_THRESHOLD}, in order to let the decoder
-   * automatically determine a useful threshold.
+   * automatically determine a useful threshold, or to {@link #ADAPTIVE_THRESHOLD}, in order to use
+   * a separate threshold for each pixel.
    * 
    * The threshold must be between [0, 100].
    * 
@@ -239,4 +279,52 @@ public class BaseSettings implements Settings {
   public int getBarcodeCountLimit() {
     return barcodeCountLimit;
   }
+
+  /**
+   * Set the executor used to run the individual decoding passes concurrently. Each combination of
+   * threshold, region-of-interest and direction is submitted as a separate task; the
+   * results are merged in the same order in which a sequential run would have produced them, so
+   * that the outcome does not depend on the executor. Typical choices are a
+   * {@link java.util.concurrent.ForkJoinPool} or a fixed thread pool shared by the application.
+   * Set to <code>null</code> in order to decode sequentially on the calling thread.
+   * 
+   * Default: <code>null</code>
+   * 
+   * @param executor the executor or <code>null</code>
+   */
+  public void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Return the executor used to run the individual decoding passes concurrently.
+   * 
+   * @return the executor or <code>null</code> if decoding is sequential
+   */
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Set the deadline bounding the latency of subsequent decoding runs. The decoding pipeline checks
+   * the deadline cooperatively and returns the results found so far once it has been reached. Use
+   * {@link Deadline#isIncomplete()} afterwards in order to find out whether the run has been cut
+   * short. Since a deadline refers to a point in time, a new one should be set for every run.
+   * 
+   * Default: {@link Deadline#NONE}
+   * 
+   * @param deadline the deadline or <code>null</code> for none
+   */
+  public void setDeadline(Deadline deadline) {
+    this.deadline = null != deadline ? deadline : Deadline.NONE;
+  }
+
+  /**
+   * Return the deadline bounding the latency of decoding runs.
+   * 
+   * @return the deadline, never <code>null</code>
+   */
+  public Deadline getDeadline() {
+    return deadline;
+  }
 }
@@ -0,0 +1,143 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Deadline bounds the latency of a decoding run. It combines an optional time limit with a
+ * cancellation token: a deadline is reached once its time limit has passed or {@link #cancel()} has
+ * been called, whichever happens first.
+ * 
+ * The deadline is handed to the decoders via {@link BaseSettings#setDeadline(Deadline)}. The
+ * decoding pipeline checks it cooperatively between scan lines, edges, regions and thresholds, and
+ * returns the results found so far as soon as it is reached. Since a deadline refers to a point in
+ * time, a new one must be set for every decoding run.
+ * 
+ * After the run, {@link #isIncomplete()} tells whether the run has been cut short, i.e. whether the
+ * returned results may be incomplete.
+ */
+public class Deadline {
+  /**
+   * A deadline which is never reached. It can't be cancelled.
+   */
+  public static final Deadline NONE = new Deadline();
+
+  /** The {@link System#nanoTime()} at which the deadline expires, if timed */
+  private final long expiresAt;
+
+  private final boolean timed;
+
+  /** The deadline this one is derived from, if any */
+  private final Deadline parent;
+
+  private volatile boolean cancelled;
+
+  /** Whether the decoding pipeline has seen this deadline being reached */
+  private volatile boolean incomplete;
+
+  /**
+   * Create a deadline without a time limit. It is only reached when it is cancelled.
+   */
+  public Deadline() {
+    this(null);
+  }
+
+  /**
+   * Create a deadline without a time limit which is reached once it is cancelled or the given
+   * parent deadline is reached. Cancelling the derived deadline leaves the parent untouched.
+   * 
+   * @param parent the parent deadline or <code>null</code>
+   */
+  Deadline(Deadline parent) {
+    this.expiresAt = 0;
+    this.timed = false;
+    this.parent = parent;
+  }
+
+  /**
+   * Create a deadline which expires after the given amount of time, counted from now.
+   * 
+   * @param timeout the time limit
+   * @param unit the unit of the time limit
+   */
+  public Deadline(long timeout, TimeUnit unit) {
+    if (timeout < 0)
+      throw new IllegalArgumentException("The timeout must not be negative");
+
+    this.expiresAt = System.nanoTime() + unit.toNanos(timeout);
+    this.timed = true;
+    this.parent = null;
+  }
+
+  /**
+   * Cancel the decoding run governed by this deadline. This method may be called from any thread.
+   */
+  public void cancel() {
+    if (this == NONE)
+      throw new UnsupportedOperationException("The NONE deadline can't be cancelled");
+
+    cancelled = true;
+  }
+
+  /**
+   * Return whether {@link #cancel()} has been called.
+   * 
+   * @return <code>true</code> if cancelled
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Return whether the deadline has been reached, i.e. whether the decoding run should stop and
+   * return what it has found so far. This method is meant to be called by the decoding pipeline: a
+   * positive answer marks the run as {@link #isIncomplete() incomplete}.
+   * 
+   * @return <code>true</code> if the deadline has been reached
+   */
+  public boolean isReached() {
+    if (incomplete)
+      return true;
+
+    if (cancelled || timed && System.nanoTime() - expiresAt >= 0 || null != parent && parent.isReached()) {
+      incomplete = true;
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Return whether the decoding run has been cut short by this deadline. If so, the results of the
+   * run are incomplete: they are valid, but further codes may have been found given more time.
+   * 
+   * @return <code>true</code> if the results are incomplete
+   */
+  public boolean isIncomplete() {
+    return incomplete;
+  }
+
+  @Override
+  public String toString() {
+    return "Deadline [" + (timed ? (expiresAt - System.nanoTime()) / 1000000 + "ms left" : "untimed")
+        + (cancelled ? ", cancelled" : "") + (incomplete ? ", incomplete" : "") + "]";
+  }
+}
@@ -19,28 +19,27 @@
  */
 package com.jadice.barcode;
 
-import java.awt.Rectangle;
-import java.awt.geom.AffineTransform;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 
+import com.jadice.barcode.grid.AdaptiveThresholdBinarizer;
 import com.jadice.barcode.grid.BinaryGrid;
 import com.jadice.barcode.grid.FixedlThresholdBinarizer;
 import com.jadice.barcode.grid.Grid;
 import com.jadice.barcode.grid.HistogramThresholdBinarizer;
 import com.jadice.barcode.grid.LuminanceGrid;
-import com.jadice.barcode.grid.QuadrantRotationGrid;
-import com.jadice.barcode.grid.ROIGrid;
-import com.jadice.barcode.linear.LinearCodeSettings;
-import com.jadice.barcode.linear.LinearCodeSettings.Direction;
+import com.jadice.barcode.grid.MultiThresholdBinarizer;
+import com.jadice.barcode.grid.PackedBinaryGrid;
+import com.jadice.barcode.linear.LinearCodeStream;
 
 /**
- * This class provides the main entry point for bar code detection and decoding.
+ * This class provides the main entry point for bar code detection and decoding. It delegates to a
+ * shared default {@link DetectorEngine}.
  */
 public class Detector {
+  private static final DetectorEngine DEFAULT_ENGINE = new DetectorEngine();
+
   /**
    * Make an attempt to decode bar codes in the given {@link Grid}. The decoding process is governed
    * by the given options.
@@ -50,149 +49,90 @@ public class Detector {
    * @return
    */
   public static List<Result> decode(final Options options, final Grid grid) {
-    // globally aggregated results go here
-    List<Result> results = new ArrayList<Result>();
-
-    // detect binary grid based
-    List<Integer> thresholds = options.getSettings(BaseSettings.class).getThresholds();
-    int barcodeCountLimit = options.getSettings(BaseSettings.class).getBarcodeCountLimit();
-    if (!thresholds.isEmpty()) {
-      for (int threshold : thresholds) {
-        mergeNoDuplicates(decodeAtThreshold(options, grid, threshold), results);
-        // break when expected number of barcodes are found
-        if (barcodeCountLimit != BaseSettings.NO_BARCODELIMIT && results.size() >= barcodeCountLimit)
-          break;
-      }
-    } else {
-      results.addAll(decodeAtThreshold(options, grid, BaseSettings.AUTO_THRESHOLD));
-    }
-    
-    // detect luminance grid based
-    mergeNoDuplicates(decodeLuminanceBased(options, grid), results);
-    
-    return results;
+    return DEFAULT_ENGINE.decode(options, grid);
   }
 
-  private static List<Result> decodeAtThreshold(final Options options, final Grid grid, final int threshold) {
-    List<Result> results = new ArrayList<Result>();
-
-    BinaryGrid binaryGrid = grid instanceof BinaryGrid //
-        ? ((BinaryGrid) grid) //
-        : prepareBinaryGrid(options, grid, threshold);
-
-    BaseSettings baseSettings = options.getSettings(BaseSettings.class);
-    LinearCodeSettings linearCodeSettings = options.getSettings(LinearCodeSettings.class);
-
-    // build image variations
-    List<BinaryGrid> binarySources = new LinkedList<BinaryGrid>();
-    if (!baseSettings.getRegions().isEmpty()) {
-      for (Rectangle region : baseSettings.getRegions()) {
-        ROIGrid regionGrid = new ROIGrid(binaryGrid, region);
-        binarySources.addAll(getBinarySourcesForActiveDirections(regionGrid, linearCodeSettings));
-      }
-    } else {
-      binarySources.addAll(getBinarySourcesForActiveDirections(binaryGrid, linearCodeSettings));
-    }
-
-    // build list of codes to try
-    List<Decoder> decoders = new LinkedList<Decoder>();
-    for (Class<? extends Symbology> sc : baseSettings.getAvailableSymbologies())
-      if (baseSettings.isSymbologyEnabled(sc))
-        try {
-          final Symbology s = sc.newInstance();
-          if (s.canDecode()) {
-            Decoder decoder = s.createDecoder();
-            decoder.setOptions(options);
-            decoders.add(decoder);
-          }
-        } catch (Exception e) {
-          // won't happen.
-        }
-
-    // iterate over source variations, then codes
-    for (BinaryGrid src : binarySources)
-      for (Decoder d : decoders)
-        if (d instanceof BinaryDecoder) // luminance-based goes separate
-          merge(((BinaryDecoder) d).detect(src), src.getInverseTransform(), results);
-
-    return results;
+  /**
+   * Make an attempt to decode bar codes in the given {@link Grid}, reporting each result to the
+   * given listener as soon as it has been found. The listener may stop the decoding run early.
+   * 
+   * @param options
+   * @param grid
+   * @param listener the listener
+   * @return the list of results reported to the listener
+   */
+  public static List<Result> decode(final Options options, final Grid grid, final ResultListener listener) {
+    return DEFAULT_ENGINE.decode(options, grid, listener);
   }
 
-  private static List<Result> decodeLuminanceBased(final Options options, final Grid grid) {
-    List<Result> results = new ArrayList<Result>();
-
-    if (!(grid instanceof LuminanceGrid))
-      return Collections.emptyList();
-
-    BaseSettings baseSettings = options.getSettings(BaseSettings.class);
-
-    // build list of codes to try
-    List<Decoder> decoders = new LinkedList<Decoder>();
-    for (Class<? extends Symbology> sc : baseSettings.getAvailableSymbologies())
-      if (baseSettings.isSymbologyEnabled(sc))
-        try {
-          final Symbology s = sc.newInstance();
-          if (s.canDecode()) {
-            Decoder decoder = s.createDecoder();
-            decoder.setOptions(options);
-            decoders.add(decoder);
-          }
-        } catch (Exception e) {
-          // won't happen.
-        }
-
-    // Detect luminance based
-    for (Decoder d : decoders)
-      if (d instanceof LuminanceDecoder)
-        merge(((LuminanceDecoder) d).detect((LuminanceGrid) grid), new AffineTransform(), results);
-
-    return results;
+  /**
+   * Create a {@link LinearCodeStream} for decoding an image which is delivered row by row.
+   * 
+   * @param options the options
+   * @param width the width of the rows
+   * @param bandHeight the number of rows to keep
+   * @param listener the listener receiving the results
+   * @return the stream
+   * @see DetectorEngine#createLinearCodeStream(Options, int, int, ResultListener)
+   */
+  public static LinearCodeStream createLinearCodeStream(final Options options, final int width,
+      final int bandHeight, final ResultListener listener) {
+    return DEFAULT_ENGINE.createLinearCodeStream(options, width, bandHeight, listener);
   }
 
   /**
-   * Returns the binary sources for all active directions.
+   * Return the default engine used by {@link #decode(Options, Grid)}.
+   * 
+   * @return the default engine
    */
-  private static List<BinaryGrid> getBinarySourcesForActiveDirections(final BinaryGrid binaryGrid,
-      final LinearCodeSettings linearCodeSettings) {
-    List<BinaryGrid> binarySources = new LinkedList<BinaryGrid>();
-    for (Direction d : Direction.values()) {
-      if (linearCodeSettings.isDirectionEnabled(d))
-        binarySources.add(d == Direction.EAST ? binaryGrid : new QuadrantRotationGrid(binaryGrid, d));
-    }
-    return binarySources;
+  public static DetectorEngine getDefaultEngine() {
+    return DEFAULT_ENGINE;
   }
 
   /**
-   * Merge another list of results, applying the given transform to them.
+   * Prepare the binary grids for all of the given thresholds, in the same order. The fixed
+   * thresholds are applied to a {@link LuminanceGrid} in a single pass, so that the luminance is
+   * read only once, no matter how many thresholds there are.
    * 
-   * @param transform
-   * @param r
+   * @param options
+   * @param grid
+   * @param thresholds the thresholds in the range [0,100], {@link BaseSettings#AUTO_THRESHOLD} or
+   *          {@link BaseSettings#ADAPTIVE_THRESHOLD}
+   * @return the binary grids
    */
-  private static void merge(final Collection<Result> src, final AffineTransform transform,
-      final Collection<Result> dst) {
-    for (final Result c : src) {
-      c.transform(transform);
-      dst.add(c);
+  public static List<BinaryGrid> prepareBinaryGrids(final Options options, final Grid grid,
+      final List<Integer> thresholds) {
+    List<BinaryGrid> binaryGrids = new ArrayList<BinaryGrid>(thresholds.size());
+    if (!(grid instanceof LuminanceGrid)) {
+      for (int threshold : thresholds)
+        binaryGrids.add(prepareBinaryGrid(options, grid, threshold));
+      return binaryGrids;
     }
+
+    int fixedCount = 0;
+    int fixed[] = new int[thresholds.size()];
+    for (int threshold : thresholds)
+      if (isFixed(threshold))
+        fixed[fixedCount++] = threshold * 255 / 100;
+
+    BinaryGrid planes[] = fixedCount > 0
+        ? MultiThresholdBinarizer.binarize((LuminanceGrid) grid, Arrays.copyOf(fixed, fixedCount))
+        : null;
+
+    int plane = 0;
+    for (int threshold : thresholds)
+      binaryGrids.add(isFixed(threshold)
+          ? planes[plane++]
+          : prepareBinaryGrid(options, grid, threshold));
+
+    return binaryGrids;
   }
 
   /**
-   * Merge another list of results, excluding any duplicates.
+   * Return whether the given threshold is a fixed one rather than one of the special modes.
    */
-  private static void mergeNoDuplicates(final Collection<Result> src, final Collection<Result> dst) {
-    for (final Result s : src) {
-      boolean duplicate = false;
-      for (final Result d : dst) {
-        // already found
-        if (d.getShape().intersects(s.getShape().getBounds())) {
-          duplicate = true;
-          break;
-        }
-      }
-      if (!duplicate) {
-        dst.add(s);
-      }
-    }
+  private static boolean isFixed(int threshold) {
+    return threshold != BaseSettings.AUTO_THRESHOLD && threshold != BaseSettings.ADAPTIVE_THRESHOLD;
   }
 
   public static BinaryGrid prepareBinaryGrid(final Options options, final Grid grid, final int threshold) {
@@ -201,7 +141,9 @@ public class Detector {
     if (grid instanceof BinaryGrid)
       return (BinaryGrid) grid;
     else if (grid instanceof LuminanceGrid) {
-      if (threshold != BaseSettings.AUTO_THRESHOLD)
+      if (threshold == BaseSettings.ADAPTIVE_THRESHOLD)
+        binaryGrid = new AdaptiveThresholdBinarizer((LuminanceGrid) grid);
+      else if (threshold != BaseSettings.AUTO_THRESHOLD)
         binaryGrid = new FixedlThresholdBinarizer((LuminanceGrid) grid);
       else
         binaryGrid = new HistogramThresholdBinarizer((LuminanceGrid) grid);
@@ -211,7 +153,8 @@ public class Detector {
     if (binaryGrid instanceof FixedlThresholdBinarizer)
       ((FixedlThresholdBinarizer) binaryGrid).setThreshold(threshold * 255 / 100);
 
-    // binaryGrid = new CachingBinaryGrid(binaryGrid);
+    // binarize once, then let all decoders and directions work on the packed bits
+    binaryGrid = new PackedBinaryGrid(binaryGrid);
 
     return binaryGrid;
   }
@@ -0,0 +1,639 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import com.jadice.barcode.grid.BinaryGrid;
+import com.jadice.barcode.grid.Grid;
+import com.jadice.barcode.grid.LuminanceGrid;
+import com.jadice.barcode.grid.PackedBinaryGrid;
+import com.jadice.barcode.grid.QuadrantRotationGrid;
+import com.jadice.barcode.grid.ROIGrid;
+import com.jadice.barcode.linear.LinearCodeScanner;
+import com.jadice.barcode.linear.LinearCodeStream;
+import com.jadice.barcode.linear.LinearCodeSettings;
+import com.jadice.barcode.linear.LinearCodeSettings.Direction;
+import com.jadice.barcode.linear.OneDDecoder;
+
+/**
+ * A DetectorEngine is a long-lived, thread-safe facility for bar code detection and decoding. The
+ * available {@link Symbology} providers are resolved once when the engine is created and the
+ * {@link Decoder} instances are kept in per-thread pools, so that repeated decoding runs neither
+ * scan the class path nor instantiate decoders over and over again.
+ * 
+ * An application decoding many images should create one engine and share it among all threads.
+ * {@link Detector} delegates to a default engine instance.
+ * 
+ * If {@link BaseSettings#getExecutor()} is set, the individual decoding passes are run
+ * concurrently on that executor. Otherwise they are run sequentially on the calling thread.
+ * 
+ * The latency of a decoding run may be bounded using {@link BaseSettings#setDeadline(Deadline)}.
+ * Once the deadline has been reached, the results found so far are returned and the deadline is
+ * flagged {@link Deadline#isIncomplete() incomplete}.
+ * 
+ * Callers which don't need all results may pass a {@link ResultListener} in order to receive the
+ * results while the run is still in progress and to stop the decoding run early. Sequential runs
+ * report the results of each decoder as soon as it is done, concurrent runs those of each pass as
+ * soon as it has been joined in order.
+ */
+public class DetectorEngine {
+  /** The available symbologies, keyed by their class, in provider order */
+  private final Map<Class<? extends Symbology>, Symbology> symbologies;
+
+  /**
+   * Decoders are stateful while running, but can be re-used once they are done. We therefore keep
+   * one decoder per symbology and thread. A run which is started while the thread's decoders are in
+   * use, e.g. from a {@link ResultListener}, gets a pool of its own.
+   */
+  private static class DecoderPool {
+    final Map<Class<? extends Symbology>, Decoder> decoders = new HashMap<Class<? extends Symbology>, Decoder>();
+
+    /** The pool of the enclosing run or <code>null</code> */
+    final DecoderPool enclosing;
+
+    boolean inUse;
+
+    DecoderPool(DecoderPool enclosing) {
+      this.enclosing = enclosing;
+    }
+  }
+
+  /** The current pool of each thread */
+  private final ThreadLocal<DecoderPool> pools = new ThreadLocal<DecoderPool>() {
+    @Override
+    protected DecoderPool initialValue() {
+      return new DecoderPool(null);
+    }
+  };
+
+  /**
+   * Create an engine using the {@link Symbology} providers visible to the class loader which loaded
+   * this library.
+   */
+  public DetectorEngine() {
+    this(DetectorEngine.class.getClassLoader());
+  }
+
+  /**
+   * Create an engine using the {@link Symbology} providers visible to the given class loader.
+   * 
+   * @param classLoader the class loader used to look up the providers
+   */
+  public DetectorEngine(ClassLoader classLoader) {
+    Map<Class<? extends Symbology>, Symbology> available = new LinkedHashMap<Class<? extends Symbology>, Symbology>();
+    for (Symbology s : ServiceLoader.load(Symbology.class, classLoader))
+      if (s.canDecode())
+        available.put(s.getClass(), s);
+    symbologies = Collections.unmodifiableMap(available);
+  }
+
+  /**
+   * Return the classes of the symbologies this engine is able to decode.
+   * 
+   * @return the symbology classes
+   */
+  public Collection<Class<? extends Symbology>> getAvailableSymbologies() {
+    return symbologies.keySet();
+  }
+
+  /**
+   * Make an attempt to decode bar codes in the given {@link Grid}. The decoding process is governed
+   * by the given options.
+   * 
+   * @param options
+   * @param grid
+   * @return the list of results
+   */
+  public List<Result> decode(final Options options, final Grid grid) {
+    return decode(options, grid, null);
+  }
+
+  /**
+   * Make an attempt to decode bar codes in the given {@link Grid}, reporting the results to the
+   * given listener while the run is in progress, see {@link ResultListener}. The listener sees
+   * exactly the results which are returned, in the same order, and may stop the decoding run early.
+   * 
+   * @param options
+   * @param grid
+   * @param listener the listener or <code>null</code>
+   * @return the list of results
+   */
+  public List<Result> decode(final Options options, final Grid grid, final ResultListener listener) {
+    Executor executor = options.getSettings(BaseSettings.class).getExecutor();
+    if (null != executor)
+      return decodeConcurrently(options, grid, executor, listener);
+
+    DecoderPool pool = enterPool();
+    try {
+      return decodeSequentially(options, grid, listener);
+    } finally {
+      leavePool(pool);
+    }
+  }
+
+  /**
+   * Decode on the calling thread, using its current pool of decoders.
+   */
+  private List<Result> decodeSequentially(final Options options, final Grid grid, final ResultListener listener) {
+    // globally aggregated results go here
+    Aggregation results = new Aggregation(listener);
+
+    // detect binary grid based
+    List<Integer> thresholds = options.getSettings(BaseSettings.class).getThresholds();
+    int barcodeCountLimit = options.getSettings(BaseSettings.class).getBarcodeCountLimit();
+    Deadline deadline = options.getSettings(BaseSettings.class).getDeadline();
+    if (!thresholds.isEmpty()) {
+      // Binarizing at all thresholds at once reads the luminance only once, but holds one packed
+      // plane per threshold. If the run may end before all thresholds have been tried, each one is
+      // binarized only once it is needed instead, so that an early exit saves the work.
+      boolean mayStopEarly = barcodeCountLimit != BaseSettings.NO_BARCODELIMIT || null != listener
+          || deadline != Deadline.NONE;
+      List<BinaryGrid> binaryGrids = mayStopEarly ? null : Detector.prepareBinaryGrids(options, grid, thresholds);
+      for (int i = 0; i < thresholds.size(); i++) {
+        if (deadline.isReached() || results.isStopped())
+          return results.getResults();
+
+        BinaryGrid binaryGrid;
+        if (null != binaryGrids)
+          binaryGrid = binaryGrids.set(i, null); // let the plane be collected once it is done
+        else
+          binaryGrid = Detector.prepareBinaryGrid(options, grid, thresholds.get(i));
+
+        decodeAtThreshold(options, binaryGrid, results, true);
+        // break when expected number of barcodes are found
+        if (isBarcodeCountLimitReached(barcodeCountLimit, results.getResults()))
+          break;
+      }
+    } else {
+      decodeAtThreshold(options, Detector.prepareBinaryGrid(options, grid, BaseSettings.AUTO_THRESHOLD), results,
+          false);
+    }
+
+    // detect luminance grid based
+    decodeLuminanceBased(options, grid, results);
+
+    return results.getResults();
+  }
+
+  /**
+   * Decode using the given executor. Every combination of threshold and binary source (region and
+   * direction) becomes one task. The task results are merged in exactly the same order
+   * as {@link #decode(Options, Grid)} would merge them sequentially. A task which the executor
+   * hasn't started by the time its results are needed is run on the calling thread, so that the run
+   * completes even if the executor is busy or the caller is one of its threads. As soon as the
+   * barcode count limit is reached or the listener asks to stop, the remaining tasks are cancelled.
+   * The listener is called on the calling thread, receiving the results of each task once the task
+   * has been joined.
+   */
+  private List<Result> decodeConcurrently(final Options options, final Grid grid, final Executor executor,
+      final ResultListener listener) {
+    BaseSettings baseSettings = options.getSettings(BaseSettings.class);
+    List<Class<? extends Symbology>> enabled = getEnabledSymbologies(baseSettings);
+
+    List<Integer> thresholds = baseSettings.getThresholds();
+    boolean autoThreshold = thresholds.isEmpty();
+    if (autoThreshold)
+      thresholds = Collections.singletonList(BaseSettings.AUTO_THRESHOLD);
+
+    // the tasks run against a deadline of their own which is cancelled once the run is over, so
+    // that tasks still running after an early exit stop at their next check
+    Deadline runDeadline = new Deadline(baseSettings.getDeadline());
+    BaseSettings runSettings = new BaseSettings(baseSettings);
+    runSettings.setDeadline(runDeadline);
+    Options runOptions = new Options(options, runSettings);
+
+    // fan out: binary tasks, grouped by threshold
+    List<List<FutureTask<List<Result>>>> binaryTasks = new ArrayList<List<FutureTask<List<Result>>>>();
+    List<FutureTask<List<Result>>> luminanceTasks = new ArrayList<FutureTask<List<Result>>>();
+    try {
+      for (BinaryGrid binaryGrid : Detector.prepareBinaryGrids(runOptions, grid, thresholds)) {
+        List<FutureTask<List<Result>>> tasks = new ArrayList<FutureTask<List<Result>>>();
+        List<Class<? extends Symbology>> binary = new ArrayList<Class<? extends Symbology>>();
+        for (Class<? extends Symbology> sc : enabled)
+          if (decodesBinary(sc))
+            binary.add(sc);
+        for (BinaryGrid src : getBinarySources(runOptions, binaryGrid))
+          tasks.add(submit(executor, new BinaryDecodeTask(binary, runOptions, src)));
+        binaryTasks.add(tasks);
+      }
+
+      if (grid instanceof LuminanceGrid)
+        for (Class<? extends Symbology> sc : enabled)
+          if (decodesLuminance(sc))
+            luminanceTasks.add(submit(executor, new LuminanceDecodeTask(sc, runOptions, (LuminanceGrid) grid)));
+
+      // join: merge in submission order
+      Aggregation results = new Aggregation(listener);
+      int barcodeCountLimit = baseSettings.getBarcodeCountLimit();
+      for (List<FutureTask<List<Result>>> tasks : binaryTasks) {
+        for (FutureTask<List<Result>> task : tasks)
+          if (!results.isStopped())
+            results.merge(runAndAwait(task), !autoThreshold);
+
+        if (!autoThreshold && isBarcodeCountLimitReached(barcodeCountLimit, results.getResults()))
+          break;
+      }
+
+      for (FutureTask<List<Result>> task : luminanceTasks)
+        if (!results.isStopped())
+          results.merge(runAndAwait(task), true);
+
+      return results.getResults();
+    } finally {
+      // stop whatever is still running or pending, e.g. after reaching the barcode count limit
+      runDeadline.cancel();
+      for (List<FutureTask<List<Result>>> tasks : binaryTasks)
+        for (FutureTask<List<Result>> task : tasks)
+          task.cancel(false);
+      for (FutureTask<List<Result>> task : luminanceTasks)
+        task.cancel(false);
+    }
+  }
+
+  /**
+   * A task running the {@link BinaryDecoder}s on a single binary source. The decoders are taken from
+   * the pool of the thread actually running the task.
+   */
+  private class BinaryDecodeTask implements Callable<List<Result>> {
+    private final List<Class<? extends Symbology>> symbologies;
+    private final Options options;
+    private final BinaryGrid src;
+
+    BinaryDecodeTask(List<Class<? extends Symbology>> symbologies, Options options, BinaryGrid src) {
+      this.symbologies = symbologies;
+      this.options = options;
+      this.src = src;
+    }
+
+    @Override
+    public List<Result> call() {
+      if (options.getSettings(BaseSettings.class).getDeadline().isReached())
+        return Collections.emptyList();
+
+      DecoderPool pool = enterPool();
+      try {
+        List<BinaryDecoder> decoders = new ArrayList<BinaryDecoder>();
+        for (Class<? extends Symbology> sc : symbologies)
+          decoders.add((BinaryDecoder) getDecoder(sc, options));
+
+        Aggregation results = new Aggregation(null);
+        detect(decoders, src, results, false);
+        return results.getResults();
+      } finally {
+        leavePool(pool);
+      }
+    }
+  }
+
+  /**
+   * A task running a {@link LuminanceDecoder} on the luminance grid. The decoder is taken from the
+   * pool of the thread actually running the task.
+   */
+  private class LuminanceDecodeTask implements Callable<List<Result>> {
+    private final Class<? extends Symbology> symbology;
+    private final Options options;
+    private final LuminanceGrid grid;
+
+    LuminanceDecodeTask(Class<? extends Symbology> symbology, Options options, LuminanceGrid grid) {
+      this.symbology = symbology;
+      this.options = options;
+      this.grid = grid;
+    }
+
+    @Override
+    public List<Result> call() {
+      if (options.getSettings(BaseSettings.class).getDeadline().isReached())
+        return Collections.emptyList();
+
+      DecoderPool pool = enterPool();
+      try {
+        List<Result> results = new ArrayList<Result>();
+        LuminanceDecoder decoder = (LuminanceDecoder) getDecoder(symbology, options);
+        merge(decoder.detect(grid), new AffineTransform(), results);
+        return results;
+      } finally {
+        leavePool(pool);
+      }
+    }
+  }
+
+  private static <T> FutureTask<T> submit(Executor executor, Callable<T> callable) {
+    FutureTask<T> task = new FutureTask<T>(callable);
+    executor.execute(task);
+    return task;
+  }
+
+  /**
+   * Wait for the given task, running it on the calling thread if the executor hasn't started it
+   * yet. A task which has already been started won't run again.
+   */
+  private static <T> T runAndAwait(FutureTask<T> task) {
+    task.run();
+    return await(task);
+  }
+
+  private static <T> T await(FutureTask<T> task) {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for a decoding task", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw new RuntimeException("Decoding task failed", cause);
+    }
+  }
+
+  private static boolean isBarcodeCountLimitReached(int barcodeCountLimit, List<Result> results) {
+    return barcodeCountLimit != BaseSettings.NO_BARCODELIMIT && results.size() >= barcodeCountLimit;
+  }
+
+  /**
+   * Decode the binary sources for the given grid binarized at one threshold, merging the results of
+   * each decoder as soon as they are available.
+   */
+  private void decodeAtThreshold(final Options options, final BinaryGrid binaryGrid, final Aggregation results,
+      final boolean noDuplicates) {
+    // build image variations
+    List<BinaryGrid> binarySources = getBinarySources(options, binaryGrid);
+
+    // build list of codes to try
+    List<BinaryDecoder> decoders = new ArrayList<BinaryDecoder>();
+    for (Class<? extends Symbology> sc : getEnabledSymbologies(options.getSettings(BaseSettings.class)))
+      if (decodesBinary(sc)) // luminance-based goes separate
+        decoders.add((BinaryDecoder) getDecoder(sc, options));
+
+    // iterate over source variations, then codes
+    Deadline deadline = options.getSettings(BaseSettings.class).getDeadline();
+    for (BinaryGrid src : binarySources) {
+      if (deadline.isReached() || results.isStopped())
+        break;
+
+      detect(decoders, src, results, noDuplicates);
+    }
+  }
+
+  /**
+   * Run the given decoders on a binary source and merge the results of each decoder as soon as it is
+   * done, in the order of the decoders. The linear decoders share a single scan of the source, so
+   * their results become available together. Once the results are stopped, the remaining decoders
+   * are skipped.
+   */
+  private static void detect(List<BinaryDecoder> decoders, BinaryGrid src, Aggregation results,
+      boolean noDuplicates) {
+    List<OneDDecoder> linearDecoders = new ArrayList<OneDDecoder>();
+    for (BinaryDecoder d : decoders)
+      if (d instanceof OneDDecoder)
+        linearDecoders.add((OneDDecoder) d);
+
+    Iterator<List<Result>> linearResults = LinearCodeScanner.detect(linearDecoders, src).iterator();
+    for (BinaryDecoder d : decoders) {
+      if (results.isStopped())
+        break;
+
+      List<Result> found = new ArrayList<Result>();
+      merge(d instanceof OneDDecoder ? linearResults.next() : d.detect(src), src.getInverseTransform(), found);
+      results.merge(found, noDuplicates);
+    }
+  }
+
+  private void decodeLuminanceBased(final Options options, final Grid grid, final Aggregation results) {
+    if (!(grid instanceof LuminanceGrid))
+      return;
+
+    // Detect luminance based
+    Deadline deadline = options.getSettings(BaseSettings.class).getDeadline();
+    for (Class<? extends Symbology> sc : getEnabledSymbologies(options.getSettings(BaseSettings.class)))
+      if (decodesLuminance(sc) && !deadline.isReached() && !results.isStopped()) {
+        List<Result> found = new ArrayList<Result>();
+        merge(((LuminanceDecoder) getDecoder(sc, options)).detect((LuminanceGrid) grid), new AffineTransform(),
+            found);
+        results.merge(found, true);
+      }
+  }
+
+  /**
+   * Create a {@link LinearCodeStream} for decoding an image which is delivered row by row. The
+   * stream uses its own decoders for all enabled linear symbologies, so that it can be used
+   * alongside regular decoding runs on the same thread.
+   * 
+   * @param options the options
+   * @param width the width of the rows
+   * @param bandHeight the number of rows to keep, see
+   *          {@link LinearCodeStream#LinearCodeStream(List, int, int, ResultListener)}
+   * @param listener the listener receiving the results
+   * @return the stream
+   */
+  public LinearCodeStream createLinearCodeStream(final Options options, final int width, final int bandHeight,
+      final ResultListener listener) {
+    List<OneDDecoder> linearDecoders = new ArrayList<OneDDecoder>();
+    for (Class<? extends Symbology> sc : getEnabledSymbologies(options.getSettings(BaseSettings.class))) {
+      Decoder decoder = symbologies.get(sc).createDecoder();
+      if (decoder instanceof OneDDecoder) {
+        decoder.setOptions(options);
+        linearDecoders.add((OneDDecoder) decoder);
+      }
+    }
+
+    if (linearDecoders.isEmpty())
+      throw new IllegalArgumentException("No linear symbology is enabled");
+
+    return new LinearCodeStream(linearDecoders, width, bandHeight, listener);
+  }
+
+  /**
+   * Return the classes of all available symbologies which are enabled in the given settings.
+   */
+  private List<Class<? extends Symbology>> getEnabledSymbologies(BaseSettings baseSettings) {
+    List<Class<? extends Symbology>> enabled = new ArrayList<Class<? extends Symbology>>();
+    for (Class<? extends Symbology> sc : symbologies.keySet())
+      if (baseSettings.isSymbologyEnabled(sc))
+        enabled.add(sc);
+    return enabled;
+  }
+
+  /**
+   * Return the calling thread's decoder for the given symbology, prepared for the given options.
+   */
+  private Decoder getDecoder(Class<? extends Symbology> sc, Options options) {
+    Decoder decoder = getDecoder(sc);
+    decoder.setOptions(options);
+    return decoder;
+  }
+
+  private boolean decodesBinary(Class<? extends Symbology> sc) {
+    return getDecoder(sc) instanceof BinaryDecoder;
+  }
+
+  private boolean decodesLuminance(Class<? extends Symbology> sc) {
+    return getDecoder(sc) instanceof LuminanceDecoder;
+  }
+
+  /**
+   * Return the calling thread's decoder for the given symbology.
+   */
+  private Decoder getDecoder(Class<? extends Symbology> sc) {
+    Map<Class<? extends Symbology>, Decoder> pool = pools.get().decoders;
+    Decoder decoder = pool.get(sc);
+    if (null == decoder) {
+      decoder = symbologies.get(sc).createDecoder();
+      pool.put(sc, decoder);
+    }
+    return decoder;
+  }
+
+  /**
+   * Mark the calling thread's decoders as in use by a run until {@link #leavePool(DecoderPool)}. If
+   * they are already in use by an enclosing run, the run gets a pool of its own instead.
+   */
+  private DecoderPool enterPool() {
+    DecoderPool pool = pools.get();
+    if (pool.inUse) {
+      pool = new DecoderPool(pool);
+      pools.set(pool);
+    }
+    pool.inUse = true;
+    return pool;
+  }
+
+  private void leavePool(DecoderPool pool) {
+    pool.inUse = false;
+    if (null != pool.enclosing)
+      pools.set(pool.enclosing);
+  }
+
+  /**
+   * Returns the binary sources for all regions-of-interest and active directions.
+   */
+  private static List<BinaryGrid> getBinarySources(final Options options, final BinaryGrid binaryGrid) {
+    BaseSettings baseSettings = options.getSettings(BaseSettings.class);
+    LinearCodeSettings linearCodeSettings = options.getSettings(LinearCodeSettings.class);
+
+    List<BinaryGrid> binarySources = new LinkedList<BinaryGrid>();
+    if (!baseSettings.getRegions().isEmpty()) {
+      for (Rectangle region : baseSettings.getRegions()) {
+        ROIGrid regionGrid = new ROIGrid(binaryGrid, region);
+        binarySources.addAll(getBinarySourcesForActiveDirections(regionGrid, linearCodeSettings));
+      }
+    } else {
+      binarySources.addAll(getBinarySourcesForActiveDirections(binaryGrid, linearCodeSettings));
+    }
+    return binarySources;
+  }
+
+  /**
+   * Returns the binary sources for all active directions. Packed grids are rotated into
+   * materialized copies if so configured.
+   */
+  private static List<BinaryGrid> getBinarySourcesForActiveDirections(final BinaryGrid binaryGrid,
+      final LinearCodeSettings linearCodeSettings) {
+    boolean materialize = linearCodeSettings.isMaterializeRotations() && binaryGrid instanceof PackedBinaryGrid;
+
+    List<BinaryGrid> binarySources = new LinkedList<BinaryGrid>();
+    for (Direction d : Direction.values()) {
+      if (!linearCodeSettings.isDirectionEnabled(d))
+        continue;
+
+      if (d == Direction.EAST)
+        binarySources.add(binaryGrid);
+      else if (materialize)
+        binarySources.add(((PackedBinaryGrid) binaryGrid).rotate(d));
+      else
+        binarySources.add(new QuadrantRotationGrid(binaryGrid, d));
+    }
+    return binarySources;
+  }
+
+  /**
+   * Merge another list of results, applying the given transform to them.
+   * 
+   * @param transform
+   * @param r
+   */
+  private static void merge(final Collection<Result> src, final AffineTransform transform,
+      final Collection<Result> dst) {
+    for (final Result c : src) {
+      c.transform(transform);
+      dst.add(c);
+    }
+  }
+
+  /**
+   * The globally aggregated results of a decoding run. Each result is reported to the listener as
+   * soon as it has been accepted. Once the listener asks to stop, no more results are accepted.
+   */
+  private static class Aggregation {
+    private final ResultIndex index = new ResultIndex();
+    private final ResultListener listener;
+    private boolean stopped;
+
+    Aggregation(ResultListener listener) {
+      this.listener = listener;
+    }
+
+    /**
+     * Merge another list of results, optionally excluding any duplicates, i.e. results overlapping
+     * an already found one.
+     */
+    void merge(final Collection<Result> src, final boolean noDuplicates) {
+      for (final Result s : src) {
+        if (stopped)
+          return;
+
+        if (noDuplicates) {
+          if (!index.addIfNoDuplicate(s))
+            continue;
+        } else
+          index.add(s);
+
+        if (null != listener && !listener.resultFound(s))
+          stopped = true;
+      }
+    }
+
+    boolean isStopped() {
+      return stopped;
+    }
+
+    List<Result> getResults() {
+      return index.getResults();
+    }
+  }
+}
@@ -25,6 +25,7 @@ import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -43,7 +44,7 @@ public class DiagnosticSettings implements Settings {
 
   private boolean markupEnabled;
 
-  private final List<Marker> debugMarkers = new ArrayList<Marker>();
+  private final List<Marker> debugMarkers = Collections.synchronizedList(new ArrayList<Marker>());
 
   private final Queue<Marker> transientMarkers = new ConcurrentLinkedQueue<Marker>();
 
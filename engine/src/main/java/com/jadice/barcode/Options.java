@@ -19,15 +19,30 @@
  */
 package com.jadice.barcode;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Options represent a collection of {@link Settings} instances (or rather implementations thereof)
  * which are specific to some particular aspect of the decoding process or a particular symbology.
  */
 public class Options {
-  private final Map<Class<? extends Settings>, Settings> settings = new HashMap<Class<? extends Settings>, Settings>();
+  private final Map<Class<? extends Settings>, Settings> settings = new ConcurrentHashMap<Class<? extends Settings>, Settings>();
+
+  public Options() {
+  }
+
+  /**
+   * Create options sharing all settings of the given template, except for the given settings which
+   * replace the template's settings of the same class.
+   * 
+   * @param template the options to share the settings of
+   * @param override the settings to use instead of the template's
+   */
+  Options(Options template, Settings override) {
+    settings.putAll(template.settings);
+    settings.put(override.getClass(), override);
+  }
 
   /**
    * Return the {@link Settings} of the specified type. This method will always return a non-
@@ -44,11 +59,15 @@ public class Options {
     if (null == s) {
       try {
         s = clazz.newInstance();
-        settings.put(clazz, s);
       } catch (Exception e) {
         // should not happen
         throw new RuntimeException("Can't instantiate the settings class " + clazz, e);
       }
+
+      // another thread may have been faster: settle on a single instance
+      Settings existing = settings.putIfAbsent(clazz, s);
+      if (null != existing)
+        s = existing;
     }
 
     return (S) s;
@@ -33,6 +33,9 @@ public class Result {
   /** The shape of the detection area */
   private Shape shape = new Rectangle();
 
+  /** The bounds of the shape, computed lazily, since they are costly to compute for paths */
+  private Rectangle bounds;
+
   /** The detected code string */
   private final String codeString;
 
@@ -64,6 +67,18 @@ public class Result {
     return shape;
   }
 
+  /**
+   * Returns the bounding box of the shape of the detection. The bounds are cached until the result
+   * is transformed. The returned rectangle must not be modified.
+   * 
+   * @return the bounds
+   */
+  public Rectangle getBounds() {
+    if (null == bounds)
+      bounds = shape.getBounds();
+    return bounds;
+  }
+
   /**
    * Returns whether the detection is valid.
    * 
@@ -126,10 +141,12 @@ public class Result {
   protected void rotate(double angle, double x, double y) {
     this.angle = (this.angle + angle) % (2 * Math.PI);
     shape = AffineTransform.getRotateInstance(angle, x, y).createTransformedShape(shape);
+    bounds = null;
   }
 
   protected void translate(int dx, int dy) {
     shape = AffineTransform.getTranslateInstance(dx, dy).createTransformedShape(shape);
+    bounds = null;
   }
 
   /**
@@ -137,6 +154,7 @@ public class Result {
    */
   public void transform(AffineTransform transform) {
     shape = transform.createTransformedShape(shape);
+    bounds = null;
 
     // the following calculation assumes a transform without shearing
     final double transformAngle = Math.atan2(transform.getShearX(), transform.getScaleX());
@@ -145,6 +163,6 @@ public class Result {
 
   @Override
   public String toString() {
-    return "DetectionResult [" + symbology + ": " + codeString + "; " + shape.getBounds() + "; " + angle + "]";
+    return "DetectionResult [" + symbology + ": " + codeString + "; " + getBounds() + "; " + angle + "]";
   }
 }
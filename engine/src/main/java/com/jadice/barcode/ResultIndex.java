@@ -0,0 +1,173 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A ResultIndex is a uniform-grid spatial index over the bounding boxes of {@link Result}s. It
+ * answers whether a result overlaps any indexed result in roughly constant time, so that merging
+ * the results of many decoding passes does not degrade quadratically with the number of codes on a
+ * page.
+ * 
+ * The overlap test is the one used for duplicate suppression during decoding: a result overlaps
+ * an indexed result, if the shape of the indexed result intersects the bounding box of the
+ * result. The exact shape test is only performed on candidates whose (cached) bounding boxes
+ * intersect.
+ * 
+ * A ResultIndex is not thread-safe.
+ */
+public class ResultIndex {
+  /** The default edge length of the grid cells in pixels */
+  public static final int DEFAULT_CELL_SIZE = 128;
+
+  private static final class Entry {
+    final Result result;
+
+    /** The query in which this entry was last visited, to skip entries spanning several cells */
+    int visited;
+
+    Entry(Result result) {
+      this.result = result;
+    }
+  }
+
+  private final int cellSize;
+
+  /** The entries overlapping each cell, keyed by the packed cell coordinates */
+  private final Map<Long, List<Entry>> cells = new HashMap<Long, List<Entry>>();
+
+  private final List<Result> results = new ArrayList<Result>();
+
+  private int query;
+
+  /**
+   * Create an index with the {@link #DEFAULT_CELL_SIZE}.
+   */
+  public ResultIndex() {
+    this(DEFAULT_CELL_SIZE);
+  }
+
+  /**
+   * Create an index with the given cell size. The cell size should be in the order of magnitude
+   * of the size of the indexed codes.
+   * 
+   * @param cellSize the edge length of the grid cells in pixels
+   */
+  public ResultIndex(int cellSize) {
+    if (cellSize <= 0)
+      throw new IllegalArgumentException("The cell size must be positive");
+    this.cellSize = cellSize;
+  }
+
+  /**
+   * Add a result to the index.
+   * 
+   * @param result the result
+   */
+  public void add(Result result) {
+    Entry entry = new Entry(result);
+    Rectangle b = result.getBounds();
+    for (int cy = cell(b.y); cy <= cell(b.y + b.height); cy++)
+      for (int cx = cell(b.x); cx <= cell(b.x + b.width); cx++) {
+        Long key = key(cx, cy);
+        List<Entry> entries = cells.get(key);
+        if (null == entries) {
+          entries = new ArrayList<Entry>(2);
+          cells.put(key, entries);
+        }
+        entries.add(entry);
+      }
+    results.add(result);
+  }
+
+  /**
+   * Return whether the shape of any indexed result intersects the bounding box of the given result.
+   * 
+   * @param result the result
+   * @return <code>true</code> if the result overlaps an indexed result
+   */
+  public boolean overlapsAny(Result result) {
+    Rectangle b = result.getBounds();
+    if (results.isEmpty() || b.isEmpty())
+      return false;
+
+    int q = ++query;
+    for (int cy = cell(b.y); cy <= cell(b.y + b.height); cy++)
+      for (int cx = cell(b.x); cx <= cell(b.x + b.width); cx++) {
+        List<Entry> entries = cells.get(key(cx, cy));
+        if (null == entries)
+          continue;
+
+        for (Entry entry : entries) {
+          if (entry.visited == q)
+            continue;
+          entry.visited = q;
+
+          if (entry.result.getBounds().intersects(b) && entry.result.getShape().intersects(b))
+            return true;
+        }
+      }
+
+    return false;
+  }
+
+  /**
+   * Add the given result to the index unless it overlaps an already indexed result.
+   * 
+   * @param result the result
+   * @return <code>true</code> if the result has been added, <code>false</code> if it is a duplicate
+   */
+  public boolean addIfNoDuplicate(Result result) {
+    if (overlapsAny(result))
+      return false;
+    add(result);
+    return true;
+  }
+
+  /**
+   * Return the indexed results in the order in which they have been added.
+   * 
+   * @return the results
+   */
+  public List<Result> getResults() {
+    return results;
+  }
+
+  /**
+   * Remove all results from the index.
+   */
+  public void clear() {
+    cells.clear();
+    results.clear();
+  }
+
+  private int cell(int coordinate) {
+    return Math.floorDiv(coordinate, cellSize);
+  }
+
+  private static Long key(int cx, int cy) {
+    return ((long) cy << 32) | (cx & 0xffffffffL);
+  }
+}
@@ -0,0 +1,42 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode;
+
+/**
+ * A ResultListener receives the {@link Result}s of a decoding run while the run is in progress,
+ * rather than after the whole run has completed. A sequential run delivers the results of each
+ * decoder as soon as the decoder is done with a binary source or the luminance image; a concurrent
+ * run delivers the results of each pass once it has been joined in order. The results are delivered
+ * in image coordinates and have already been checked for duplicates. The listener is called on the
+ * thread which started the decoding run.
+ * <p>
+ * The listener may start decoding runs of its own. These use decoders of their own, so that the
+ * run which called the listener is not disturbed.
+ */
+public interface ResultListener {
+  /**
+   * Called for each result found during decoding.
+   * 
+   * @param result the result
+   * @return <code>true</code> to continue decoding, <code>false</code> to stop the decoding run and
+   *         skip the remaining work
+   */
+  boolean resultFound(Result result);
+}
@@ -0,0 +1,136 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.grid;
+
+/**
+ * A {@link Binarizer} which derives a separate threshold for each pixel from the luminance in a
+ * square window around it, following the method of Sauvola and Pietikainen: the threshold is
+ * <code>m * (1 + k * (s / R - 1))</code>, where <code>m</code> and <code>s</code> are the mean and
+ * the standard deviation of the window, <code>k</code> is the sensitivity and <code>R</code> the
+ * dynamic range of the standard deviation. Thus, the binarizer copes with shadows, stains and
+ * uneven illumination which defeat a global threshold.
+ * 
+ * The mean and the standard deviation are taken from integral images of the luminance and of its
+ * square, so that the threshold of a pixel is computed in constant time regardless of the window
+ * size. The integral images are kept in <code>int</code>s and may overflow for large images. This
+ * does no harm, since the sums are only ever used to compute the differences for a window, which
+ * are exact in two's complement arithmetic as long as the sums for a single window fit into an
+ * <code>int</code>. This limits the window radius to {@link #MAX_RADIUS}.
+ */
+public class AdaptiveThresholdBinarizer extends Binarizer {
+  /** The default radius of the window around each pixel */
+  public static final int DEFAULT_RADIUS = 20;
+
+  /** The maximum radius of the window around each pixel */
+  public static final int MAX_RADIUS = 90;
+
+  /** The default sensitivity */
+  public static final float DEFAULT_SENSITIVITY = 0.2f;
+
+  /** The dynamic range of the standard deviation */
+  private static final double DYNAMIC_RANGE = 128;
+
+  private final int radius;
+  private final float sensitivity;
+
+  private final int width;
+  private final int height;
+
+  /** The integral images, (width + 1) x (height + 1), with a leading row and column of zeros */
+  private final int stride;
+  private final int[] sums;
+  private final int[] squares;
+
+  /**
+   * Create a binarizer using the {@link #DEFAULT_RADIUS} and the {@link #DEFAULT_SENSITIVITY}.
+   * 
+   * @param grid the grid to binarize
+   */
+  public AdaptiveThresholdBinarizer(LuminanceGrid grid) {
+    this(grid, DEFAULT_RADIUS, DEFAULT_SENSITIVITY);
+  }
+
+  /**
+   * Create a binarizer.
+   * 
+   * @param grid the grid to binarize
+   * @param radius the radius of the window around each pixel, i.e. the window has an edge length
+   *          of <code>2 * radius + 1</code>. It should exceed the width of the widest bar.
+   * @param sensitivity the sensitivity <code>k</code>. Higher values turn more pixels of
+   *          low-contrast regions white.
+   */
+  public AdaptiveThresholdBinarizer(LuminanceGrid grid, int radius, float sensitivity) {
+    super(grid);
+    if (radius < 1 || radius > MAX_RADIUS)
+      throw new IllegalArgumentException("The radius must be between 1 and " + MAX_RADIUS);
+
+    this.radius = radius;
+    this.sensitivity = sensitivity;
+    this.width = grid.getWidth();
+    this.height = grid.getHeight();
+
+    this.stride = width + 1;
+    this.sums = new int[stride * (height + 1)];
+    this.squares = new int[stride * (height + 1)];
+
+    byte row[] = null;
+    for (int y = 0; y < height; y++) {
+      row = grid.getRow(y, row);
+      int rowSum = 0;
+      int rowSquares = 0;
+      for (int x = 0, above = y * stride + 1, i = above + stride; x < width; x++, above++, i++) {
+        int luminance = row[x] & 0xff;
+        rowSum += luminance;
+        rowSquares += luminance * luminance;
+        sums[i] = sums[above] + rowSum;
+        squares[i] = squares[above] + rowSquares;
+      }
+    }
+  }
+
+  public int getRadius() {
+    return radius;
+  }
+
+  public float getSensitivity() {
+    return sensitivity;
+  }
+
+  @Override
+  protected int getThreshold(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height)
+      return 0;
+
+    int x0 = Math.max(0, x - radius);
+    int y0 = Math.max(0, y - radius) * stride;
+    int x1 = Math.min(width, x + radius + 1);
+    int y1 = Math.min(height, y + radius + 1) * stride;
+    int n = (x1 - x0) * ((y1 - y0) / stride);
+
+    int sum = sums[y1 + x1] - sums[y1 + x0] - sums[y0 + x1] + sums[y0 + x0];
+    int sumOfSquares = squares[y1 + x1] - squares[y1 + x0] - squares[y0 + x1] + squares[y0 + x0];
+
+    double mean = (double) sum / n;
+    double variance = (double) sumOfSquares / n - mean * mean;
+    double deviation = variance > 0 ? Math.sqrt(variance) : 0;
+
+    return (int) (mean * (1 + sensitivity * (deviation / DYNAMIC_RANGE - 1)));
+  }
+}
@@ -30,6 +30,12 @@ public abstract class Binarizer implements BinaryGrid {
 
   protected final int channels;
 
+  /*
+   * The luminance values read by getRow() and getColumn(). Binarizers are shared by concurrent
+   * decoders, so each thread reads through a buffer of its own.
+   */
+  private final ThreadLocal<byte[]> luminanceBuffer = new ThreadLocal<byte[]>();
+
   protected Binarizer(LuminanceGrid grid) {
     this.grid = grid;
     this.channels = grid.getNumChannels();
@@ -42,7 +48,37 @@ public abstract class Binarizer implements BinaryGrid {
 
   @Override
   public boolean samplePixel(int x, int y) {
-    return grid.getLuminance(x, y) < getThreshold(x, y);
+    // clamp like the bulk rows and columns of the grid, so that both agree
+    int value = grid.getLuminance(x, y);
+    if (value < 0)
+      value = 0;
+    if (value > 255)
+      value = 255;
+    return value < getThreshold(x, y);
+  }
+
+  @Override
+  public long[] getRow(int y, long[] bits) {
+    int width = getWidth();
+    bits = PackedBinaryGrid.prepareBits(bits, width);
+    byte luminance[] = grid.getRow(y, luminanceBuffer.get());
+    luminanceBuffer.set(luminance);
+    for (int x = 0; x < width; x++)
+      if ((luminance[x] & 0xff) < getThreshold(x, y))
+        bits[x >> 6] |= 1L << x;
+    return bits;
+  }
+
+  @Override
+  public long[] getColumn(int x, long[] bits) {
+    int height = getHeight();
+    bits = PackedBinaryGrid.prepareBits(bits, height);
+    byte luminance[] = grid.getColumn(x, luminanceBuffer.get());
+    luminanceBuffer.set(luminance);
+    for (int y = 0; y < height; y++)
+      if ((luminance[y] & 0xff) < getThreshold(x, y))
+        bits[y >> 6] |= 1L << y;
+    return bits;
   }
 
   protected abstract int getThreshold(int x, int y);
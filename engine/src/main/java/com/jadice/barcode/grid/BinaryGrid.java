@@ -35,4 +35,45 @@ public interface BinaryGrid extends Grid {
    * @return
    */
   public abstract boolean samplePixel(int x, int y);
+
+  /**
+   * Return the pixels of row <code>y</code>, packed into 64-bit words: bit <code>x &amp; 63</code>
+   * of word <code>x &gt;&gt; 6</code> is set if pixel x is black. The bits after the last pixel of
+   * the row are clear. Rows outside the grid are white.
+   * <p>
+   * Implementations should override this in order to avoid the cost of sampling each pixel
+   * separately.
+   * 
+   * @param y the row
+   * @param bits the array to fill or <code>null</code>. If it holds fewer than
+   *          <code>(getWidth() + 63) / 64</code> words, a new array is allocated.
+   * @return the array holding the packed row
+   */
+  default long[] getRow(int y, long[] bits) {
+    int width = getWidth();
+    bits = PackedBinaryGrid.prepareBits(bits, width);
+    for (int x = 0; x < width; x++)
+      if (samplePixel(x, y))
+        bits[x >> 6] |= 1L << x;
+    return bits;
+  }
+
+  /**
+   * Return the pixels of column <code>x</code>, packed like the pixels returned by
+   * {@link #getRow(int, long[])}, i.e. bit <code>y &amp; 63</code> of word <code>y &gt;&gt; 6</code>
+   * is pixel y.
+   * 
+   * @param x the column
+   * @param bits the array to fill or <code>null</code>. If it holds fewer than
+   *          <code>(getHeight() + 63) / 64</code> words, a new array is allocated.
+   * @return the array holding the packed column
+   */
+  default long[] getColumn(int x, long[] bits) {
+    int height = getHeight();
+    bits = PackedBinaryGrid.prepareBits(bits, height);
+    for (int y = 0; y < height; y++)
+      if (samplePixel(x, y))
+        bits[y >> 6] |= 1L << y;
+    return bits;
+  }
 }
\ No newline at end of file
@@ -61,6 +61,17 @@ public class CachingBinaryGrid implements BinaryGrid {
     return (pixelCache[y * scanlineStride + (x >> 3)] & (1 << (x & 7))) != 0;
   }
 
+  @Override
+  public long[] getRow(int y, long[] bits) {
+    bits = PackedBinaryGrid.prepareBits(bits, width);
+    if (y < 0 || y >= height)
+      return bits;
+
+    for (int i = 0, offset = y * scanlineStride; i < scanlineStride; i++)
+      bits[i >> 3] |= (pixelCache[offset + i] & 0xffL) << ((i & 7) << 3);
+    return bits;
+  }
+
   public int getPixelLuminance(int x, int y) {
     return samplePixel(x, y) ? 0 : 255;
   }
@@ -43,15 +43,12 @@ public class HistogramThresholdBinarizer extends FixedlThresholdBinarizer {
     int width = grid.getWidth();
     int height = grid.getHeight();
 
-    for (int y = 0; y < height; y += histogramSamplingInterval)
-      for (int x = 0; x < width; x += histogramSamplingInterval) {
-        int value = grid.getLuminance(x, y);
-        if (value < 0)
-          value = 0;
-        if (value > 255)
-          value = 255;
-        histogram[value]++;
-      }
+    byte row[] = null;
+    for (int y = 0; y < height; y += histogramSamplingInterval) {
+      row = grid.getRow(y, row);
+      for (int x = 0; x < width; x += histogramSamplingInterval)
+        histogram[row[x] & 0xff]++;
+    }
 
     return histogram;
   }
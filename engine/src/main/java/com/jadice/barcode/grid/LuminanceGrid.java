@@ -19,6 +19,8 @@
  */
 package com.jadice.barcode.grid;
 
+import java.util.Arrays;
+
 /**
  * A LuminanceGrid is a {@link Grid} extension which supplies normalized luminance values for
  * pixels.
@@ -35,6 +37,67 @@ public interface LuminanceGrid extends Grid {
    */
   int getLuminance(int x, int y);
 
+  /**
+   * Return the luminance values of row <code>y</code>, one unsigned byte per pixel. Values outside
+   * the range [0,255] are clamped to it. Rows outside the grid are white.
+   * <p>
+   * Implementations should override this in order to avoid the cost of reading each pixel
+   * separately.
+   * 
+   * @param y the row
+   * @param row the array to fill or <code>null</code>. If it is shorter than the width, a new array
+   *          is allocated.
+   * @return the array holding the row in its first <code>getWidth()</code> elements
+   */
+  default byte[] getRow(int y, byte[] row) {
+    int width = getWidth();
+    if (null == row || row.length < width)
+      row = new byte[width];
+    if (y < 0 || y >= getHeight()) {
+      Arrays.fill(row, 0, width, (byte) 0xff);
+      return row;
+    }
+
+    for (int x = 0; x < width; x++) {
+      int value = getLuminance(x, y);
+      if (value < 0)
+        value = 0;
+      if (value > 255)
+        value = 255;
+      row[x] = (byte) value;
+    }
+    return row;
+  }
+
+  /**
+   * Return the luminance values of column <code>x</code>, one unsigned byte per pixel. Values
+   * outside the range [0,255] are clamped to it. Columns outside the grid are white.
+   * 
+   * @param x the column
+   * @param column the array to fill or <code>null</code>. If it is shorter than the height, a new
+   *          array is allocated.
+   * @return the array holding the column in its first <code>getHeight()</code> elements
+   */
+  default byte[] getColumn(int x, byte[] column) {
+    int height = getHeight();
+    if (null == column || column.length < height)
+      column = new byte[height];
+    if (x < 0 || x >= getWidth()) {
+      Arrays.fill(column, 0, height, (byte) 0xff);
+      return column;
+    }
+
+    for (int y = 0; y < height; y++) {
+      int value = getLuminance(x, y);
+      if (value < 0)
+        value = 0;
+      if (value > 255)
+        value = 255;
+      column[y] = (byte) value;
+    }
+    return column;
+  }
+
   /**
    * Return the number of color channels of the base image. This is currently FYI only.
    * 
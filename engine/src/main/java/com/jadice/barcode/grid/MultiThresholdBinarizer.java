@@ -0,0 +1,81 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.grid;
+
+import java.util.Arrays;
+
+/**
+ * Binarizes a {@link LuminanceGrid} at several fixed thresholds at once. Every luminance value is
+ * read exactly once and contributes one bit to each of the resulting {@link PackedBinaryGrid}s, so
+ * that decoding at further thresholds costs only the scan, but not the conversion of the pixels.
+ * 
+ * A pixel is black in the bit-plane for a threshold, if its luminance is below that threshold, just
+ * like with the {@link FixedlThresholdBinarizer}.
+ */
+public class MultiThresholdBinarizer {
+  private MultiThresholdBinarizer() {
+    // static methods only
+  }
+
+  /**
+   * Binarize the given grid at all the given thresholds.
+   * 
+   * @param grid the grid to binarize
+   * @param thresholds the luminance thresholds in the range [0,255]
+   * @return one bit-plane per threshold, in the order of the thresholds
+   */
+  public static PackedBinaryGrid[] binarize(LuminanceGrid grid, int... thresholds) {
+    int planeCount = thresholds.length;
+    int width = grid.getWidth();
+    int height = grid.getHeight();
+    int wordsPerRow = (width + 63) >> 6;
+
+    // the planes are filled in ascending order of their thresholds, so that the planes in which a
+    // pixel is black are always a suffix of the sorted planes
+    int sorted[] = thresholds.clone();
+    Arrays.sort(sorted);
+
+    long planes[][] = new long[planeCount][wordsPerRow * height];
+    long word[] = new long[planeCount];
+    byte row[] = null;
+    for (int y = 0, rowOffset = 0; y < height; y++, rowOffset += wordsPerRow) {
+      row = grid.getRow(y, row);
+      for (int w = 0, x = 0; w < wordsPerRow; w++) {
+        Arrays.fill(word, 0);
+        for (int end = Math.min(x + 64, width), bit = 0; x < end; x++, bit++) {
+          int luminance = row[x] & 0xff;
+          for (int p = planeCount - 1; p >= 0 && luminance < sorted[p]; p--)
+            word[p] |= 1L << bit;
+        }
+        for (int p = 0; p < planeCount; p++)
+          planes[p][rowOffset + w] = word[p];
+      }
+    }
+
+    // hand out the planes in the order of the thresholds
+    PackedBinaryGrid result[] = new PackedBinaryGrid[planeCount];
+    for (int i = 0; i < planeCount; i++) {
+      int p = Arrays.binarySearch(sorted, thresholds[i]);
+      result[i] = new PackedBinaryGrid(width, height, planes[p], grid.getInverseTransform());
+    }
+
+    return result;
+  }
+}
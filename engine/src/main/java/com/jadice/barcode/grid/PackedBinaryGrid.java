@@ -0,0 +1,344 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.grid;
+
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+
+import com.jadice.barcode.linear.LinearCodeSettings.Direction;
+
+/**
+ * A {@link BinaryGrid} which holds a materialized copy of another grid with one bit per pixel,
+ * packed into 64-bit words. The copy is made in a single pass over the source grid, so that any
+ * binarization is performed only once, no matter how many decoders and scan directions look at the
+ * pixels afterwards. Runs of pixels are found by scanning the words for the next set bit instead of
+ * looking at each pixel.
+ * 
+ * Instances are immutable and may be shared among threads.
+ */
+public class PackedBinaryGrid implements RunLengthBinaryGrid {
+  private final int width;
+  private final int height;
+
+  /** The number of words per row */
+  private final int wordsPerRow;
+
+  /** The pixels, row by row. Bit <code>x &amp; 63</code> of word <code>x &gt;&gt; 6</code> is pixel x */
+  private final long[] words;
+
+  private final AffineTransform inverseTransform;
+
+  /**
+   * Create a grid from already packed words, laid out as described for {@link #words}. The array is
+   * not copied and must not be modified afterwards.
+   */
+  PackedBinaryGrid(int width, int height, long[] words, AffineTransform inverseTransform) {
+    this.width = width;
+    this.height = height;
+    this.inverseTransform = inverseTransform;
+    this.wordsPerRow = (width + 63) >> 6;
+    this.words = words;
+  }
+
+  public PackedBinaryGrid(BinaryGrid source) {
+    this.width = source.getWidth();
+    this.height = source.getHeight();
+    this.inverseTransform = source.getInverseTransform();
+
+    this.wordsPerRow = (width + 63) >> 6;
+    this.words = new long[wordsPerRow * height];
+
+    long row[] = null;
+    for (int y = 0, rowOffset = 0; y < height; y++, rowOffset += wordsPerRow) {
+      row = source.getRow(y, row);
+      System.arraycopy(row, 0, words, rowOffset, wordsPerRow);
+    }
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public AffineTransform getInverseTransform() {
+    return inverseTransform;
+  }
+
+  @Override
+  public boolean samplePixel(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height)
+      return false;
+
+    return (words[y * wordsPerRow + (x >> 6)] & (1L << x)) != 0;
+  }
+
+  @Override
+  public int scanRow(int y, int x1, int x2, int[] runLengths) {
+    if (y < 0 || y >= height || x1 < 0 || x2 >= width) {
+      // slow path for partly or fully outside rows
+      return scanRowSampling(this, y, x1, x2, runLengths);
+    }
+
+    return scanRow(words, y * wordsPerRow, x1, x2, runLengths);
+  }
+
+  @Override
+  public long[] getRow(int y, long[] bits) {
+    bits = prepareBits(bits, width);
+    if (y >= 0 && y < height)
+      System.arraycopy(words, y * wordsPerRow, bits, 0, wordsPerRow);
+    return bits;
+  }
+
+  @Override
+  public long[] getColumn(int x, long[] bits) {
+    bits = prepareBits(bits, height);
+    if (x < 0 || x >= width)
+      return bits;
+
+    int w = x >> 6;
+    int shift = x & 63;
+    for (int y = 0, i = w; y < height; y++, i += wordsPerRow)
+      bits[y >> 6] |= ((words[i] >>> shift) & 1L) << y;
+    return bits;
+  }
+
+  /**
+   * Extract the runs of pixels from <code>x1</code> to <code>x2</code> (inclusive) of a packed row
+   * as returned by {@link BinaryGrid#getRow(int, long[])}, like
+   * {@link RunLengthBinaryGrid#scanRow(int, int, int, int[])} does.
+   * 
+   * @param row the packed row. It must hold pixel <code>x2</code>.
+   * @param x1 the first column, non-negative
+   * @param x2 the last column
+   * @param runLengths the array receiving the run lengths
+   * @return the number of runs
+   */
+  public static int scanRow(long[] row, int x1, int x2, int[] runLengths) {
+    return scanRow(row, 0, x1, x2, runLengths);
+  }
+
+  private static int scanRow(long[] words, int rowOffset, int x1, int x2, int[] runLengths) {
+    int end = x2 + 1;
+    int runs = 0;
+    boolean black = false;
+    for (int x = x1; x < end; black = !black) {
+      int next = nextTransition(words, rowOffset, x, end, black);
+      runLengths[runs++] = next - x;
+      x = next;
+    }
+
+    return runs;
+  }
+
+  /**
+   * Find the position of the first pixel at or after <code>x</code> which does not have the given
+   * color.
+   * 
+   * @return the position or <code>end</code> if there is no such pixel before it
+   */
+  private static int nextTransition(long[] words, int rowOffset, int x, int end, boolean black) {
+    int w = x >> 6;
+    int lastWord = (end - 1) >> 6;
+
+    // look for set bits in the current word, starting at x
+    long word = black ? ~words[rowOffset + w] : words[rowOffset + w];
+    word &= -1L << x;
+    while (word == 0) {
+      if (++w > lastWord)
+        return end;
+      word = black ? ~words[rowOffset + w] : words[rowOffset + w];
+    }
+
+    return Math.min((w << 6) + Long.numberOfTrailingZeros(word), end);
+  }
+
+  /**
+   * Return an array able to hold <code>length</code> packed pixels, with the words covering them
+   * cleared.
+   */
+  static long[] prepareBits(long[] bits, int length) {
+    int words = (length + 63) >> 6;
+    if (null == bits || bits.length < words)
+      return new long[words];
+
+    Arrays.fill(bits, 0, words, 0L);
+    return bits;
+  }
+
+  /**
+   * Copy <code>length</code> packed pixels, starting at pixel <code>from</code> of the source, to
+   * the start of the destination. The bits after the last pixel copied are cleared.
+   */
+  public static void copyBits(long[] src, int from, long[] dst, int length) {
+    int words = (length + 63) >> 6;
+    int w = from >> 6;
+    int shift = from & 63;
+    for (int i = 0; i < words; i++, w++) {
+      long word = w < src.length ? src[w] >>> shift : 0;
+      if (shift > 0 && w + 1 < src.length)
+        word |= src[w + 1] << (64 - shift);
+      dst[i] = word;
+    }
+
+    if ((length & 63) != 0)
+      dst[words - 1] &= (1L << length) - 1;
+  }
+
+  /**
+   * Return a materialized copy of this grid, rotated like a {@link QuadrantRotationGrid} with the
+   * given direction would present it. Unlike the QuadrantRotationGrid, the copy can be scanned row
+   * by row with sequential memory reads in any direction. The rotation to and from north and south
+   * is done by transposing blocks of 64x64 bits.
+   * 
+   * The inverse transform of the copy maps back to the coordinate space of this grid's source.
+   * 
+   * @param direction the direction
+   * @return the rotated copy or this grid for {@link Direction#EAST}
+   */
+  public PackedBinaryGrid rotate(Direction direction) {
+    if (direction == Direction.EAST)
+      return this;
+
+    AffineTransform rotatedInverse = new AffineTransform(inverseTransform);
+    rotatedInverse.concatenate(new QuadrantRotationGrid(this, direction).getInverseTransform());
+
+    switch (direction){
+      case WEST : {
+        // rotated(x, y) = this(width - 1 - x, height - 1 - y)
+        long rotated[] = new long[words.length];
+        for (int y = 0; y < height; y++)
+          reverseRow(words, (height - 1 - y) * wordsPerRow, rotated, y * wordsPerRow, wordsPerRow, width);
+        return new PackedBinaryGrid(width, height, rotated, rotatedInverse);
+      }
+
+      case NORTH : {
+        // rotated(x, y) = this(y, height - 1 - x) = transposed(height - 1 - x, y)
+        long transposed[] = transpose();
+        int transposedWordsPerRow = (height + 63) >> 6;
+        long rotated[] = new long[transposed.length];
+        for (int y = 0; y < width; y++)
+          reverseRow(transposed, y * transposedWordsPerRow, rotated, y * transposedWordsPerRow,
+              transposedWordsPerRow, height);
+        return new PackedBinaryGrid(height, width, rotated, rotatedInverse);
+      }
+
+      case SOUTH : {
+        // rotated(x, y) = this(width - 1 - y, x) = transposed(x, width - 1 - y)
+        long transposed[] = transpose();
+        int transposedWordsPerRow = (height + 63) >> 6;
+        long rotated[] = new long[transposed.length];
+        for (int y = 0; y < width; y++)
+          System.arraycopy(transposed, (width - 1 - y) * transposedWordsPerRow, rotated, y * transposedWordsPerRow,
+              transposedWordsPerRow);
+        return new PackedBinaryGrid(height, width, rotated, rotatedInverse);
+      }
+
+      default :
+        throw new IllegalArgumentException("Unsupported rotation: " + direction);
+    }
+  }
+
+  /**
+   * Transpose the pixels, i.e. swap x and y. The result has <code>width</code> rows of
+   * <code>height</code> pixels each. The pixels are transposed in blocks of 64x64 bits, so that
+   * both the source and the destination are accessed one block of 64 words at a time.
+   */
+  private long[] transpose() {
+    int transposedWordsPerRow = (height + 63) >> 6;
+    long transposed[] = new long[transposedWordsPerRow * width];
+    long block[] = new long[64];
+
+    for (int by = 0; by < transposedWordsPerRow; by++)
+      for (int bx = 0; bx < wordsPerRow; bx++) {
+        int y0 = by << 6;
+        for (int k = 0; k < 64; k++)
+          block[k] = y0 + k < height ? words[(y0 + k) * wordsPerRow + bx] : 0;
+
+        transpose64(block);
+
+        int x0 = bx << 6;
+        for (int k = 0; k < 64 && x0 + k < width; k++)
+          transposed[(x0 + k) * transposedWordsPerRow + by] = block[k];
+      }
+
+    return transposed;
+  }
+
+  /**
+   * Transpose a 64x64 bit matrix in place. Word <code>i</code> holds row <code>i</code>, bit
+   * <code>j</code> of it column <code>j</code>. The matrix is transposed by recursively swapping
+   * the off-diagonal quadrants of ever smaller sub-matrices (see Hacker's Delight, 7-3).
+   */
+  static void transpose64(long[] a) {
+    long m = 0x00000000FFFFFFFFL;
+    for (int j = 32; j != 0; j >>= 1, m ^= m << j)
+      for (int k = 0; k < 64; k = ((k | j) + 1) & ~j) {
+        long t = ((a[k] >>> j) ^ a[k | j]) & m;
+        a[k] ^= t << j;
+        a[k | j] ^= t;
+      }
+  }
+
+  /**
+   * Copy a row of <code>length</code> pixels, reversing the order of the pixels. The padding bits
+   * after the last pixel of the source row must be clear; they will be clear in the destination
+   * as well.
+   */
+  static void reverseRow(long[] src, int srcOffset, long[] dst, int dstOffset, int rowWords, int length) {
+    int pad = (rowWords << 6) - length;
+    for (int i = 0; i < rowWords; i++) {
+      // the reversed words, shifted right by the padding
+      long word = Long.reverse(src[srcOffset + rowWords - 1 - i]) >>> pad;
+      if (pad > 0 && i + 1 < rowWords)
+        word |= Long.reverse(src[srcOffset + rowWords - 2 - i]) << (64 - pad);
+      dst[dstOffset + i] = word;
+    }
+  }
+
+  /**
+   * Extract runs by sampling each pixel of the given grid. This is the fallback for grids and rows
+   * which do not support direct extraction.
+   * 
+   * @see RunLengthBinaryGrid#scanRow(int, int, int, int[])
+   */
+  public static int scanRowSampling(BinaryGrid grid, int y, int x1, int x2, int[] runLengths) {
+    int runs = 0;
+    int currentRunLength = 0;
+    boolean black = false;
+    for (int x = x1; x <= x2; x++) {
+      if (grid.samplePixel(x, y) != black) {
+        black = !black;
+        runLengths[runs++] = currentRunLength;
+        currentRunLength = 0;
+      }
+      currentRunLength++;
+    }
+    runLengths[runs++] = currentRunLength;
+
+    return runs;
+  }
+}
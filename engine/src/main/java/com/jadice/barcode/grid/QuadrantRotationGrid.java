@@ -74,6 +74,12 @@ public class QuadrantRotationGrid implements BinaryGrid {
   private final AffineTransform transform;
   private AffineTransform inverseTransform;
 
+  /*
+   * The delegate's rows and columns to be reversed by getRow() and getColumn(). Grids are shared by
+   * concurrent decoders, so each thread reads through a buffer of its own.
+   */
+  private final ThreadLocal<long[]> delegateBuffer = new ThreadLocal<long[]>();
+
   /**
    * @param delegate - The {@link BinaryGrid} that provides access to the image data.
    * @param rotation - One of {@link Options#DIRECTION_EAST}, {@link Options#DIRECTION_NORTH},
@@ -140,6 +146,51 @@ public class QuadrantRotationGrid implements BinaryGrid {
     return false;
   }
 
+  @Override
+  public long[] getRow(int y, long[] bits) {
+    if (y < 0 || y >= h)
+      return PackedBinaryGrid.prepareBits(bits, w);
+
+    switch (rotation){
+      case NORTH :
+        return reverse(delegate.getColumn(y, delegateBuffer.get()), bits, w);
+      case WEST :
+        return reverse(delegate.getRow(h - y - 1, delegateBuffer.get()), bits, w);
+      case SOUTH :
+        return delegate.getColumn(h - y - 1, bits);
+      default :
+        return delegate.getRow(y, bits);
+    }
+  }
+
+  @Override
+  public long[] getColumn(int x, long[] bits) {
+    if (x < 0 || x >= w)
+      return PackedBinaryGrid.prepareBits(bits, h);
+
+    switch (rotation){
+      case NORTH :
+        return delegate.getRow(w - x - 1, bits);
+      case WEST :
+        return reverse(delegate.getColumn(w - x - 1, delegateBuffer.get()), bits, h);
+      case SOUTH :
+        return reverse(delegate.getRow(x, delegateBuffer.get()), bits, h);
+      default :
+        return delegate.getColumn(x, bits);
+    }
+  }
+
+  /**
+   * Reverse the order of the first <code>length</code> packed pixels read from the delegate, keeping
+   * the source array as the buffer of the next read.
+   */
+  private long[] reverse(long[] src, long[] bits, int length) {
+    delegateBuffer.set(src);
+    bits = PackedBinaryGrid.prepareBits(bits, length);
+    PackedBinaryGrid.reverseRow(src, 0, bits, 0, (length + 63) >> 6, length);
+    return bits;
+  }
+
   public AffineTransform getInverseTransform() {
     return inverseTransform;
   }
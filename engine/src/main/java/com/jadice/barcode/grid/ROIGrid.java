@@ -26,10 +26,16 @@ import java.awt.geom.AffineTransform;
 /**
  * The ROIGrid extracts a region-of-interest (ROI) from a given delegate grid.
  */
-public class ROIGrid implements BinaryGrid {
+public class ROIGrid implements RunLengthBinaryGrid {
   private final BinaryGrid delegate;
   private final Rectangle region;
 
+  /*
+   * The delegate's rows and columns read by getRow() and getColumn(). Grids are shared by concurrent
+   * decoders, so each thread reads through a buffer of its own.
+   */
+  private final ThreadLocal<long[]> delegateBuffer = new ThreadLocal<long[]>();
+
   public ROIGrid(BinaryGrid delegate, Rectangle region) {
     this.delegate = delegate;
     this.region = new Rectangle(region).intersection(new Rectangle(0,0,delegate.getWidth(),delegate.getHeight()));
@@ -51,6 +57,37 @@ public class ROIGrid implements BinaryGrid {
     return delegate.samplePixel(x + region.x, y + region.y);
   }
 
+  @Override
+  public int scanRow(int y, int x1, int x2, int[] runLengths) {
+    if (delegate instanceof RunLengthBinaryGrid && y >= 0 && y < region.height && x1 >= 0 && x2 < region.width)
+      return ((RunLengthBinaryGrid) delegate).scanRow(y + region.y, x1 + region.x, x2 + region.x, runLengths);
+    return PackedBinaryGrid.scanRowSampling(this, y, x1, x2, runLengths);
+  }
+
+  @Override
+  public long[] getRow(int y, long[] bits) {
+    if (y < 0 || y >= region.height)
+      return PackedBinaryGrid.prepareBits(bits, region.width);
+
+    long row[] = delegate.getRow(y + region.y, delegateBuffer.get());
+    delegateBuffer.set(row);
+    bits = PackedBinaryGrid.prepareBits(bits, region.width);
+    PackedBinaryGrid.copyBits(row, region.x, bits, region.width);
+    return bits;
+  }
+
+  @Override
+  public long[] getColumn(int x, long[] bits) {
+    if (x < 0 || x >= region.width)
+      return PackedBinaryGrid.prepareBits(bits, region.height);
+
+    long column[] = delegate.getColumn(x + region.x, delegateBuffer.get());
+    delegateBuffer.set(column);
+    bits = PackedBinaryGrid.prepareBits(bits, region.height);
+    PackedBinaryGrid.copyBits(column, region.y, bits, region.height);
+    return bits;
+  }
+
   @Override
   public int getWidth() {
     return region.width;
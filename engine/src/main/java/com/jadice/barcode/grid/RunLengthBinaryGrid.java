@@ -0,0 +1,41 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.grid;
+
+/**
+ * A {@link BinaryGrid} which is able to extract the runs of equally colored pixels along a row
+ * without sampling each pixel individually.
+ */
+public interface RunLengthBinaryGrid extends BinaryGrid {
+  /**
+   * Extract the runs of pixels in row <code>y</code> from <code>x1</code> to <code>x2</code>
+   * (inclusive, <code>x1 &lt;= x2</code>). The first run is always a white one which is of zero
+   * length if the first pixel is black. Subsequent runs alternate between black and white. Pixels
+   * outside the grid are white.
+   * 
+   * @param y the row
+   * @param x1 the first column
+   * @param x2 the last column
+   * @param runLengths the array receiving the run lengths. It must be large enough to hold
+   *          <code>x2 - x1 + 2</code> runs.
+   * @return the number of runs
+   */
+  public int scanRow(int y, int x1, int x2, int[] runLengths);
+}
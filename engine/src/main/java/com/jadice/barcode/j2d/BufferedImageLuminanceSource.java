@@ -21,6 +21,7 @@ package com.jadice.barcode.j2d;
 
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 import com.jadice.barcode.grid.LuminanceGrid;
 
@@ -34,6 +35,12 @@ public class BufferedImageLuminanceSource implements LuminanceGrid {
   private final int width;
   private final int height;
 
+  /*
+   * The RGB values read by getRow() and getColumn(). Sources are shared by concurrent decoders, so
+   * each thread reads through a buffer of its own.
+   */
+  private final ThreadLocal<int[]> rgbBuffer = new ThreadLocal<int[]>();
+
   public BufferedImageLuminanceSource(BufferedImage image) {
     this.image = image;
     this.width = image.getWidth();
@@ -59,8 +66,49 @@ public class BufferedImageLuminanceSource implements LuminanceGrid {
     if (x < 0 || y < 0 || x >= width || y >= height)
       return 0xff;
 
-    int rgb = image.getRGB(x, y);
+    return luminance(image.getRGB(x, y));
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (null == row || row.length < width)
+      row = new byte[width];
+    if (y < 0 || y >= height) {
+      Arrays.fill(row, 0, width, (byte) 0xff);
+      return row;
+    }
+
+    int rgb[] = image.getRGB(0, y, width, 1, getRGBBuffer(width), 0, width);
+    for (int x = 0; x < width; x++)
+      row[x] = (byte) luminance(rgb[x]);
+    return row;
+  }
+
+  @Override
+  public byte[] getColumn(int x, byte[] column) {
+    if (null == column || column.length < height)
+      column = new byte[height];
+    if (x < 0 || x >= width) {
+      Arrays.fill(column, 0, height, (byte) 0xff);
+      return column;
+    }
+
+    int rgb[] = image.getRGB(x, 0, 1, height, getRGBBuffer(height), 0, 1);
+    for (int y = 0; y < height; y++)
+      column[y] = (byte) luminance(rgb[y]);
+    return column;
+  }
+
+  private int[] getRGBBuffer(int length) {
+    int buffer[] = rgbBuffer.get();
+    if (null == buffer || buffer.length < length) {
+      buffer = new int[length];
+      rgbBuffer.set(buffer);
+    }
+    return buffer;
+  }
 
+  private static int luminance(int rgb) {
     int r = (rgb >> 16) & 0xff;
     int g = (rgb >> 8) & 0xff;
     int b = rgb & 0xff;
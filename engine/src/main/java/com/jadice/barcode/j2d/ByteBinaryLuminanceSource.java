@@ -0,0 +1,93 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.j2d;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+
+/**
+ * A {@link RasterLuminanceSource} for images of type {@link BufferedImage#TYPE_BYTE_BINARY} with 1,
+ * 2 or 4 bits per pixel. The palette indices are mapped to luminance values through a lookup table
+ * derived from the image's color model.
+ */
+public class ByteBinaryLuminanceSource extends RasterLuminanceSource {
+  private final byte[] data;
+  private final int base;
+  private final int scanlineStride;
+  private final int bitOffset;
+  private final int bitsPerPixel;
+  private final int pixelMask;
+  private final int[] lut;
+
+  public ByteBinaryLuminanceSource(BufferedImage image) {
+    super(image);
+    if (image.getType() != BufferedImage.TYPE_BYTE_BINARY)
+      throw new IllegalArgumentException("Unsupported image type: " + image.getType());
+
+    DataBufferByte buffer = (DataBufferByte) image.getRaster().getDataBuffer();
+    MultiPixelPackedSampleModel sm = (MultiPixelPackedSampleModel) image.getRaster().getSampleModel();
+    this.data = buffer.getData();
+    this.scanlineStride = sm.getScanlineStride();
+    this.bitsPerPixel = sm.getPixelBitStride();
+    this.pixelMask = (1 << bitsPerPixel) - 1;
+    this.base = buffer.getOffset() - sampleModelTranslateY * scanlineStride;
+    this.bitOffset = sm.getDataBitOffset() - sampleModelTranslateX * bitsPerPixel;
+
+    IndexColorModel cm = (IndexColorModel) image.getColorModel();
+    this.lut = new int[1 << bitsPerPixel];
+    for (int i = 0; i < lut.length; i++)
+      lut[i] = i < cm.getMapSize() ? luminance(cm.getRGB(i)) : 0xff;
+  }
+
+  @Override
+  public int getLuminance(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height)
+      return 0xff;
+
+    int bit = bitOffset + x * bitsPerPixel;
+    int shift = 8 - bitsPerPixel - (bit & 7);
+    return lut[(data[base + y * scanlineStride + (bit >> 3)] >> shift) & pixelMask];
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    row = prepare(row, width, y, height);
+    if (y >= 0 && y < height) {
+      int rowOffset = base + y * scanlineStride;
+      for (int x = 0, bit = bitOffset; x < width; x++, bit += bitsPerPixel)
+        row[x] = (byte) lut[(data[rowOffset + (bit >> 3)] >> (8 - bitsPerPixel - (bit & 7))) & pixelMask];
+    }
+    return row;
+  }
+
+  @Override
+  public byte[] getColumn(int x, byte[] column) {
+    column = prepare(column, height, x, width);
+    if (x >= 0 && x < width) {
+      int bit = bitOffset + x * bitsPerPixel;
+      int shift = 8 - bitsPerPixel - (bit & 7);
+      for (int y = 0, i = base + (bit >> 3); y < height; y++, i += scanlineStride)
+        column[y] = (byte) lut[(data[i] >> shift) & pixelMask];
+    }
+    return column;
+  }
+}
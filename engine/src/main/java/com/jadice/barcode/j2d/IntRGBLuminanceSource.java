@@ -0,0 +1,72 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.j2d;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * A {@link RasterLuminanceSource} for images of type {@link BufferedImage#TYPE_INT_RGB} and
+ * {@link BufferedImage#TYPE_INT_ARGB}. The alpha channel, if present, is ignored.
+ */
+public class IntRGBLuminanceSource extends RasterLuminanceSource {
+  private final int[] data;
+  private final int base;
+  private final int scanlineStride;
+
+  public IntRGBLuminanceSource(BufferedImage image) {
+    super(image);
+    if (image.getType() != BufferedImage.TYPE_INT_RGB && image.getType() != BufferedImage.TYPE_INT_ARGB)
+      throw new IllegalArgumentException("Unsupported image type: " + image.getType());
+
+    DataBufferInt buffer = (DataBufferInt) image.getRaster().getDataBuffer();
+    SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) image.getRaster().getSampleModel();
+    this.data = buffer.getData();
+    this.base = buffer.getOffset() + sm.getOffset(-sampleModelTranslateX, -sampleModelTranslateY);
+    this.scanlineStride = sm.getScanlineStride();
+  }
+
+  @Override
+  public int getLuminance(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height)
+      return 0xff;
+
+    return luminance(data[base + y * scanlineStride + x]);
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    row = prepare(row, width, y, height);
+    if (y >= 0 && y < height)
+      for (int x = 0, i = base + y * scanlineStride; x < width; x++, i++)
+        row[x] = (byte) luminance(data[i]);
+    return row;
+  }
+
+  @Override
+  public byte[] getColumn(int x, byte[] column) {
+    column = prepare(column, height, x, width);
+    if (x >= 0 && x < width)
+      for (int y = 0, i = base + x; y < height; y++, i += scanlineStride)
+        column[y] = (byte) luminance(data[i]);
+    return column;
+  }
+}
@@ -35,6 +35,7 @@ import com.jadice.barcode.Marker;
 import com.jadice.barcode.Marker.Feature;
 import com.jadice.barcode.Result;
 import com.jadice.barcode.grid.BinaryGrid;
+import com.jadice.barcode.grid.LuminanceGrid;
 
 /**
  * A collection of static utility methods used in conjunction with Java2D-based environments.
@@ -113,6 +114,34 @@ public class Java2DUtils {
     }
   }
 
+  /**
+   * Create a {@link LuminanceGrid} for the given {@link BufferedImage}. For the common image types
+   * a {@link RasterLuminanceSource} reading the image's backing array directly is returned. Other
+   * types fall back to the (much slower) {@link BufferedImageLuminanceSource}.
+   * 
+   * @param image the image
+   * @return the luminance grid
+   */
+  public static LuminanceGrid createLuminanceSource(BufferedImage image) {
+    switch (image.getType()){
+      case BufferedImage.TYPE_BYTE_GRAY :
+        return new ByteGrayLuminanceSource(image);
+
+      case BufferedImage.TYPE_3BYTE_BGR :
+        return new ThreeByteBGRLuminanceSource(image);
+
+      case BufferedImage.TYPE_INT_RGB :
+      case BufferedImage.TYPE_INT_ARGB :
+        return new IntRGBLuminanceSource(image);
+
+      case BufferedImage.TYPE_BYTE_BINARY :
+        return new ByteBinaryLuminanceSource(image);
+
+      default :
+        return new BufferedImageLuminanceSource(image);
+    }
+  }
+
   /**
    * Create a Java2D {@link BufferedImage} from a given {@link BinaryGrid}. This method is designed
    * for verification and debugging purposes.
@@ -0,0 +1,102 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.j2d;
+
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+import com.jadice.barcode.grid.LuminanceGrid;
+
+/**
+ * Base class for {@link LuminanceGrid}s which read the pixels of a {@link BufferedImage} directly
+ * from its backing array instead of going through {@link BufferedImage#getRGB(int, int)}. Use
+ * {@link Java2DUtils#createLuminanceSource(BufferedImage)} to obtain the best implementation for a
+ * given image.
+ * 
+ * The luminance values are identical to the ones supplied by {@link BufferedImageLuminanceSource}.
+ */
+public abstract class RasterLuminanceSource implements LuminanceGrid {
+  protected final int width;
+  protected final int height;
+  private final int numChannels;
+
+  /** The translation of the raster's pixel coordinates into sample model coordinates */
+  protected final int sampleModelTranslateX;
+  protected final int sampleModelTranslateY;
+
+  protected RasterLuminanceSource(BufferedImage image) {
+    this.width = image.getWidth();
+    this.height = image.getHeight();
+    this.numChannels = image.getColorModel().getNumColorComponents() > 1 ? 3 : 1;
+
+    WritableRaster raster = image.getRaster();
+    this.sampleModelTranslateX = raster.getSampleModelTranslateX();
+    this.sampleModelTranslateY = raster.getSampleModelTranslateY();
+  }
+
+  /**
+   * Derive the luminance from an RGB value using the same approximation of the CCIR 601 formula as
+   * {@link BufferedImageLuminanceSource}.
+   * 
+   * @param rgb the (A)RGB value
+   * @return the luminance
+   */
+  protected static int luminance(int rgb) {
+    int r = (rgb >> 16) & 0xff;
+    int g = (rgb >> 8) & 0xff;
+    int b = rgb & 0xff;
+
+    return (r * 13932 + g * 46871 + b * 4731) >> 16;
+  }
+
+  /**
+   * Return an array able to hold <code>length</code> luminance values. If the given index lies
+   * outside of the range [0,limit), the values are set to white.
+   */
+  protected static byte[] prepare(byte[] values, int length, int index, int limit) {
+    if (null == values || values.length < length)
+      values = new byte[length];
+    if (index < 0 || index >= limit)
+      Arrays.fill(values, 0, length, (byte) 0xff);
+    return values;
+  }
+
+  @Override
+  public AffineTransform getInverseTransform() {
+    return new AffineTransform();
+  }
+
+  @Override
+  public int getNumChannels() {
+    return numChannels;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+}
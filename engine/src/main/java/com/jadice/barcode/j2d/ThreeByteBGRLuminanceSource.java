@@ -0,0 +1,90 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.j2d;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+
+/**
+ * A {@link RasterLuminanceSource} for images of type {@link BufferedImage#TYPE_3BYTE_BGR}.
+ */
+public class ThreeByteBGRLuminanceSource extends RasterLuminanceSource {
+  private final byte[] data;
+  private final int base;
+  private final int scanlineStride;
+  private final int pixelStride;
+  private final int redOffset;
+  private final int greenOffset;
+  private final int blueOffset;
+
+  public ThreeByteBGRLuminanceSource(BufferedImage image) {
+    super(image);
+    if (image.getType() != BufferedImage.TYPE_3BYTE_BGR)
+      throw new IllegalArgumentException("Unsupported image type: " + image.getType());
+
+    DataBufferByte buffer = (DataBufferByte) image.getRaster().getDataBuffer();
+    ComponentSampleModel sm = (ComponentSampleModel) image.getRaster().getSampleModel();
+    this.data = buffer.getData();
+    this.base = buffer.getOffset() + sm.getOffset(-sampleModelTranslateX, -sampleModelTranslateY, 0);
+    this.scanlineStride = sm.getScanlineStride();
+    this.pixelStride = sm.getPixelStride();
+
+    // band offsets relative to the first band
+    int[] bandOffsets = sm.getBandOffsets();
+    this.redOffset = 0;
+    this.greenOffset = bandOffsets[1] - bandOffsets[0];
+    this.blueOffset = bandOffsets[2] - bandOffsets[0];
+  }
+
+  @Override
+  public int getLuminance(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height)
+      return 0xff;
+
+    return luminanceAt(base + y * scanlineStride + x * pixelStride);
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    row = prepare(row, width, y, height);
+    if (y >= 0 && y < height)
+      for (int x = 0, i = base + y * scanlineStride; x < width; x++, i += pixelStride)
+        row[x] = (byte) luminanceAt(i);
+    return row;
+  }
+
+  @Override
+  public byte[] getColumn(int x, byte[] column) {
+    column = prepare(column, height, x, width);
+    if (x >= 0 && x < width)
+      for (int y = 0, i = base + x * pixelStride; y < height; y++, i += scanlineStride)
+        column[y] = (byte) luminanceAt(i);
+    return column;
+  }
+
+  private int luminanceAt(int i) {
+    int r = data[i + redOffset] & 0xff;
+    int g = data[i + greenOffset] & 0xff;
+    int b = data[i + blueOffset] & 0xff;
+
+    return (r * 13932 + g * 46871 + b * 4731) >> 16;
+  }
+}
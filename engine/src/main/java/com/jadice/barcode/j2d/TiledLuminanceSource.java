@@ -0,0 +1,291 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.j2d;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+
+import com.jadice.barcode.grid.LuminanceGrid;
+
+/**
+ * A {@link LuminanceGrid} for images which are too large to be held in memory as a whole. The
+ * image is divided into square tiles which are read on demand from an {@link ImageReader} using
+ * {@link ImageReadParam#setSourceRegion(Rectangle)}. The luminance of the loaded tiles is kept in
+ * a least-recently-used cache bounded by a memory budget, so that decoders accessing the pixels
+ * locally touch the image reader only rarely.
+ * 
+ * The luminance values are identical to the ones supplied by the sources returned from
+ * {@link Java2DUtils#createLuminanceSource(BufferedImage)} for the decoded image.
+ * 
+ * The source may be used by several threads; loading a tile is serialized, since image readers are
+ * not thread-safe.
+ */
+public class TiledLuminanceSource implements LuminanceGrid {
+  /** The default edge length of the tiles in pixels */
+  public static final int DEFAULT_TILE_SIZE = 512;
+
+  /**
+   * A tile of luminance values, one byte per pixel. Tiles are immutable once loaded.
+   */
+  private static final class Tile {
+    final int x0;
+    final int y0;
+    final int width;
+    final int height;
+    final byte[] luminance;
+
+    Tile(int x0, int y0, int width, int height, byte[] luminance) {
+      this.x0 = x0;
+      this.y0 = y0;
+      this.width = width;
+      this.height = height;
+      this.luminance = luminance;
+    }
+
+    boolean contains(int x, int y) {
+      return x >= x0 && y >= y0 && x < x0 + width && y < y0 + height;
+    }
+  }
+
+  private final ImageReader reader;
+  private final int imageIndex;
+  private final int width;
+  private final int height;
+  private final int tileSize;
+  private final int tilesPerRow;
+  private final int maxCachedTiles;
+
+  /** The cached tiles, keyed by tile index, in access order */
+  private final LinkedHashMap<Integer, Tile> cache;
+
+  /** The tile accessed last, to avoid the cache lookup for consecutive accesses to the same tile */
+  private Tile lastTile;
+
+  private final int numChannels;
+  private long hits;
+  private long misses;
+
+  /**
+   * Create a source for the first image of the given reader using the {@link #DEFAULT_TILE_SIZE}.
+   * 
+   * @param reader the reader, its input must have been set
+   * @param memoryBudget the maximum number of bytes to spend on cached tiles
+   * @throws IOException if the image dimensions can't be read
+   */
+  public TiledLuminanceSource(ImageReader reader, long memoryBudget) throws IOException {
+    this(reader, 0, DEFAULT_TILE_SIZE, memoryBudget);
+  }
+
+  /**
+   * Create a source for an image of the given reader.
+   * 
+   * @param reader the reader, its input must have been set
+   * @param imageIndex the index of the image to read
+   * @param tileSize the edge length of the tiles in pixels
+   * @param memoryBudget the maximum number of bytes to spend on cached tiles. At least one tile is
+   *          always cached.
+   * @throws IOException if the image dimensions can't be read
+   */
+  public TiledLuminanceSource(ImageReader reader, int imageIndex, int tileSize, long memoryBudget)
+      throws IOException {
+    if (tileSize <= 0)
+      throw new IllegalArgumentException("The tile size must be positive");
+
+    this.reader = reader;
+    this.imageIndex = imageIndex;
+    this.width = reader.getWidth(imageIndex);
+    this.height = reader.getHeight(imageIndex);
+    this.tileSize = tileSize;
+    this.tilesPerRow = (width + tileSize - 1) / tileSize;
+    this.maxCachedTiles = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / ((long) tileSize * tileSize)));
+
+    this.cache = new LinkedHashMap<Integer, Tile>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, Tile> eldest) {
+        return size() > maxCachedTiles;
+      }
+    };
+
+    // the number of channels is FYI only, so we take it from the image type without decoding
+    Iterator<ImageTypeSpecifier> types = reader.getImageTypes(imageIndex);
+    numChannels = types.hasNext() && types.next().getColorModel().getNumColorComponents() <= 1 ? 1 : 3;
+  }
+
+  @Override
+  public int getLuminance(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height)
+      return 0xff;
+
+    Tile tile = lastTile;
+    if (null == tile || !tile.contains(x, y))
+      lastTile = tile = getTile(x / tileSize, y / tileSize);
+
+    return tile.luminance[(y - tile.y0) * tile.width + x - tile.x0] & 0xff;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (null == row || row.length < width)
+      row = new byte[width];
+    if (y < 0 || y >= height) {
+      Arrays.fill(row, 0, width, (byte) 0xff);
+      return row;
+    }
+
+    Tile tile = null;
+    for (int x = 0; x < width; x += tile.width) {
+      tile = lastTile;
+      if (null == tile || !tile.contains(x, y))
+        lastTile = tile = getTile(x / tileSize, y / tileSize);
+      System.arraycopy(tile.luminance, (y - tile.y0) * tile.width, row, x, tile.width);
+    }
+    return row;
+  }
+
+  @Override
+  public byte[] getColumn(int x, byte[] column) {
+    if (null == column || column.length < height)
+      column = new byte[height];
+    if (x < 0 || x >= width) {
+      Arrays.fill(column, 0, height, (byte) 0xff);
+      return column;
+    }
+
+    Tile tile = null;
+    for (int y = 0; y < height;) {
+      tile = lastTile;
+      if (null == tile || !tile.contains(x, y))
+        lastTile = tile = getTile(x / tileSize, y / tileSize);
+      for (int i = (y - tile.y0) * tile.width + x - tile.x0; y < tile.y0 + tile.height; y++, i += tile.width)
+        column[y] = tile.luminance[i];
+    }
+    return column;
+  }
+
+  /**
+   * Return the tile at the given tile coordinates, loading it if it isn't cached.
+   */
+  private synchronized Tile getTile(int tx, int ty) {
+    Integer key = ty * tilesPerRow + tx;
+    Tile tile = cache.get(key);
+    if (null != tile) {
+      hits++;
+      return tile;
+    }
+
+    misses++;
+    tile = loadTile(tx * tileSize, ty * tileSize);
+    cache.put(key, tile);
+    return tile;
+  }
+
+  private Tile loadTile(int x0, int y0) {
+    Rectangle region = new Rectangle(x0, y0, Math.min(tileSize, width - x0), Math.min(tileSize, height - y0));
+
+    BufferedImage image;
+    try {
+      ImageReadParam param = reader.getDefaultReadParam();
+      param.setSourceRegion(region);
+      image = reader.read(imageIndex, param);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Can't read the tile " + region, e);
+    }
+
+    LuminanceGrid source = Java2DUtils.createLuminanceSource(image);
+    byte luminance[] = new byte[region.width * region.height];
+    byte row[] = null;
+    for (int y = 0; y < region.height; y++) {
+      row = source.getRow(y, row);
+      System.arraycopy(row, 0, luminance, y * region.width, region.width);
+    }
+
+    return new Tile(x0, y0, region.width, region.height, luminance);
+  }
+
+  /**
+   * Return the number of tile lookups which have been served from the cache. Consecutive accesses
+   * to the same tile are not counted.
+   * 
+   * @return the number of cache hits
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Return the number of tile lookups which required the tile to be read from the image reader.
+   * 
+   * @return the number of cache misses
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Return the number of tiles currently held in the cache.
+   * 
+   * @return the number of cached tiles
+   */
+  public synchronized int getCachedTileCount() {
+    return cache.size();
+  }
+
+  /**
+   * Return the maximum number of tiles held in the cache, as derived from the memory budget.
+   * 
+   * @return the maximum number of cached tiles
+   */
+  public int getMaxCachedTileCount() {
+    return maxCachedTiles;
+  }
+
+  @Override
+  public AffineTransform getInverseTransform() {
+    return new AffineTransform();
+  }
+
+  @Override
+  public int getNumChannels() {
+    return numChannels;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+}
@@ -43,7 +43,7 @@ public class Edge {
   private static final Logger logger = LoggerFactory.getLogger(Edge.class);
 
   private static final int MIN_HITS_THRESHOLD = 3;
-  private static final double MAX_ANGULAR_MISMATCH = 10.0; // degrees
+  static final double MAX_ANGULAR_MISMATCH = 10.0; // degrees
   private static final double EDGE_WIDTH_TOLERANCE = .25;
   private static final double UNIT_WIDTH_TOLERANCE = .25;
   private static final double MAX_CENTER_ANGLE_DIFFERENCE = 40.0;
@@ -59,7 +59,6 @@ public class Edge {
   private final Rectangle confidenceRectangle;
 
   /** The fuzz factor (i.e. tolerance) with which to accept hits */
-  @SuppressWarnings("unused")
   private int quietZoneWidth = 0;
 
   /** Whether this is a start/stop edge */
@@ -89,6 +88,9 @@ public class Edge {
 
   private final DiagnosticSettings diagSettings;
 
+  /** The position of this edge in the order of registration with its {@link EdgeIndex} */
+  private int sequence;
+
   /**
    * Construct a new edge based on a hit.
    * 
@@ -129,6 +131,25 @@ public class Edge {
    * @return
    */
   boolean testDetection(EdgeDetection ed) {
+    if (accepts(ed)) {
+      hits.add(ed);
+
+      // grow by the confidence zone around the hit
+      confidenceRectangle.add(ed.x - confidenceZoneSize / 2, ed.y - confidenceZoneSize / 2);
+      confidenceRectangle.add(ed.x - confidenceZoneSize / 2 + confidenceZoneSize,
+          ed.y - confidenceZoneSize / 2 + confidenceZoneSize);
+
+      avgWidth = -1;
+      avgOverprint = Float.NaN;
+      return true;
+    } else
+      return false;
+  }
+
+  /**
+   * Return whether the given hit belongs to this edge, without adding it.
+   */
+  boolean accepts(EdgeDetection ed) {
     final float d = (float) ed.width / width;
     final float abs = Math.abs(1f - d);
     if (abs > EDGE_WIDTH_TOLERANCE)
@@ -138,17 +159,7 @@ public class Edge {
     // OVERPRINT_TOLERANCE)
     // return false;
 
-    if (confidenceRectangle.contains(ed.x, ed.y)) {
-      hits.add(ed);
-
-      confidenceRectangle.add(new Rectangle(ed.x - confidenceZoneSize / 2, ed.y - confidenceZoneSize / 2,
-          confidenceZoneSize, confidenceZoneSize));
-
-      avgWidth = -1;
-      avgOverprint = Float.NaN;
-      return true;
-    } else
-      return false;
+    return confidenceRectangle.contains(ed.x, ed.y);
   }
 
   float getOverprintEstimate() {
@@ -334,10 +345,11 @@ public class Edge {
     if (normalizedProjectionDistance > MAX_NORMALIZED_PROJECTION_DISTANCE)
       return confidence;
 
-    logger.debug(toString() + "\n" + possiblePartner + "\nam=" + angularMismatch + " d1=" + distance1 + " d2="
-        + distance2 + " cad=" + Math.abs(Math.atan(gradient) * 360.0 / (2 * Math.PI) - centerAngle) + " wr="
-        + widthRatio + " fooFactor=" + normalizedProjectionDistance + " conf="
-        + (-centerDistance - distance1 * distance1 - distance2 * distance2));
+    if (logger.isDebugEnabled())
+      logger.debug(toString() + "\n" + possiblePartner + "\nam=" + angularMismatch + " d1=" + distance1 + " d2="
+          + distance2 + " cad=" + Math.abs(Math.atan(gradient) * 360.0 / (2 * Math.PI) - centerAngle) + " wr="
+          + widthRatio + " fooFactor=" + normalizedProjectionDistance + " conf="
+          + (-centerDistance - distance1 * distance1 - distance2 * distance2));
 
     return (int) (-centerDistance - distance1 * distance1 - distance2 * distance2) + hits.size();
   }
@@ -368,6 +380,14 @@ public class Edge {
     return new Point2D.Double((l.getX1() + l.getX2()) / 2, (l.getY1() + l.getY2()) / 2);
   }
 
+  /**
+   * Return twice the x coordinate of the edge center, which is exact.
+   */
+  int getDoubledCenterX() {
+    final Line2D l = getLine();
+    return (int) (l.getX1() + l.getX2());
+  }
+
   /**
    * @return
    */
@@ -397,7 +417,7 @@ public class Edge {
     final EdgeDetection p1[] = getExtremeHits();
     final EdgeDetection p2[] = partner.getExtremeHits();
 
-    final int barWidths[] = new int[image.getWidth()];
+    final int barWidths[] = code.getBarWidthsBuffer(image.getWidth() + 2);
 
     // FIXME: the diagonal scans don't work because of the
     // incorrect widths in reScanStart/reScanStop (see FIXMEs there)
@@ -564,4 +584,24 @@ public class Edge {
   Rectangle getConfidenceRectangle() {
     return confidenceRectangle;
   }
+
+  List<EdgeDetection> getHits() {
+    return hits;
+  }
+
+  int getModuleWidth() {
+    return moduleWidth;
+  }
+
+  int getQuietZoneWidth() {
+    return quietZoneWidth;
+  }
+
+  int getSequence() {
+    return sequence;
+  }
+
+  void setSequence(int sequence) {
+    this.sequence = sequence;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,356 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.jadice.barcode.linear.OneDDecoder.EdgeDetection;
+
+/**
+ * An index of the start or the stop edges a decoder collects during a detection run. It replaces
+ * the linear searches over all edges, which become quadratic on noisy images with hundreds of
+ * spurious edges, by searches over the few edges which can possibly match:
+ * <ul>
+ * <li>While hits are registered, the edges are kept in a spatial hash of square cells. An edge is
+ * entered into every cell its confidence rectangle touches, so that a hit only has to be tested
+ * against the edges in its own cell.
+ * <li>When partners are matched, the edges are ordered by the bucket of their angle and by the x
+ * coordinate of their center. Partners are only looked for among the edges on the correct side along
+ * the scan direction whose angle is within {@link Edge#MAX_ANGULAR_MISMATCH}.
+ * </ul>
+ * Both searches return exactly the edge a linear search over the edges in the order of their
+ * registration would return, including the resolution of ties.
+ * <p>
+ * The index re-uses its arrays across detection runs, so that it doesn't allocate once it has
+ * warmed up.
+ */
+class EdgeIndex {
+  /** The cells of the spatial hash are 2^CELL_SHIFT pixels wide and high */
+  private static final int CELL_SHIFT = 5;
+
+  /** The number of angle buckets, plus one for the edges without a valid angle */
+  private static final int ANGLE_BUCKETS = 2 * (int) Math.ceil(90 / Edge.MAX_ANGULAR_MISMATCH) + 2;
+  private static final int NO_ANGLE_BUCKET = ANGLE_BUCKETS - 1;
+
+  /** Slack for the rounding of the angles, in degrees */
+  private static final double ANGLE_SLACK = 1e-6;
+
+  /** The edges in the order of their registration */
+  private Edge edges[] = new Edge[16];
+  private int edgeCount;
+
+  /**
+   * The range of cells an edge has been entered into: <code>coveredCells[4 * s..4 * s + 3]</code>
+   * holds the first and last cell column and row for the edge with sequence <code>s</code>.
+   */
+  private int coveredCells[] = new int[4 * 16];
+
+  /** The open addressing table from cell keys to the first entry of the cell, -1 if empty */
+  private long cellKeys[] = new long[64];
+  private int cellHeads[] = new int[64];
+  private int cellCount;
+
+  /** The entries of the cells: the sequence of the edge and the next entry of the cell or -1 */
+  private int entryEdges[] = new int[64];
+  private int entryNext[] = new int[64];
+  private int entryCount;
+
+  /**
+   * The edges to be matched by angle bucket and center x: the sort keys, holding the doubled
+   * center x in the upper and the sequence in the lower half, of bucket <code>b</code> are at
+   * <code>sorted[bucketStart[b]..bucketStart[b + 1] - 1]</code>.
+   */
+  private long sorted[] = new long[16];
+  private final int bucketStart[] = new int[ANGLE_BUCKETS + 1];
+  private final int bucketNext[] = new int[ANGLE_BUCKETS];
+  private int angleBuckets[] = new int[16];
+  private boolean removed[] = new boolean[16];
+
+  EdgeIndex() {
+    Arrays.fill(cellHeads, -1);
+  }
+
+  /**
+   * Forget all edges.
+   */
+  void clear() {
+    Arrays.fill(edges, 0, edgeCount, null);
+    edgeCount = 0;
+    if (cellCount > 0)
+      Arrays.fill(cellHeads, -1);
+    cellCount = 0;
+    entryCount = 0;
+  }
+
+  /**
+   * Add a new edge.
+   */
+  void add(Edge edge) {
+    if (edgeCount == edges.length) {
+      edges = Arrays.copyOf(edges, edgeCount * 2);
+      coveredCells = Arrays.copyOf(coveredCells, edgeCount * 8);
+    }
+
+    edge.setSequence(edgeCount);
+    edges[edgeCount] = edge;
+
+    // nothing covered yet
+    int c = 4 * edgeCount;
+    coveredCells[c] = coveredCells[c + 1] = 0;
+    coveredCells[c + 2] = coveredCells[c + 3] = -1;
+    edgeCount++;
+
+    update(edge);
+  }
+
+  /**
+   * Enter the edge into the cells its confidence rectangle has grown into.
+   */
+  void update(Edge edge) {
+    Rectangle r = edge.getConfidenceRectangle();
+    if (r.width <= 0 || r.height <= 0)
+      return;
+
+    int x0 = r.x >> CELL_SHIFT;
+    int y0 = r.y >> CELL_SHIFT;
+    int x1 = (r.x + r.width - 1) >> CELL_SHIFT;
+    int y1 = (r.y + r.height - 1) >> CELL_SHIFT;
+
+    int sequence = edge.getSequence();
+    int c = 4 * sequence;
+    int oldX0 = coveredCells[c];
+    int oldY0 = coveredCells[c + 1];
+    int oldX1 = coveredCells[c + 2];
+    int oldY1 = coveredCells[c + 3];
+    if (x0 == oldX0 && y0 == oldY0 && x1 == oldX1 && y1 == oldY1)
+      return;
+
+    for (int cy = y0; cy <= y1; cy++)
+      for (int cx = x0; cx <= x1; cx++)
+        if (cx < oldX0 || cx > oldX1 || cy < oldY0 || cy > oldY1)
+          addEntry(cx, cy, sequence);
+
+    coveredCells[c] = x0;
+    coveredCells[c + 1] = y0;
+    coveredCells[c + 2] = x1;
+    coveredCells[c + 3] = y1;
+  }
+
+  /**
+   * Return the first registered edge which accepts the given hit, or <code>null</code> if there is
+   * none.
+   */
+  Edge findMatch(EdgeDetection ed) {
+    int first = Integer.MAX_VALUE;
+    for (int e = cellHeads[findCell(key(ed.x >> CELL_SHIFT, ed.y >> CELL_SHIFT))]; e >= 0; e = entryNext[e])
+      if (entryEdges[e] < first && edges[entryEdges[e]].accepts(ed))
+        first = entryEdges[e];
+
+    return first < edgeCount ? edges[first] : null;
+  }
+
+  /**
+   * Prepare the partner search among the given edges, which must have been registered with this
+   * index and have their lines fitted.
+   */
+  void prepareMatching(Collection<Edge> candidates) {
+    int n = candidates.size();
+    if (sorted.length < n)
+      sorted = new long[Math.max(n, 2 * sorted.length)];
+    if (angleBuckets.length < edgeCount) {
+      angleBuckets = new int[Math.max(edgeCount, 2 * angleBuckets.length)];
+      removed = new boolean[angleBuckets.length];
+    }
+    Arrays.fill(removed, 0, edgeCount, true);
+
+    // count the edges per bucket, then place them
+    Arrays.fill(bucketStart, 0);
+    for (Edge edge : candidates) {
+      int bucket = angleBucket(Math.toDegrees(edge.getAngle()));
+      angleBuckets[edge.getSequence()] = bucket;
+      removed[edge.getSequence()] = false;
+      bucketStart[bucket + 1]++;
+    }
+    for (int b = 0; b < ANGLE_BUCKETS; b++)
+      bucketStart[b + 1] += bucketStart[b];
+
+    System.arraycopy(bucketStart, 0, bucketNext, 0, ANGLE_BUCKETS);
+    for (Edge edge : candidates) {
+      int sequence = edge.getSequence();
+      sorted[bucketNext[angleBuckets[sequence]]++] = ((long) edge.getDoubledCenterX() << 32) | sequence;
+    }
+    for (int b = 0; b < ANGLE_BUCKETS; b++)
+      Arrays.sort(sorted, bucketStart[b], bucketStart[b + 1]);
+  }
+
+  /**
+   * Remove an edge from the partner search.
+   */
+  void remove(Edge edge) {
+    removed[edge.getSequence()] = true;
+  }
+
+  /**
+   * Return the edge of this index which is the best partner for the given edge, or
+   * <code>null</code> if none is acceptable. Of several equally good partners, the first registered
+   * is returned.
+   */
+  Edge findBestPartner(Edge edge) {
+    Edge bestPartner = null;
+    int bestPartnerConfidence = Integer.MIN_VALUE;
+
+    double angle = Math.toDegrees(edge.getAngle());
+    int centerX = edge.getDoubledCenterX();
+    for (int b = 0; b < ANGLE_BUCKETS; b++) {
+      if (!isAngleCandidate(b, angle))
+        continue;
+
+      // partners lie to the right of the edge
+      for (int i = lowerBound(b, centerX); i < bucketStart[b + 1]; i++) {
+        int sequence = (int) sorted[i];
+        if (removed[sequence])
+          continue;
+
+        Edge possiblePartner = edges[sequence];
+        int confidence = edge.getPartnerConfidence(possiblePartner);
+        if (confidence > bestPartnerConfidence
+            || confidence == bestPartnerConfidence && null != bestPartner && sequence < bestPartner.getSequence()) {
+          bestPartner = possiblePartner;
+          bestPartnerConfidence = confidence;
+        }
+      }
+    }
+
+    return bestPartner;
+  }
+
+  /**
+   * Return an unpartnered edge of this index other than <code>except</code> which is a better
+   * partner for the given edge than the given confidence, or <code>null</code> if there is none.
+   */
+  Edge findBetterPartner(Edge partner, Edge except, int confidence) {
+    double angle = Math.toDegrees(partner.getAngle());
+    int centerX = partner.getDoubledCenterX();
+    for (int b = 0; b < ANGLE_BUCKETS; b++) {
+      if (!isAngleCandidate(b, angle))
+        continue;
+
+      // the edges lie to the left of their partner
+      for (int i = bucketStart[b]; i < bucketStart[b + 1] && (int) (sorted[i] >> 32) <= centerX; i++) {
+        int sequence = (int) sorted[i];
+        Edge possiblePartner = edges[sequence];
+        if (!removed[sequence] && possiblePartner != except && null == possiblePartner.getPartner()
+            && possiblePartner.getPartnerConfidence(partner) > confidence)
+          return possiblePartner;
+      }
+    }
+
+    return null;
+  }
+
+  private static int angleBucket(double angle) {
+    if (Double.isNaN(angle))
+      return NO_ANGLE_BUCKET;
+    int bucket = (int) Math.floor(angle / Edge.MAX_ANGULAR_MISMATCH) + NO_ANGLE_BUCKET / 2;
+    return Math.max(0, Math.min(NO_ANGLE_BUCKET - 1, bucket));
+  }
+
+  /**
+   * Return whether the edges in the given bucket may be within the maximum angular mismatch of the
+   * given angle. Edges without a valid angle never fail the angle test, neither do edges compared to
+   * an edge without a valid angle.
+   */
+  private static boolean isAngleCandidate(int bucket, double angle) {
+    if (bucket == NO_ANGLE_BUCKET || Double.isNaN(angle))
+      return true;
+    return bucket >= angleBucket(angle - Edge.MAX_ANGULAR_MISMATCH - ANGLE_SLACK)
+        && bucket <= angleBucket(angle + Edge.MAX_ANGULAR_MISMATCH + ANGLE_SLACK);
+  }
+
+  /**
+   * Return the index of the first edge in the given bucket whose doubled center x is not less than
+   * the given one.
+   */
+  private int lowerBound(int bucket, int centerX) {
+    long key = (long) centerX << 32;
+    int low = bucketStart[bucket];
+    int high = bucketStart[bucket + 1];
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] < key)
+        low = mid + 1;
+      else
+        high = mid;
+    }
+    return low;
+  }
+
+  private static long key(int cellX, int cellY) {
+    return ((long) cellX << 32) | (cellY & 0xffffffffL);
+  }
+
+  /**
+   * Return the slot of the given cell in the table, which is empty if the cell has no entries.
+   */
+  private int findCell(long key) {
+    int mask = cellKeys.length - 1;
+    int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    while (cellHeads[slot] >= 0 && cellKeys[slot] != key)
+      slot = (slot + 1) & mask;
+    return slot;
+  }
+
+  private void addEntry(int cellX, int cellY, int sequence) {
+    if (2 * (cellCount + 1) > cellKeys.length)
+      growCells();
+
+    if (entryCount == entryEdges.length) {
+      entryEdges = Arrays.copyOf(entryEdges, entryCount * 2);
+      entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+    }
+
+    long key = key(cellX, cellY);
+    int slot = findCell(key);
+    if (cellHeads[slot] < 0) {
+      cellKeys[slot] = key;
+      cellCount++;
+    }
+
+    entryEdges[entryCount] = sequence;
+    entryNext[entryCount] = cellHeads[slot];
+    cellHeads[slot] = entryCount++;
+  }
+
+  private void growCells() {
+    long oldKeys[] = cellKeys;
+    int oldHeads[] = cellHeads;
+    cellKeys = new long[oldKeys.length * 2];
+    cellHeads = new int[oldHeads.length * 2];
+    Arrays.fill(cellHeads, -1);
+    for (int i = 0; i < oldKeys.length; i++)
+      if (oldHeads[i] >= 0) {
+        int slot = findCell(oldKeys[i]);
+        cellKeys[slot] = oldKeys[i];
+        cellHeads[slot] = oldHeads[i];
+      }
+  }
+}
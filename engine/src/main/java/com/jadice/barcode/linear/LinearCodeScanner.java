@@ -0,0 +1,292 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import com.jadice.barcode.Deadline;
+import com.jadice.barcode.Marker.Feature;
+import com.jadice.barcode.Result;
+import com.jadice.barcode.grid.BinaryGrid;
+
+/**
+ * The LinearCodeScanner runs several {@link OneDDecoder}s on the same {@link BinaryGrid} while
+ * scanning each scan line only once. The bar widths of a scan line are handed to every decoder
+ * which would have scanned that line on its own. The fine-scan bands around detections are tracked
+ * per decoder, so each decoder sees exactly the same scan lines, in the same order, as if it had
+ * been run separately.
+ */
+public class LinearCodeScanner {
+  private LinearCodeScanner() {
+    // static methods only
+  }
+
+  /**
+   * Detect codes using all of the given decoders. The decoders must have been set up with the same
+   * options.
+   * 
+   * @param decoders the decoders
+   * @param image the grid to scan
+   * @return one list of results per decoder, in the order of the decoders
+   */
+  public static List<List<Result>> detect(List<? extends OneDDecoder> decoders, BinaryGrid image) {
+    if (decoders.isEmpty())
+      return Collections.emptyList();
+
+    List<List<Result>> results = new ArrayList<List<Result>>(decoders.size());
+    for (OneDDecoder decoder : decoders) {
+      decoder.startDetection();
+      results.add(new ArrayList<Result>());
+    }
+
+    scan(decoders, image, results);
+
+    for (int i = 0; i < decoders.size(); i++) {
+      OneDDecoder decoder = decoders.get(i);
+      decoder.postprocessEdges(image, results.get(i));
+      decoder.detectCodes(image, results.get(i));
+    }
+
+    return results;
+  }
+
+  /**
+   * Scan the grid for start and stop edges, registering them with the respective decoders. The scan
+   * stops early once the deadline of the decoders' {@link com.jadice.barcode.BaseSettings} has been
+   * reached. If {@link LinearCodeSettings#getScanStripes()} asks for it, the grid is scanned in
+   * stripes.
+   * 
+   * @param decoders the decoders
+   * @param image the grid to scan
+   * @param results one list of results per decoder
+   */
+  static void scan(List<? extends OneDDecoder> decoders, BinaryGrid image, List<List<Result>> results) {
+    OneDDecoder first = decoders.get(0);
+    int stripes = first.linearCodeSettings.getScanStripes();
+    int scanInterval = first.linearCodeSettings.getScanInterval();
+
+    // the stripes start at regular scan lines and are at least two scan intervals high
+    int stripeHeight = (image.getHeight() + stripes - 1) / stripes;
+    stripeHeight = Math.max(2, (stripeHeight + scanInterval - 1) / scanInterval) * scanInterval;
+
+    // the diagnostic markup can't be collected concurrently
+    if (stripes > 1 && stripeHeight < image.getHeight() && !first.isDiagMarkupEnabled)
+      scanStriped(decoders, image, stripeHeight);
+    else
+      scan(decoders, image, results, 0, image.getHeight(), null);
+  }
+
+  /**
+   * Scan the rows from <code>fromY</code> to <code>toY</code> (exclusive). Fine-scans which are in
+   * progress at the end of the range are completed beyond it, so that the edges found near the end
+   * are as complete as with a scan of the whole grid.
+   * 
+   * @param scannedRows if not <code>null</code>, the rows which have been scanned for each decoder are
+   *          marked in it
+   */
+  private static void scan(List<? extends OneDDecoder> decoders, BinaryGrid image, List<List<Result>> results,
+      int fromY, int toY, boolean scannedRows[][]) {
+    int decoderCount = decoders.size();
+    OneDDecoder first = decoders.get(0);
+    int scanInterval = first.linearCodeSettings.getScanInterval();
+    Deadline deadline = first.baseSettings.getDeadline();
+
+    int height = image.getHeight();
+    Point from = new Point(0, 0);
+    Point to = new Point(image.getWidth() - 1, 0);
+
+    // set up bars
+    int barWidths[] = first.getBarWidthsBuffer(image.getWidth() + 2);
+
+    // the per-decoder scan state
+    int nextY[] = new int[decoderCount];
+    Arrays.fill(nextY, fromY);
+    int fineScanForwardTo[] = new int[decoderCount];
+    Arrays.fill(fineScanForwardTo, -1);
+    boolean fineScanBackward[] = new boolean[decoderCount];
+
+    int y; // horizontal or vertical coordinate!
+    while ((y = min(nextY)) < height) {
+      if (deadline.isReached())
+        break;
+
+      // update scan vector
+      from.y = to.y = y;
+
+      if (first.isDiagMarkupEnabled) {
+        boolean fineScan = false;
+        for (int i = 0; i < decoderCount; i++)
+          fineScan |= nextY[i] == y && fineScanForwardTo[i] > y;
+        first.diagnosticOptions.addLine((fineScan ? Feature.SCAN : Feature.INITIAL_SCAN), from, to);
+      }
+
+      // scan the bars
+      int barCount = first.scanBars(image, barWidths, from, to);
+
+      // try to detect start and stop markers for every decoder which is due at this line
+      boolean anyFineScanBackward = false;
+      for (int i = 0; i < decoderCount; i++) {
+        fineScanBackward[i] = false;
+        if (nextY[i] != y)
+          continue;
+
+        if (null != scannedRows)
+          scannedRows[i][y] = true;
+
+        if (decoders.get(i).detectEdges(y, barWidths, barCount, results.get(i))) {
+          // if we just found something, we fine-scan the area between
+          // the previous and the next regular scan interval
+          if (fineScanForwardTo[i] < y)
+            anyFineScanBackward = fineScanBackward[i] = true;
+
+          fineScanForwardTo[i] = Math.min(y + scanInterval, height);
+        }
+
+        if (fineScanForwardTo[i] > y)
+          nextY[i] = y + 1;
+        else
+          nextY[i] = y + scanInterval;
+
+        // beyond the end of the range, only fine-scans in progress are continued
+        if (nextY[i] >= toY && fineScanForwardTo[i] <= y)
+          nextY[i] = Integer.MAX_VALUE;
+      }
+
+      // fine-scan backwards, sharing the lines among all decoders which need them
+      if (anyFineScanBackward) {
+        int previousY = Math.max(0, y - scanInterval);
+        for (int y1 = y - 1; y1 > previousY; y1--) {
+          from.y = to.y = y1;
+
+          if (first.isDiagMarkupEnabled)
+            first.diagnosticOptions.addLine(Feature.SCAN, from, to);
+
+          barCount = first.scanBars(image, barWidths, from, to);
+          for (int i = 0; i < decoderCount; i++)
+            if (fineScanBackward[i]) {
+              decoders.get(i).detectEdges(y1, barWidths, barCount, results.get(i));
+              if (null != scannedRows)
+                scannedRows[i][y1] = true;
+            }
+        }
+      }
+    }
+  }
+
+  /**
+   * Scan the grid in horizontal stripes of the given height. Each stripe is scanned by its own set of
+   * worker decoders, concurrently if the decoders' {@link com.jadice.barcode.BaseSettings} supply an
+   * executor. The calling thread scans the stripes which haven't been picked up by the executor, so
+   * that the scan completes even if all of the executor's threads are busy.
+   * 
+   * Afterwards, the edges found in the stripes are merged into the decoders. A scan line which has
+   * been scanned for a decoder in several stripes, e.g. because a fine-scan crossed a stripe
+   * boundary, contributes its hits only once, from the first stripe which scanned it for the decoder.
+   * Thus, the merged edges do not depend on the timing of the concurrent scans.
+   */
+  private static void scanStriped(final List<? extends OneDDecoder> decoders, final BinaryGrid image,
+      int stripeHeight) {
+    final int height = image.getHeight();
+    int stripes = (height + stripeHeight - 1) / stripeHeight;
+    OneDDecoder first = decoders.get(0);
+
+    final boolean scannedRows[][][] = new boolean[stripes][decoders.size()][height];
+    List<List<OneDDecoder>> workers = new ArrayList<List<OneDDecoder>>(stripes);
+    List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(stripes);
+    for (int s = 0; s < stripes; s++) {
+      final List<OneDDecoder> stripeWorkers = new ArrayList<OneDDecoder>(decoders.size());
+      final List<List<Result>> stripeResults = new ArrayList<List<Result>>(decoders.size());
+      for (OneDDecoder decoder : decoders) {
+        OneDDecoder worker = decoder.getStripeWorker(s);
+        worker.startDetection();
+        stripeWorkers.add(worker);
+        stripeResults.add(new ArrayList<Result>());
+      }
+      workers.add(stripeWorkers);
+
+      final int stripe = s;
+      final int fromY = s * stripeHeight;
+      final int toY = Math.min(height, fromY + stripeHeight);
+      tasks.add(new FutureTask<Void>(new Runnable() {
+        @Override
+        public void run() {
+          scan(stripeWorkers, image, stripeResults, fromY, toY, scannedRows[stripe]);
+        }
+      }, null));
+    }
+
+    Executor executor = first.baseSettings.getExecutor();
+    if (null != executor)
+      for (FutureTask<Void> task : tasks.subList(1, tasks.size()))
+        executor.execute(task);
+
+    // a task which has already been started by the executor won't run again
+    for (FutureTask<Void> task : tasks)
+      task.run();
+    for (FutureTask<Void> task : tasks)
+      await(task);
+
+    int rowOwners[] = new int[height];
+    for (int i = 0; i < decoders.size(); i++) {
+      // each scan line belongs to the first stripe which scanned it for the decoder
+      Arrays.fill(rowOwners, -1);
+      for (int s = 0; s < stripes; s++)
+        for (int y = 0; y < height; y++)
+          if (scannedRows[s][i][y] && rowOwners[y] < 0)
+            rowOwners[y] = s;
+
+      List<OneDDecoder> decoderWorkers = new ArrayList<OneDDecoder>(stripes);
+      for (List<OneDDecoder> stripeWorkers : workers)
+        decoderWorkers.add(stripeWorkers.get(i));
+      decoders.get(i).mergeEdges(decoderWorkers, rowOwners);
+    }
+  }
+
+  private static void await(FutureTask<Void> task) {
+    try {
+      task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for a stripe to be scanned", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw new RuntimeException("Scanning a stripe failed", cause);
+    }
+  }
+
+  private static int min(int[] values) {
+    int min = Integer.MAX_VALUE;
+    for (int value : values)
+      if (value < min)
+        min = value;
+    return min;
+  }
+}
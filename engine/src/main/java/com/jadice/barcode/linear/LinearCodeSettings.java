@@ -81,6 +81,21 @@ public class LinearCodeSettings implements Settings {
    */
   private int barWidthTolerance = 60;
 
+  /**
+   * Whether the rotated images for the directions other than east are materialized as packed bit
+   * matrices instead of being remapped pixel by pixel.
+   * 
+   * Default: <code>true</code>
+   */
+  private boolean materializeRotations = true;
+
+  /**
+   * The number of horizontal stripes into which an image is split for scanning in parallel.
+   * 
+   * Default: 1
+   */
+  private int scanStripes = 1;
+
   public LinearCodeSettings() {
     Arrays.fill(directionsToTry, false);
     directionsToTry[Direction.EAST.ordinal()] = true;
@@ -220,4 +235,54 @@ public class LinearCodeSettings implements Settings {
   public void setConfidenceRadius(int confidenceRadius) {
     this.confidenceRadius = confidenceRadius;
   }
+
+  /**
+   * Set whether the rotated images for the directions other than east shall be materialized as
+   * packed bit matrices. A materialized copy makes scans in every direction sequential memory reads,
+   * at the expense of holding one additional bit per pixel for each enabled direction. Otherwise,
+   * the pixels are remapped on each access.
+   * 
+   * Default: <code>true</code>
+   * 
+   * @param materializeRotations
+   */
+  public void setMaterializeRotations(boolean materializeRotations) {
+    this.materializeRotations = materializeRotations;
+  }
+
+  /**
+   * Return whether the rotated images are materialized.
+   * 
+   * @return
+   */
+  public boolean isMaterializeRotations() {
+    return materializeRotations;
+  }
+
+  /**
+   * Set the number of horizontal stripes into which an image is split for scanning. The stripes are
+   * scanned for start and stop edges concurrently, using the executor of the
+   * {@link com.jadice.barcode.BaseSettings}, and the edges are merged before they are decoded. This
+   * reduces the latency for large images, even if only a single symbology and direction is to be
+   * decoded. Without an executor, the stripes are scanned one after the other. A value of 1 scans
+   * the image as a whole.
+   * 
+   * Default: 1
+   * 
+   * @param scanStripes the number of stripes, at least 1
+   */
+  public void setScanStripes(int scanStripes) {
+    if (scanStripes < 1)
+      throw new IllegalArgumentException("The number of stripes must be at least 1");
+    this.scanStripes = scanStripes;
+  }
+
+  /**
+   * Return the number of horizontal stripes into which an image is split for scanning.
+   * 
+   * @return the number of stripes
+   */
+  public int getScanStripes() {
+    return scanStripes;
+  }
 }
@@ -0,0 +1,370 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.jadice.barcode.BaseSettings;
+import com.jadice.barcode.Result;
+import com.jadice.barcode.ResultIndex;
+import com.jadice.barcode.ResultListener;
+import com.jadice.barcode.grid.BinaryGrid;
+import com.jadice.barcode.grid.PackedBinaryGrid;
+import com.jadice.barcode.grid.RunLengthBinaryGrid;
+
+/**
+ * A LinearCodeStream decodes linear codes from an image which is delivered row by row, like the
+ * output of a continuous-feed scanner or a page too tall to be held in memory. Only the most recent
+ * rows are kept in a band of fixed height. Start and stop edges are collected while the rows arrive,
+ * scanned exactly like the {@link LinearCodeScanner} would scan them. As soon as all edges found so
+ * far are complete, i.e. no further row can extend them, they are paired, decoded and the results
+ * are handed to the {@link ResultListener}. The memory used is therefore bounded by the band height
+ * rather than by the height of the image.
+ * 
+ * Codes are only found in the scan direction {@link LinearCodeSettings.Direction#EAST}. The bars
+ * of a code must fit into the band: codes which are taller than the band are decoded from the rows
+ * still held when the band is full, which may fail for bad prints or report the code more than
+ * once.
+ * 
+ * The results are in the coordinates of the whole image, i.e. the first row pushed has
+ * <code>y = 0</code>. A stream is not thread-safe.
+ */
+public class LinearCodeStream {
+  private final List<? extends OneDDecoder> decoders;
+  private final ResultListener listener;
+  private final Band band;
+  private final int scanInterval;
+
+  /** The threshold applied to pushed luminance rows */
+  private final int threshold;
+
+  private final int barWidths[];
+
+  /** Scratch space for rows of binary sources wider than the band */
+  private long sourceRow[];
+
+  // the per-decoder scan state, see LinearCodeScanner.scan()
+  private final int nextY[];
+  private final int fineScanForwardTo[];
+  private final boolean fineScanBackward[];
+
+  private boolean stopped;
+
+  /**
+   * Create a stream using the given decoders. The decoders must have been set up with the same
+   * options and must not be used for anything else while the stream is in use.
+   * 
+   * @param decoders the decoders
+   * @param width the width of the rows
+   * @param bandHeight the number of rows to keep. This should be a bit more than the height of the
+   *          tallest code to be decoded and must exceed the scan interval.
+   * @param listener the listener receiving the results
+   */
+  public LinearCodeStream(List<? extends OneDDecoder> decoders, int width, int bandHeight, ResultListener listener) {
+    if (decoders.isEmpty())
+      throw new IllegalArgumentException("No decoders given");
+    if (width <= 0)
+      throw new IllegalArgumentException("Illegal width: " + width);
+
+    OneDDecoder first = decoders.get(0);
+    this.scanInterval = first.linearCodeSettings.getScanInterval();
+    if (bandHeight <= scanInterval)
+      throw new IllegalArgumentException("The band height must exceed the scan interval of " + scanInterval);
+
+    int threshold = first.baseSettings.getThreshold();
+    if (threshold == BaseSettings.AUTO_THRESHOLD || threshold == BaseSettings.ADAPTIVE_THRESHOLD)
+      threshold = 50;
+    this.threshold = threshold * 255 / 100;
+
+    this.decoders = decoders;
+    this.listener = listener;
+    this.band = new Band(width, bandHeight);
+    this.barWidths = new int[width + 2];
+    this.nextY = new int[decoders.size()];
+    this.fineScanForwardTo = new int[decoders.size()];
+    this.fineScanBackward = new boolean[decoders.size()];
+
+    reset();
+  }
+
+  /**
+   * Start a new image. Edges which have not yet been decoded are discarded. Use {@link #finish()}
+   * to decode them first.
+   */
+  public void reset() {
+    band.clear();
+    Arrays.fill(nextY, 0);
+    Arrays.fill(fineScanForwardTo, -1);
+    for (OneDDecoder decoder : decoders)
+      decoder.startDetection();
+    stopped = false;
+  }
+
+  /**
+   * Push the next row of luminance values. Values below the threshold of the decoders'
+   * {@link BaseSettings} are black. An automatic or adaptive threshold is treated as 50%, since the
+   * luminance of the whole image, or of the rows below the current one, is not known in advance.
+   * 
+   * @param luminance the luminance values in the range [0,255]
+   * @param offset the offset of the first pixel of the row within the array
+   * @return <code>false</code> if the listener asked to stop, in which case further rows are ignored
+   */
+  public boolean pushRow(int luminance[], int offset) {
+    if (stopped)
+      return false;
+
+    long row[] = band.nextRow();
+    for (int x = 0; x < band.width; x++)
+      if (luminance[offset + x] < threshold)
+        row[x >> 6] |= 1L << x;
+
+    return rowAdded();
+  }
+
+  /**
+   * Push the next row, taken from row <code>y</code> of a binary grid. This allows a binarized
+   * source to be streamed without materializing all of it.
+   * 
+   * @param source the source grid. Pixels beyond its width are white.
+   * @param y the row of the source
+   * @return <code>false</code> if the listener asked to stop, in which case further rows are ignored
+   */
+  public boolean pushRow(BinaryGrid source, int y) {
+    if (stopped)
+      return false;
+
+    long row[] = band.nextRow();
+    if (source.getWidth() <= band.width)
+      source.getRow(y, row);
+    else {
+      // the source is wider than the band: cut the row off at the band width
+      sourceRow = source.getRow(y, sourceRow);
+      PackedBinaryGrid.copyBits(sourceRow, 0, row, band.width);
+    }
+
+    return rowAdded();
+  }
+
+  /**
+   * Signal the end of the image: decode all remaining edges and start over with a new image.
+   * 
+   * @return <code>false</code> if the listener asked to stop
+   */
+  public boolean finish() {
+    if (!stopped)
+      flush();
+
+    boolean completed = !stopped;
+    reset();
+    return completed;
+  }
+
+  /**
+   * Return the number of rows pushed since the start of the current image.
+   * 
+   * @return the number of rows
+   */
+  public int getRowCount() {
+    return band.height;
+  }
+
+  /**
+   * Scan the newly added row, if any decoder is due, and decode the edges once they are complete.
+   */
+  private boolean rowAdded() {
+    int y = band.height - 1;
+
+    scan(y);
+
+    // find the extent of the edges found so far
+    int top = Integer.MAX_VALUE;
+    int bottom = Integer.MIN_VALUE;
+    for (OneDDecoder decoder : decoders) {
+      for (Edge edge : decoder.startEdges) {
+        Rectangle r = edge.getConfidenceRectangle();
+        top = Math.min(top, r.y);
+        bottom = Math.max(bottom, r.y + r.height);
+      }
+      for (Edge edge : decoder.stopEdges) {
+        Rectangle r = edge.getConfidenceRectangle();
+        top = Math.min(top, r.y);
+        bottom = Math.max(bottom, r.y + r.height);
+      }
+    }
+
+    /*
+     * The edges are complete once the scan, including a backward fine-scan starting at a later row,
+     * cannot reach their confidence rectangles anymore. If the oldest edge is about to leave the
+     * band, we have to decode now, complete or not.
+     */
+    if (top != Integer.MAX_VALUE && (bottom + scanInterval <= y || y - Math.max(top, 0) >= band.rows.length - 1))
+      flush();
+
+    return !stopped;
+  }
+
+  /**
+   * Scan row y for all decoders which are due at this row. This mirrors
+   * {@link LinearCodeScanner#scan(List, BinaryGrid, List)} with rows becoming available one at a
+   * time. Edges never produce results before they are decoded, so no result lists are needed.
+   */
+  private void scan(int y) {
+    boolean due = false;
+    for (int i = 0; i < nextY.length; i++)
+      due |= nextY[i] == y;
+    if (!due)
+      return;
+
+    List<Result> ignored = new ArrayList<Result>(0);
+    int barCount = band.scanRow(y, 0, band.width - 1, barWidths);
+
+    boolean anyFineScanBackward = false;
+    for (int i = 0; i < nextY.length; i++) {
+      fineScanBackward[i] = false;
+      if (nextY[i] != y)
+        continue;
+
+      if (decoders.get(i).detectEdges(y, barWidths, barCount, ignored)) {
+        if (fineScanForwardTo[i] < y)
+          anyFineScanBackward = fineScanBackward[i] = true;
+
+        fineScanForwardTo[i] = y + scanInterval;
+      }
+
+      if (fineScanForwardTo[i] > y)
+        nextY[i] = y + 1;
+      else
+        nextY[i] = y + scanInterval;
+    }
+
+    // the rows skipped since the previous regular scan are still held by the band
+    if (anyFineScanBackward) {
+      int previousY = Math.max(0, y - scanInterval);
+      for (int y1 = y - 1; y1 > previousY; y1--) {
+        barCount = band.scanRow(y1, 0, band.width - 1, barWidths);
+        for (int i = 0; i < nextY.length; i++)
+          if (fineScanBackward[i])
+            decoders.get(i).detectEdges(y1, barWidths, barCount, ignored);
+      }
+    }
+  }
+
+  /**
+   * Decode the collected edges, report the results and start collecting anew.
+   */
+  private void flush() {
+    ResultIndex index = new ResultIndex();
+    List<Result> found = new ArrayList<Result>();
+    for (OneDDecoder decoder : decoders) {
+      found.clear();
+      decoder.postprocessEdges(band, found);
+      decoder.detectCodes(band, found);
+      decoder.startDetection();
+
+      for (Result result : found)
+        if (!stopped && index.addIfNoDuplicate(result) && !listener.resultFound(result))
+          stopped = true;
+    }
+  }
+
+  /**
+   * The most recent rows of the image, kept in a ring buffer of packed rows. The grid spans all rows
+   * pushed so far; the rows which already left the band read as white.
+   */
+  private static class Band implements RunLengthBinaryGrid {
+    private final int width;
+    private final int wordsPerRow;
+    private final long rows[][];
+    private final AffineTransform inverseTransform = new AffineTransform();
+
+    /** The number of rows pushed so far */
+    private int height;
+
+    Band(int width, int bandHeight) {
+      this.width = width;
+      this.wordsPerRow = (width + 63) >> 6;
+      this.rows = new long[bandHeight][wordsPerRow];
+    }
+
+    void clear() {
+      height = 0;
+    }
+
+    /**
+     * Append a new, all white row and return its words.
+     */
+    long[] nextRow() {
+      long row[] = rows[height++ % rows.length];
+      Arrays.fill(row, 0L);
+      return row;
+    }
+
+    private boolean isHeld(int y) {
+      return y >= 0 && y < height && y >= height - rows.length;
+    }
+
+    @Override
+    public int getWidth() {
+      return width;
+    }
+
+    @Override
+    public int getHeight() {
+      return height;
+    }
+
+    @Override
+    public AffineTransform getInverseTransform() {
+      return inverseTransform;
+    }
+
+    @Override
+    public boolean samplePixel(int x, int y) {
+      if (x < 0 || x >= width || !isHeld(y))
+        return false;
+
+      return (rows[y % rows.length][x >> 6] & (1L << x)) != 0;
+    }
+
+    @Override
+    public int scanRow(int y, int x1, int x2, int[] runLengths) {
+      if (!isHeld(y) || x1 < 0 || x2 >= width)
+        // slow path for partly or fully outside rows
+        return PackedBinaryGrid.scanRowSampling(this, y, x1, x2, runLengths);
+
+      return PackedBinaryGrid.scanRow(rows[y % rows.length], x1, x2, runLengths);
+    }
+
+    @Override
+    public long[] getRow(int y, long[] bits) {
+      if (null == bits || bits.length < wordsPerRow)
+        bits = new long[wordsPerRow];
+      if (isHeld(y))
+        System.arraycopy(rows[y % rows.length], 0, bits, 0, wordsPerRow);
+      else
+        Arrays.fill(bits, 0, wordsPerRow, 0L);
+      return bits;
+    }
+  }
+}
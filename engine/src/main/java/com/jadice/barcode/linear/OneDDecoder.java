@@ -25,7 +25,7 @@ import java.awt.geom.Line2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -36,12 +36,15 @@ import org.slf4j.LoggerFactory;
 import com.jadice.barcode.AbstractDecoder;
 import com.jadice.barcode.BaseSettings;
 import com.jadice.barcode.BinaryDecoder;
+import com.jadice.barcode.Deadline;
 import com.jadice.barcode.DiagnosticSettings;
 import com.jadice.barcode.Marker;
 import com.jadice.barcode.Marker.Feature;
 import com.jadice.barcode.Options;
 import com.jadice.barcode.Result;
 import com.jadice.barcode.grid.BinaryGrid;
+import com.jadice.barcode.grid.PackedBinaryGrid;
+import com.jadice.barcode.grid.RunLengthBinaryGrid;
 
 /**
  * Abstract implementation of a bar code detector for a linear (1D) code.
@@ -56,7 +59,7 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
     int code = -1;
   }
 
-  protected static class Symbol {
+  public static class Symbol {
     public final int[] widths;
     public final int value;
 
@@ -72,9 +75,14 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
     }
   }
 
+  /**
+   * The detection of a start or stop pattern. Instances are obtained through
+   * {@link OneDDecoder#createEdgeDetection(int, int, int, float)} and recycled when the decoder
+   * starts the next detection run.
+   */
   protected static class EdgeDetection {
-    public final float overprint;
-    public final int x, y, width;
+    public float overprint;
+    public int x, y, width;
 
     public EdgeDetection(int x, int y, int width, float overprintEstimate) {
       super();
@@ -148,13 +156,41 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
    */
   protected Collection<Edge> stopEdges = new LinkedList<Edge>();
 
+  /** The indexes over the start and stop edges, used to match hits and partners */
+  private final EdgeIndex startEdgeIndex = new EdgeIndex();
+  private final EdgeIndex stopEdgeIndex = new EdgeIndex();
+
   protected LinearCodeSettings linearCodeSettings;
 
   protected BaseSettings baseSettings;
 
+  /*
+   * Scratch space which is re-used across detection runs, so that the decoder doesn't allocate in
+   * its inner loops once it has warmed up. A decoder is used by a single thread at a time, so no
+   * synchronization is necessary.
+   */
+  private int[] barWidthsBuffer = new int[0];
+  private long[] rowBuffer;
+  private int[] aggregateScanBuffer = new int[0];
+  private int[] votes = new int[0];
+
+  /** The decoders scanning the stripes of an image on behalf of this one, created on demand */
+  private final List<OneDDecoder> stripeWorkers = new ArrayList<OneDDecoder>();
+
+  /** The code strings collected for the edge pair being processed */
+  private final List<CodeString> codeStrings = new ArrayList<CodeString>();
+
+  /** Pooled code strings; the first <code>codeStringsInUse</code> are handed out */
+  private final List<CodeString> codeStringPool = new ArrayList<CodeString>();
+  private int codeStringsInUse;
+
+  /** Pooled edge detections; the first <code>edgeDetectionsInUse</code> are handed out */
+  private final List<EdgeDetection> edgeDetectionPool = new ArrayList<EdgeDetection>();
+  private int edgeDetectionsInUse;
+
   protected boolean isDiagMarkupEnabled;
 
-  private DiagnosticSettings diagnosticOptions;
+  protected DiagnosticSettings diagnosticOptions;
 
   @Override
   public void setOptions(Options options) {
@@ -166,17 +202,130 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
     isDiagMarkupEnabled = diagnosticOptions.isMarkupEnabled();
   }
 
+  /**
+   * Return a scratch buffer for bar widths which can hold at least the given number of bars. The
+   * buffer is shared by all scans of this decoder.
+   * 
+   * @param size the minimum size
+   * @return the buffer
+   */
+  int[] getBarWidthsBuffer(int size) {
+    if (barWidthsBuffer.length < size)
+      barWidthsBuffer = new int[size];
+    return barWidthsBuffer;
+  }
+
+  /**
+   * Create an {@link EdgeDetection}. The instance is taken from a pool which is recycled when the
+   * next detection run starts, i.e. the detection must not be referenced beyond the current run.
+   */
+  protected EdgeDetection createEdgeDetection(int x, int y, int width, float overprintEstimate) {
+    if (edgeDetectionsInUse == edgeDetectionPool.size())
+      edgeDetectionPool.add(new EdgeDetection(x, y, width, overprintEstimate));
+
+    EdgeDetection ed = edgeDetectionPool.get(edgeDetectionsInUse++);
+    ed.x = x;
+    ed.y = y;
+    ed.width = width;
+    ed.overprint = overprintEstimate;
+    return ed;
+  }
+
+  /**
+   * Create an empty {@link CodeString} for use in
+   * {@link #decodeBarsToCodeString(int[], int, int, float)}. The instance is taken from a pool which
+   * is recycled when the next edge pair is processed.
+   */
+  protected CodeString createCodeString() {
+    if (codeStringsInUse == codeStringPool.size())
+      codeStringPool.add(new CodeString());
+
+    CodeString codeString = codeStringPool.get(codeStringsInUse++);
+    codeString.reset();
+    return codeString;
+  }
+
+  /**
+   * Return the decoder scanning the given stripe on behalf of this one. The workers are kept for
+   * later runs and follow the options of this decoder.
+   */
+  OneDDecoder getStripeWorker(int stripe) {
+    while (stripeWorkers.size() <= stripe)
+      stripeWorkers.add((OneDDecoder) getSymbology().createDecoder());
+
+    OneDDecoder worker = stripeWorkers.get(stripe);
+    worker.setOptions(options);
+    return worker;
+  }
+
+  /**
+   * Merge the edges the stripe workers have found into the edges of this decoder. From each worker,
+   * only the hits on the scan lines owned by its stripe are taken over. They are registered like
+   * fresh hits, scan line by scan line from the top, just like a scan of the whole image would have
+   * registered them. Thus, edges spanning several stripes are joined, and the confidence rectangles
+   * of the edges grow in the same way as during a scan of the whole image.
+   * 
+   * @param workers the stripe workers, in the order of the stripes
+   * @param rowOwners the index of the stripe owning each scan line
+   */
+  void mergeEdges(List<OneDDecoder> workers, int[] rowOwners) {
+    // bucket the hits by scan line, keeping the order in which each worker has found them
+    int height = rowOwners.length;
+    int bucketStart[] = new int[height + 1];
+    for (int s = 0; s < workers.size(); s++)
+      for (Edge edge : workers.get(s).getEdges())
+        for (EdgeDetection hit : edge.getHits())
+          if (rowOwners[hit.y] == s)
+            bucketStart[hit.y + 1]++;
+    for (int y = 0; y < height; y++)
+      bucketStart[y + 1] += bucketStart[y];
+
+    Edge edges[] = new Edge[bucketStart[height]];
+    EdgeDetection hits[] = new EdgeDetection[bucketStart[height]];
+    for (int s = 0; s < workers.size(); s++)
+      for (Edge edge : workers.get(s).getEdges())
+        for (EdgeDetection hit : edge.getHits())
+          if (rowOwners[hit.y] == s) {
+            int i = bucketStart[hit.y]++;
+            edges[i] = edge;
+            hits[i] = hit;
+          }
+
+    for (int i = 0; i < hits.length; i++)
+      registerStartStopDetection(edges[i].getModuleWidth(), edges[i].isStartEdge(), edges[i].isBlack(),
+          edges[i].getQuietZoneWidth(), createEdgeDetection(hits[i].x, hits[i].y, hits[i].width, hits[i].overprint));
+  }
+
+  private List<Edge> getEdges() {
+    List<Edge> edges = new ArrayList<Edge>(startEdges);
+    edges.addAll(stopEdges);
+    return edges;
+  }
+
+  /**
+   * Prepare for a new detection run: forget the edges of the previous run and recycle the pooled
+   * objects.
+   */
+  void startDetection() {
+    startEdges.clear();
+    stopEdges.clear();
+    startEdgeIndex.clear();
+    stopEdgeIndex.clear();
+    edgeDetectionsInUse = 0;
+  }
+
   /**
    * @param aggregateScan
+   * @param aggregateLength the used length of the aggregate scan
    * @param barWidths
    * @param barCount
    */
-  protected void aggregateScan(int[] aggregateScan, int[] barWidths, int barCount) {
+  protected void aggregateScan(int[] aggregateScan, int aggregateLength, int[] barWidths, int barCount) {
     int totalWidth = 0;
     for (int i = 0; i < barCount; i++)
       totalWidth += barWidths[i];
 
-    if (totalWidth > aggregateScan.length) {
+    if (totalWidth > aggregateLength) {
       logger.warn("totalWidth > aggregateScan.length (should not happen)");
       return;
     }
@@ -187,7 +336,7 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
     for (int i = 0; i < barCount; i++) {
       int width = barWidths[i];
       sourcePos += width;
-      int endAggregateIndex = sourcePos * aggregateScan.length / totalWidth;
+      int endAggregateIndex = sourcePos * aggregateLength / totalWidth;
       if (black)
         for (int j = aggregateIndex; j < endAggregateIndex; j++)
           aggregateScan[j]++;
@@ -197,7 +346,21 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
   }
 
   /**
-   * Condense all given code strings into one result string.
+   * Return the number of distinct code values this decoder produces, i.e. the code values stored in
+   * a {@link CodeString} are expected to lie in <code>[0, getCodeAlphabetSize())</code>. This is used
+   * to size the vote accumulator in {@link #consolidateCodeStrings(List)}; values outside that range
+   * are still handled correctly, albeit at the cost of growing the accumulator.
+   * 
+   * @return the code alphabet size
+   */
+  protected int getCodeAlphabetSize() {
+    return 128;
+  }
+
+  /**
+   * Condense all given code strings into one result string. For each position, every code string
+   * votes for its code. The code with the most votes wins, ties are broken in favour of the smaller
+   * code value.
    * 
    * @param codeStrings
    * @return
@@ -217,34 +380,46 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
         maxCodeStringLength = length;
     }
 
-    // FIXME: this is inefficient as hell!
-    HashMap<Integer, Integer> codeHistogram = new HashMap<Integer, Integer>();
+    if (votes.length < getCodeAlphabetSize())
+      votes = new int[getCodeAlphabetSize()];
+
     int resultString[] = new int[maxCodeStringLength];
     for (int i = 0; i < maxCodeStringLength; i++) {
-      codeHistogram.clear();
-      // accumulate characters
-      for (CodeString string : codeStrings)
-        if (string.getCodes().length > i) {
-          Integer key = new Integer(string.getCodes()[i]);
-          Integer count = codeHistogram.get(key);
-          if (null == count)
-            count = new Integer(1);
-          else
-            count = new Integer(count.intValue() + 1);
-          codeHistogram.put(key, count);
+      // accumulate votes; negative codes denote invalid characters
+      int invalidVotes = 0;
+      for (int j = 0; j < codeStrings.size(); j++) {
+        int codes[] = codeStrings.get(j).getCodes();
+        if (codes.length > i) {
+          int code = codes[i];
+          if (code < 0)
+            invalidVotes++;
+          else {
+            if (code >= votes.length)
+              votes = Arrays.copyOf(votes, Math.max(code + 1, votes.length * 2));
+            votes[code]++;
+          }
         }
+      }
 
-      // find max histogram entry
+      // find the winner and reset the accumulator for the next position
       int maxEntry = -1;
-      int maxCount = 0;
-      for (Integer key : codeHistogram.keySet()) {
-        int value = codeHistogram.get(key).intValue();
-        if (value > maxCount) {
-          maxCount = value;
-          maxEntry = key.intValue();
+      int maxVotes = 0;
+      for (int j = 0; j < codeStrings.size(); j++) {
+        int codes[] = codeStrings.get(j).getCodes();
+        if (codes.length > i && codes[i] >= 0) {
+          int code = codes[i];
+          if (votes[code] > maxVotes || votes[code] == maxVotes && code < maxEntry) {
+            maxVotes = votes[code];
+            maxEntry = code;
+          }
         }
       }
-      resultString[i] = maxEntry;
+      for (int j = 0; j < codeStrings.size(); j++) {
+        int codes[] = codeStrings.get(j).getCodes();
+        if (codes.length > i && codes[i] >= 0)
+          votes[codes[i]] = 0;
+      }
+      resultString[i] = invalidVotes > maxVotes ? -1 : maxEntry;
     }
 
     if (codeStrings.size() == 0)
@@ -272,17 +447,7 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
    */
   @Override
   public Collection<Result> detect(BinaryGrid image) {
-    List<Result> results = new ArrayList<Result>();
-
-    startEdges.clear();
-    stopEdges.clear();
-    startEdges.addAll(scanForEdges(image, results));
-
-    postprocessEdges(image, results);
-
-    detectCodes(image, results);
-
-    return results;
+    return LinearCodeScanner.detect(Collections.singletonList(this), image).get(0);
   }
 
   /**
@@ -295,7 +460,11 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
    * @return
    */
   protected void detectCodes(BinaryGrid image, List<Result> results) {
+    Deadline deadline = baseSettings.getDeadline();
     for (Edge edge : startEdges) {
+      if (deadline.isReached())
+        break;
+
       Result result = processEdgePair(edge, image, results);
       if (null != result && result.isValid() && result.getCodeString().length() > 0)
         results.add(result);
@@ -462,59 +631,56 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
         diagnosticOptions.add(edge.getLine(), Marker.Feature.STOP_EDGE);
     }
 
-    // now try to associate each edge with a partner
+    // now try to associate each edge with a partner. Once the deadline has been reached, the
+    // remaining edges are dropped. The indexes restrict the search to the plausible partners.
+    startEdgeIndex.prepareMatching(startEdges);
+    stopEdgeIndex.prepareMatching(stopEdges);
+    Deadline deadline = baseSettings.getDeadline();
     for (Iterator<Edge> i = startEdges.iterator(); i.hasNext();) {
       Edge edge = i.next();
-      Edge bestPartner = null;
-      int bestPartnerConfidence = Integer.MIN_VALUE;
-      for (Edge possiblePartner : stopEdges) {
-        int confidence = edge.getPartnerConfidence(possiblePartner);
-        if (confidence > bestPartnerConfidence) {
-          bestPartner = possiblePartner;
-          bestPartnerConfidence = confidence;
-        }
+      if (deadline.isReached()) {
+        startEdgeIndex.remove(edge);
+        i.remove();
+        continue;
       }
 
+      Edge bestPartner = stopEdgeIndex.findBestPartner(edge);
       if (bestPartner == null) {
-        logger.debug("Did not find a partner for " + edge);
+        if (logger.isDebugEnabled())
+          logger.debug("Did not find a partner for " + edge);
         if (isDiagMarkupEnabled)
           diagnosticOptions.add(edge.getConfidenceRectangle(), Marker.Feature.SINGLETON_EDGE);
+        startEdgeIndex.remove(edge);
         i.remove();
-      } else {
-        // try it the other way around: is this edge the best partner
-        // for the suspected partner?
-        int bestPartnerConfidence2 = bestPartnerConfidence;
-        Edge bestPartnerForPartner = null;
-        for (Edge possiblePartner : startEdges)
-          // we already know about this combination and we don't care about
-          // edges which are already taken.
-          if (possiblePartner != edge && possiblePartner.getPartner() == null) {
-            int confidence = possiblePartner.getPartnerConfidence(bestPartner);
-            if (confidence > bestPartnerConfidence2) {
-              bestPartnerForPartner = possiblePartner;
-              bestPartnerConfidence2 = confidence;
-            }
-          }
+        continue;
+      }
 
-        if (bestPartnerForPartner != null && bestPartnerForPartner != edge) {
-          // nope, this bride is already taken!
-          logger.debug("Found partner " + bestPartner + " for " + edge + ", but " + bestPartnerForPartner
+      // try it the other way around: is this edge the best partner for the suspected partner? We
+      // already know about this combination and we don't care about edges which are already taken.
+      Edge betterPartnerForPartner = startEdgeIndex.findBetterPartner(bestPartner, edge,
+          edge.getPartnerConfidence(bestPartner));
+      if (betterPartnerForPartner != null) {
+        // nope, this bride is already taken!
+        if (logger.isDebugEnabled())
+          logger.debug("Found partner " + bestPartner + " for " + edge + ", but " + betterPartnerForPartner
               + " is a better match for the first.");
-          if (isDiagMarkupEnabled)
-            diagnosticOptions.add(edge.getConfidenceRectangle(), Marker.Feature.SINGLETON_EDGE);
-          i.remove();
-        } else {
-          // ok, fine, let them live happily ever after
+        if (isDiagMarkupEnabled)
+          diagnosticOptions.add(edge.getConfidenceRectangle(), Marker.Feature.SINGLETON_EDGE);
+        startEdgeIndex.remove(edge);
+        i.remove();
+      } else {
+        // ok, fine, let them live happily ever after
+        if (logger.isDebugEnabled())
           logger.debug("Edge Pair: \n" + edge + "\n" + bestPartner);
-          edge.setPartner(bestPartner);
-          bestPartner.setPartner(edge);
-          stopEdges.remove(bestPartner);
+        edge.setPartner(bestPartner);
+        bestPartner.setPartner(edge);
+        stopEdges.remove(bestPartner);
+        stopEdgeIndex.remove(bestPartner);
 
-          if (isDiagMarkupEnabled)
-            diagnosticOptions.addLine(Marker.Feature.EDGE_ASSOCIATION, edge.getConfidenceRectangle().getCenterX(),
-                edge.getConfidenceRectangle().getCenterY(), bestPartner.getConfidenceRectangle().getCenterX(),
-                bestPartner.getConfidenceRectangle().getCenterY());
-        }
+        if (isDiagMarkupEnabled)
+          diagnosticOptions.addLine(Marker.Feature.EDGE_ASSOCIATION, edge.getConfidenceRectangle().getCenterX(),
+              edge.getConfidenceRectangle().getCenterY(), bestPartner.getConfidenceRectangle().getCenterX(),
+              bestPartner.getConfidenceRectangle().getCenterY());
       }
     }
 
@@ -531,6 +697,11 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
     // now re-scan the edges and maximize their coverage
     for (Iterator<Edge> i = startEdges.iterator(); i.hasNext();) {
       final Edge e = i.next();
+      if (deadline.isReached()) {
+        i.remove();
+        continue;
+      }
+
       if (!e.reScan(this, image, options, results)) {
         i.remove();
         if (isDiagMarkupEnabled) {
@@ -574,7 +745,6 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
 
     // some more preparation
     boolean isBlackCode = edge.isBlack();
-    int barWidths[] = new int[image.getWidth()];
     int maxScanLength = (int) Math.max(
         stopEdgeLine.getP1().getX() - startEdgeLine.getP1().getX()
             + Math.abs(stopEdgeLine.getP1().getY() - startEdgeLine.getP1().getY()),
@@ -586,10 +756,17 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
       return null;
     }
 
-    int aggregateScan[] = new int[maxScanLength * 2];
+    int aggregateLength = maxScanLength * 2;
+    if (aggregateScanBuffer.length < aggregateLength)
+      aggregateScanBuffer = new int[aggregateLength];
+    int aggregateScan[] = aggregateScanBuffer;
+    Arrays.fill(aggregateScan, 0, aggregateLength, 0);
+
+    int barWidths[] = getBarWidthsBuffer(Math.max(image.getWidth(), aggregateLength) + 2);
 
     // interpolate along the edges
-    List<CodeString> codeStrings = new LinkedList<CodeString>();
+    codeStrings.clear();
+    codeStringsInUse = 0;
     Point start = new Point();
     Point stop = new Point();
 
@@ -601,7 +778,11 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
      */
     final int offset = isBlackCode ? 1 : 0;
 
+    Deadline deadline = baseSettings.getDeadline();
     for (int t = 0; t < dyMajor; t++) {
+      if (deadline.isReached())
+        return null;
+
       start.x = pStartX + dxStart * t / dyMajor;
       start.y = pStartY + dyStart * t / dyMajor;
       stop.x = pStopX + dxStop * t / dyMajor;
@@ -625,7 +806,7 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
         diagnosticOptions.addLine((Feature.DETECTION_SCAN), start, stop);
 
       int barCount = scanBars(image, barWidths, start, stop);
-      aggregateScan(aggregateScan, barWidths, barCount);
+      aggregateScan(aggregateScan, aggregateLength, barWidths, barCount);
 
       // if this is a black code, scanBars will have generated a zero-width
       // first bar, so we must start at the second one.
@@ -642,7 +823,8 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
     // calculate min/max of aggregate scan
     int min = Integer.MAX_VALUE;
     int max = Integer.MIN_VALUE;
-    for (int element : aggregateScan) {
+    for (int i = 0; i < aggregateLength; i++) {
+      int element = aggregateScan[i];
       if (min > element)
         min = element;
       if (max < element)
@@ -651,7 +833,7 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
 
     // detect bar widths based on aggregate scan
     for (int threshold = min; threshold <= max; threshold++) {
-      int barCount = scanBarsFromAggregateScan(barWidths, aggregateScan, threshold);
+      int barCount = scanBarsFromAggregateScan(barWidths, aggregateScan, aggregateLength, threshold);
       CodeString codeString = decodeBarsToCodeString(barWidths, offset, barCount, edge.getOverprintEstimate());
       codeString.setDetectionMethod(DETECTION_METHOD_AGGREGATE);
       codeStrings.add(codeString);
@@ -662,16 +844,16 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
 
     // find max confidence
     int maxConfidence = 0;
-    for (CodeString string : codeStrings)
-      if (string.getConfidence() > maxConfidence)
-        maxConfidence = string.getConfidence();
+    for (int i = 0; i < codeStrings.size(); i++)
+      if (codeStrings.get(i).getConfidence() > maxConfidence)
+        maxConfidence = codeStrings.get(i).getConfidence();
 
     // dump all but max confidence hits
-    for (Iterator<CodeString> i = codeStrings.iterator(); i.hasNext();) {
-      CodeString string = i.next();
-      if (string.getConfidence() < maxConfidence)
-        i.remove();
-    }
+    int kept = 0;
+    for (int i = 0; i < codeStrings.size(); i++)
+      if (codeStrings.get(i).getConfidence() >= maxConfidence)
+        codeStrings.set(kept++, codeStrings.get(i));
+    codeStrings.subList(kept, codeStrings.size()).clear();
 
     // condense remaining code strings
     CodeString consolidatedCodeString = consolidateCodeStrings(codeStrings);
@@ -685,7 +867,7 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
       int x0 = (int) edge.getLine().getP1().getX();
       int y0 = (int) edge.getLine().getP1().getY();
       p.moveTo(x0, y0);
-      for (int i = 0; i < aggregateScan.length; i++)
+      for (int i = 0; i < aggregateLength; i++)
         p.lineTo(x0 + (i / 2), y0 - aggregateScan[i]);
       diagnosticOptions.add(p, Marker.Feature.METHOD2);
     }
@@ -730,27 +912,28 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
    */
   protected void registerStartStopDetection(int moduleWidth, boolean isStartCode, boolean isBlack, int quietZoneWidth,
       EdgeDetection edgeDetection) {
-    boolean foundMatchingEdge = false;
-
     // select start/stop edges
     Collection<Edge> edgeCollection = isStartCode ? startEdges : stopEdges;
+    EdgeIndex edgeIndex = isStartCode ? startEdgeIndex : stopEdgeIndex;
 
-    for (Edge edge : edgeCollection)
-      if (edge.testDetection(edgeDetection)) {
-        foundMatchingEdge = true;
-        break;
-      }
-
-    if (!foundMatchingEdge)
-      edgeCollection.add(new Edge(options, moduleWidth, isStartCode, isBlack, quietZoneWidth, edgeDetection));
+    // the index finds the first edge which would accept the detection
+    Edge edge = edgeIndex.findMatch(edgeDetection);
+    if (null != edge) {
+      edge.testDetection(edgeDetection);
+      edgeIndex.update(edge);
+    } else {
+      edge = new Edge(options, moduleWidth, isStartCode, isBlack, quietZoneWidth, edgeDetection);
+      edgeCollection.add(edge);
+      edgeIndex.add(edge);
+    }
   }
 
-  protected int scanBarsFromAggregateScan(int[] barWidths, int[] aggregateScan, int threshold) {
+  protected int scanBarsFromAggregateScan(int[] barWidths, int[] aggregateScan, int aggregateLength, int threshold) {
     int barCount = 0;
     boolean black = false;
     int currentWidth = 0;
-    for (int element : aggregateScan) {
-      if ((element > threshold) != black) {
+    for (int i = 0; i < aggregateLength; i++) {
+      if ((aggregateScan[i] > threshold) != black) {
         barWidths[barCount] = currentWidth;
         currentWidth = 0;
         barCount++;
@@ -767,62 +950,13 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
    * Scan for edge detection
    * 
    * @param image
-   * @param results
-   * @param results TODO
-   * @param options
-   * @param direction
+   * @param results the list to which the results are added
+   * @return the start and stop edges registered during the scan
    */
   protected Collection<Edge> scanForEdges(BinaryGrid image, List<Result> results) {
-    Collection<Edge> detectedEdges = new LinkedList<Edge>();
-
-    int y = 0; // horizontal or vertical coordinate!
-    int height = image.getHeight();
-    Point from = new Point(0, 0);
-    Point to = new Point(image.getWidth() - 1, 0);
-
-    // set up bars
-    int barWidths[] = new int[image.getWidth() + 2];
-
-    int fineScanForwardTo = -1;
-    do {
-      // update scan vector
-      from.y = to.y = y;
-
-      if (isDiagMarkupEnabled)
-        diagnosticOptions.addLine((fineScanForwardTo > y ? Feature.SCAN : Feature.INITIAL_SCAN), from, to);
+    LinearCodeScanner.scan(Collections.singletonList(this), image, Collections.singletonList(results));
 
-      // scan the bars
-      int barCount = scanBars(image, barWidths, from, to);
-
-      // try to detect start and stop markers
-      if (detectEdges(y, barWidths, barCount, results)) {
-        if (fineScanForwardTo < y) {
-          // if we just found something, we fine-scan the area between
-          // the previous and the next regular scan interval:
-          // fine-scan backwards
-          int previousY = Math.max(0, y - linearCodeSettings.getScanInterval());
-          for (int y1 = y - 1; y1 > previousY; y1--) {
-            from.y = to.y = y1;
-
-            if (isDiagMarkupEnabled)
-              diagnosticOptions.addLine(Feature.SCAN, from, to);
-
-            barCount = scanBars(image, barWidths, from, to);
-            detectEdges(y1, barWidths, barCount, results);
-          }
-        }
-
-        // fine-scan forward
-        fineScanForwardTo = Math.min(y + linearCodeSettings.getScanInterval(), height);
-      }
-
-      if (fineScanForwardTo > y)
-        y += 1;
-      else
-        y += linearCodeSettings.getScanInterval();
-    } while (y < height);
-
-    return detectedEdges;
+    return getEdges();
   }
 
   /**
@@ -855,6 +989,17 @@ public abstract class OneDDecoder extends AbstractDecoder implements BinaryDecod
     int dx = p2.x - p1.x;
     int dy = p2.y - p1.y;
 
+    // horizontal scans can be served from packed rows without sampling each pixel
+    if (dy == 0 && dx > 0) {
+      if (image instanceof RunLengthBinaryGrid)
+        return ((RunLengthBinaryGrid) image).scanRow(p1.y, p1.x, p2.x, barWidths);
+
+      if (p1.x >= 0 && p2.x < image.getWidth()) {
+        rowBuffer = image.getRow(p1.y, rowBuffer);
+        return PackedBinaryGrid.scanRow(rowBuffer, p1.x, p2.x, barWidths);
+      }
+    }
+
     // we always start with a white bar!
     boolean isBlack = false;
     int currentBarWidth = 0;
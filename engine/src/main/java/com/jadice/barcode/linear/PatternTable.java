@@ -0,0 +1,292 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.util.Map;
+
+import com.jadice.barcode.linear.OneDDecoder.Symbol;
+
+/**
+ * A precomputed lookup structure mapping bar width patterns to {@link Symbol}s. A pattern is a
+ * sequence of <code>windowSize</code> bar widths, measured in modules and quantised to
+ * <code>1..maxModuleWidth</code>. Every quantised pattern, a <em>cell</em>, is assigned a dense
+ * index, so that the exact match is a single array access.
+ * <p>
+ * For the fuzzy fallback, two nearest-neighbour structures are precomputed per cell:
+ * <ul>
+ * <li>for un-quantised widths (least squares): the symbols which can be nearest to any point within
+ * the cell. A symbol is a candidate unless its minimum distance to the cell exceeds the maximum
+ * distance of some other symbol to the cell.
+ * <li>for quantised widths (least absolute mismatch): the nearest symbol for each bound on the
+ * mismatch of a single bar.
+ * </ul>
+ * Both return exactly the symbol a linear scan over all symbols in the order of the map the table
+ * was built from would return, including the resolution of ties.
+ * <p>
+ * Tables are immutable and can be shared among decoders and threads.
+ */
+public class PatternTable {
+  private final int windowSize;
+  private final int maxModuleWidth;
+
+  /** All symbols in the order of the map this table was built from */
+  private final Symbol symbols[];
+
+  /** The symbols by cell, <code>null</code> where no symbol matches exactly */
+  private final Symbol symbolsByCell[];
+
+  /**
+   * The least-squares candidates for cell <code>c</code> are the symbol indices
+   * <code>candidates[candidateOffsets[c]..candidateOffsets[c+1]-1]</code>.
+   */
+  private final int candidateOffsets[];
+  private final int candidates[];
+
+  /**
+   * The least absolute mismatch symbol for cell <code>c</code> if the mismatch of a single bar must
+   * not exceed <code>m</code> is at <code>nearestQuantised[c * maxModuleWidth + m]</code>.
+   */
+  private final Symbol nearestQuantised[];
+
+  /**
+   * Build a table from the given pattern map.
+   * 
+   * @param symbolsByPattern the symbols by pattern. The patterns are given as decimal numbers with
+   *          one digit per bar, i.e. as in the code tables of the decoders. Patterns which don't
+   *          have <code>windowSize</code> digits in <code>1..maxModuleWidth</code> never match
+   *          exactly, but still take part in the nearest-symbol searches.
+   * @param windowSize the number of bars in a pattern
+   * @param maxModuleWidth the maximum width of a single bar in modules
+   */
+  public PatternTable(Map<Integer, Symbol> symbolsByPattern, int windowSize, int maxModuleWidth) {
+    this.windowSize = windowSize;
+    this.maxModuleWidth = maxModuleWidth;
+
+    int cellCount = 1;
+    for (int i = 0; i < windowSize; i++)
+      cellCount *= maxModuleWidth;
+
+    symbols = new Symbol[symbolsByPattern.size()];
+    symbolsByCell = new Symbol[cellCount];
+    int n = 0;
+    for (Map.Entry<Integer, Symbol> e : symbolsByPattern.entrySet()) {
+      if (e.getValue().widths.length < windowSize)
+        throw new IllegalArgumentException("Symbol " + e.getValue() + " is shorter than the window");
+      symbols[n++] = e.getValue();
+      int cell = cellOf(e.getKey());
+      if (cell >= 0)
+        symbolsByCell[cell] = e.getValue();
+    }
+
+    candidateOffsets = new int[cellCount + 1];
+    nearestQuantised = new Symbol[cellCount * maxModuleWidth];
+
+    int cellWidths[] = new int[windowSize];
+    int cellCandidates[] = new int[symbols.length];
+    int candidateBuffer[] = new int[symbols.length * 4];
+    int candidateCount = 0;
+    for (int cell = 0; cell < cellCount; cell++) {
+      for (int i = windowSize - 1, c = cell; i >= 0; i--, c /= maxModuleWidth)
+        cellWidths[i] = c % maxModuleWidth + 1;
+
+      // least squares candidates: compare against the cell's extent
+      double minMaxDistance = Double.MAX_VALUE;
+      for (Symbol s : symbols)
+        minMaxDistance = Math.min(minMaxDistance, maxDistanceSquared(s, cellWidths));
+
+      // allow for the rounding of the float arithmetic used when searching
+      double bound = minMaxDistance * (1 + 1e-4) + 1e-4;
+      int cellCandidateCount = 0;
+      for (int i = 0; i < symbols.length; i++)
+        if (minDistanceSquared(symbols[i], cellWidths) <= bound)
+          cellCandidates[cellCandidateCount++] = i;
+
+      if (candidateCount + cellCandidateCount > candidateBuffer.length) {
+        int grown[] = new int[Math.max(candidateBuffer.length * 2, candidateCount + cellCandidateCount)];
+        System.arraycopy(candidateBuffer, 0, grown, 0, candidateCount);
+        candidateBuffer = grown;
+      }
+      System.arraycopy(cellCandidates, 0, candidateBuffer, candidateCount, cellCandidateCount);
+      candidateCount += cellCandidateCount;
+      candidateOffsets[cell + 1] = candidateCount;
+
+      // least absolute mismatch for the cell's centre, per bound on the mismatch of a single bar
+      for (int m = 0; m < maxModuleWidth; m++) {
+        int leastMismatch = Integer.MAX_VALUE;
+        for (Symbol s : symbols) {
+          int mismatch = 0;
+          int maxBarMismatch = 0;
+          for (int j = 0; j < windowSize; j++) {
+            int barMismatch = Math.abs(cellWidths[j] - s.widths[j]);
+            mismatch += barMismatch;
+            maxBarMismatch = Math.max(maxBarMismatch, barMismatch);
+          }
+          if (mismatch < leastMismatch && maxBarMismatch <= m) {
+            nearestQuantised[cell * maxModuleWidth + m] = s;
+            leastMismatch = mismatch;
+          }
+        }
+      }
+    }
+
+    candidates = new int[candidateCount];
+    System.arraycopy(candidateBuffer, 0, candidates, 0, candidateCount);
+  }
+
+  private double minDistanceSquared(Symbol s, int[] cellWidths) {
+    double d = 0;
+    for (int j = 0; j < windowSize; j++) {
+      double lo = Math.max(1, cellWidths[j] - 0.5);
+      double hi = Math.min(maxModuleWidth, cellWidths[j] + 0.5);
+      double delta = s.widths[j] < lo ? lo - s.widths[j] : s.widths[j] > hi ? s.widths[j] - hi : 0;
+      d += delta * delta;
+    }
+    return d;
+  }
+
+  private double maxDistanceSquared(Symbol s, int[] cellWidths) {
+    double d = 0;
+    for (int j = 0; j < windowSize; j++) {
+      double lo = Math.max(1, cellWidths[j] - 0.5);
+      double hi = Math.min(maxModuleWidth, cellWidths[j] + 0.5);
+      double delta = Math.max(Math.abs(s.widths[j] - lo), Math.abs(s.widths[j] - hi));
+      d += delta * delta;
+    }
+    return d;
+  }
+
+  /**
+   * Return the number of bars in a pattern.
+   * 
+   * @return the window size
+   */
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  /**
+   * Return the cell of a pattern given as a decimal number with one digit per bar.
+   * 
+   * @param pattern the pattern
+   * @return the cell or -1 if the pattern is not part of this table's pattern space
+   */
+  public int cellOf(int pattern) {
+    int cell = 0;
+    int scale = 1;
+    for (int i = 0; i < windowSize; i++) {
+      int digit = pattern % 10;
+      if (digit < 1 || digit > maxModuleWidth)
+        return -1;
+      cell += (digit - 1) * scale;
+      scale *= maxModuleWidth;
+      pattern /= 10;
+    }
+    return pattern == 0 ? cell : -1;
+  }
+
+  /**
+   * Return the cell of the given bar widths. The widths are rounded to whole modules and clamped to
+   * <code>1..maxModuleWidth</code>.
+   * 
+   * @param widths the bar widths in modules, at least <code>windowSize</code> of them
+   * @return the cell or -1 if one of the widths is not a number
+   */
+  public int cellOf(float[] widths) {
+    int cell = 0;
+    for (int i = 0; i < windowSize; i++) {
+      if (Float.isNaN(widths[i]))
+        return -1;
+      int w = Math.round(widths[i]);
+      if (w < 1)
+        w = 1;
+      else if (w > maxModuleWidth)
+        w = maxModuleWidth;
+      cell = cell * maxModuleWidth + w - 1;
+    }
+    return cell;
+  }
+
+  /**
+   * Return the symbol exactly matching the given cell.
+   * 
+   * @param cell the cell as returned by one of the <code>cellOf</code> methods
+   * @return the symbol or <code>null</code> if there is none
+   */
+  public Symbol get(int cell) {
+    return cell >= 0 ? symbolsByCell[cell] : null;
+  }
+
+  /**
+   * Return the symbol with the least sum of squared mismatches to the given (un-quantised) bar
+   * widths.
+   * 
+   * @param widths the bar widths in modules, at least <code>windowSize</code> of them
+   * @return the nearest symbol
+   */
+  public Symbol findNearest(float[] widths) {
+    int from = 0;
+    int to = symbols.length;
+    boolean useCandidates = true;
+    for (int i = 0; i < windowSize; i++)
+      if (!(widths[i] >= 1 && widths[i] <= maxModuleWidth))
+        useCandidates = false;
+    if (useCandidates) {
+      int cell = cellOf(widths);
+      from = candidateOffsets[cell];
+      to = candidateOffsets[cell + 1];
+    }
+
+    float leastMismatchSQ = Float.MAX_VALUE;
+    Symbol bestMatch = null;
+    for (int i = from; i < to; i++) {
+      Symbol s = symbols[useCandidates ? candidates[i] : i];
+
+      float mismatchSQ = 0f;
+      for (int j = 0; j < windowSize; j++) {
+        final float barMismatch = Math.abs(widths[j] - s.widths[j]);
+        mismatchSQ += barMismatch * barMismatch;
+      }
+
+      if (mismatchSQ < leastMismatchSQ) {
+        bestMatch = s;
+        leastMismatchSQ = mismatchSQ;
+      }
+    }
+
+    return bestMatch;
+  }
+
+  /**
+   * Return the symbol with the least sum of absolute mismatches to the widths of the given cell,
+   * considering only symbols where the mismatch of every single bar is less than the given
+   * tolerance.
+   * 
+   * @param cell the cell as returned by one of the <code>cellOf</code> methods
+   * @param maxBarMismatch the (exclusive) limit for the mismatch of a single bar in modules
+   * @return the nearest symbol or <code>null</code> if no symbol is within the tolerance
+   */
+  public Symbol findNearestQuantised(int cell, float maxBarMismatch) {
+    // the mismatch between quantised widths is integral
+    int m = (int) Math.ceil(maxBarMismatch) - 1;
+    if (cell < 0 || m < 0)
+      return null;
+    return nearestQuantised[cell * maxModuleWidth + Math.min(m, maxModuleWidth - 1)];
+  }
+}
@@ -28,6 +28,7 @@ import com.jadice.barcode.Settings;
 import com.jadice.barcode.Symbology;
 import com.jadice.barcode.linear.LinearCodeSettings;
 import com.jadice.barcode.linear.OneDDecoder;
+import com.jadice.barcode.linear.PatternTable;
 
 /**
  * A detector for Code 128 bar codes.
@@ -168,20 +169,27 @@ public class Code128Decoder extends OneDDecoder {
   /** The code table to decode code indices into characters. */
   private static final String CODE_TABLE_B = " !\"#$%&'()*+,-./0123456789:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_'abcdefghijklmnopqrstuvwxyz{|}~";
 
-  private static final Map<Integer, Symbol> symbolsByPattern = new HashMap<Integer, Symbol>();
   private static final List<Symbol> symbolByValue = new ArrayList<Symbol>(PATTERNS.length);
 
-  // build/initialize the node tree
+  /** The code geometry descriptor */
+  private static CodeGeometry geometry = new CodeGeometry(6, 7, 6, 11, 13, 11, 10, true);
+
+  /** The symbols by pattern */
+  private static final PatternTable symbolTable;
+
+  // build/initialize the symbol table
   static {
+    Map<Integer, Symbol> symbolsByPattern = new HashMap<Integer, Symbol>();
     for (int i = 0; i < PATTERNS.length; i++) {
       final Symbol s = new Symbol(splitCodeString(PATTERNS[i], 7), i);
       symbolsByPattern.put(PATTERNS[i], s);
       symbolByValue.add(s);
     }
+    symbolTable = new PatternTable(symbolsByPattern, geometry.startCodeWindowSize, 4);
   }
 
-  /** The code geometry descriptor */
-  private static CodeGeometry geometry = new CodeGeometry(6, 7, 6, 11, 13, 11, 10, true);
+  /** Scratch space for the relative widths of the bars in a window */
+  private final float relativeBarWidths[] = new float[geometry.stopCodeWindowSize];
 
   /*
    * @see com.levigo.barcode.LinearCode#getCodeGeometry()
@@ -191,6 +199,14 @@ public class Code128Decoder extends OneDDecoder {
     return geometry;
   }
 
+  /*
+   * @see com.jadice.barcode.linear.OneDDecoder#getCodeAlphabetSize()
+   */
+  @Override
+  protected int getCodeAlphabetSize() {
+    return STOP + 1;
+  }
+
   /*
    * @see com.levigo.barcode.LinearCode#decodeCodeString(com.levigo.barcode.AbstractCode
    * .CodeString)
@@ -328,9 +344,6 @@ public class Code128Decoder extends OneDDecoder {
       float overprintEstimate) {
     float pixelsPerModule = (float) sumWidths(barWidths, offset, windowSize, 1) / (float) totalCodeModules;
 
-    float relativeBarWidths[] = new float[windowSize];
-
-    int detectedCode = 0;
     for (int i = 0; i < windowSize; i++) {
       float relativeBarWidth = barWidths[offset + i] / pixelsPerModule;
 
@@ -342,41 +355,18 @@ public class Code128Decoder extends OneDDecoder {
       relativeBarWidth = clamp(relativeBarWidth, 1, 4);
 
       relativeBarWidths[i] = relativeBarWidth;
-
-      detectedCode *= 10;
-      detectedCode += Math.round(relativeBarWidth);
     }
 
-    if (symbolsByPattern.containsKey(detectedCode))
-      return symbolsByPattern.get(detectedCode);
+    Symbol match = symbolTable.get(symbolTable.cellOf(relativeBarWidths));
+    if (null != match)
+      return match;
 
     if (!tryHard)
       return null;
 
-    float leastMismatchSQ = Float.MAX_VALUE;
-    Symbol bestMatch = null;
-    for (Map.Entry<Integer, Symbol> e : symbolsByPattern.entrySet()) {
-      Symbol s = e.getValue();
-
-      // calculate mismatch for this code
-      float mismatchSQ = 0f;
-      float maxBarMismatchSQ = 0f;
-      for (int j = 0; j < windowSize; j++) {
-        int w = s.widths[j];
-        final float barMismatch = Math.abs(relativeBarWidths[j] - w);
-        mismatchSQ += barMismatch * barMismatch;
-        maxBarMismatchSQ = Math.max(maxBarMismatchSQ, barMismatch);
-      }
-
-      if (mismatchSQ < leastMismatchSQ) {
-        bestMatch = s;
-        leastMismatchSQ = mismatchSQ;
-      }
-    }
-
     // if(maxBarMismatchSQ > 1 + options.getBarWidthTolerance() / 100f)
 
-    return bestMatch;
+    return symbolTable.findNearest(relativeBarWidths);
   }
 
   /**
@@ -391,8 +381,6 @@ public class Code128Decoder extends OneDDecoder {
     float pixelsPerModule = (float) sumWidths(barWidths, offset, geometry.startCodeWindowSize, 1)
         / (float) geometry.moduleWidthStart;
 
-    float relativeBarWidths[] = new float[geometry.startCodeWindowSize];
-
     for (int i = 0; i < geometry.startCodeWindowSize; i++) {
       float relativeBarWidth = clamp(barWidths[offset + i] / pixelsPerModule, 1, 4);
 
@@ -428,7 +416,7 @@ public class Code128Decoder extends OneDDecoder {
    */
   @Override
   protected CodeString decodeBarsToCodeString(int[] barWidths, int offset, int barCount, float overprintEstimate) {
-    CodeString result = new CodeString();
+    CodeString result = createCodeString();
     int confidence = 0;
 
     // ok, can we see a start code right at the start?
@@ -501,7 +489,7 @@ public class Code128Decoder extends OneDDecoder {
       return null;
 
     int stopCodeWidth = sumWidths(barWidths, offset, geometry.stopCodeWindowSize, 1);
-    EdgeDetection edgeDetection = new EdgeDetection(x + stopCodeWidth - 1, y, stopCodeWidth, overprintEstimate);
+    EdgeDetection edgeDetection = createEdgeDetection(x + stopCodeWidth - 1, y, stopCodeWidth, overprintEstimate);
 
     return edgeDetection;
   }
@@ -546,7 +534,7 @@ public class Code128Decoder extends OneDDecoder {
         overprintEstimate);
 
     if (s == guess)
-      return new EdgeDetection(x, y, //
+      return createEdgeDetection(x, y, //
           startCodeWidth,
           // update overprint estimate to be more precise
           estimateOverprint(barWidths, offset, geometry.startCodeWindowSize, s));
@@ -20,11 +20,14 @@
 package com.jadice.barcode.linear.c39;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import com.jadice.barcode.BaseSettings;
 import com.jadice.barcode.Symbology;
 import com.jadice.barcode.linear.LinearCodeSettings;
 import com.jadice.barcode.linear.OneDDecoder;
+import com.jadice.barcode.linear.PatternTable;
 
 /**
  * A detector for Code 39 bar codes.
@@ -34,6 +37,21 @@ public class Code39Decoder extends OneDDecoder {
   /** The code geometry descriptor */
   private static final CodeGeometry geometry = new CodeGeometry(9, 9, 9, 12, 12, 12, 10, true);
 
+  /** The symbols by pattern. The symbol values are the characters. */
+  private static final PatternTable symbolTable;
+
+  // build/initialize the symbol table
+  static {
+    Map<Integer, Symbol> symbolsByPattern = new HashMap<Integer, Symbol>();
+    for (Map.Entry<Integer, Character> e : Code39Constants.SYMBOLSBYPATTERN.entrySet())
+      symbolsByPattern.put(e.getKey(), new Symbol(splitCodeString(e.getKey(), 9), e.getValue()));
+    symbolTable = new PatternTable(symbolsByPattern, 9, 2);
+  }
+
+  /** Scratch space for the element widths classified by classifyElements */
+  private final int width[] = new int[5];
+  private final int sortedWidths[] = new int[5];
+
   @Override
   public Symbology getSymbology() {
     return new Code39();
@@ -100,17 +118,16 @@ public class Code39Decoder extends OneDDecoder {
 
     int w = sumWidths(widths, offset, 9, 1);
 
-    return new EdgeDetection(x + (isStop ? w : 0), y, w, overprint);
+    return createEdgeDetection(x + (isStop ? w : 0), y, w, overprint);
   }
 
   private int classifyElements(int[] barWidths, int offset, int narrow, int wide) {
-    int width[] = new int[narrow + wide];
-    for (int i = 0; i < width.length; i++)
+    int elements = narrow + wide;
+    for (int i = 0; i < elements; i++)
       width[i] = barWidths[offset + 2 * i];
 
-    int sortedWidths[] = new int[width.length];
-    System.arraycopy(width, 0, sortedWidths, 0, width.length);
-    Arrays.sort(sortedWidths);
+    System.arraycopy(width, 0, sortedWidths, 0, elements);
+    Arrays.sort(sortedWidths, 0, elements);
 
     // check whether we have the correct wide/narrow elements
     if (!barRatioOk(sortedWidths[0], sortedWidths[narrow - 1], 1, 1, false, 1))
@@ -145,7 +162,7 @@ public class Code39Decoder extends OneDDecoder {
 
   @Override
   protected CodeString decodeBarsToCodeString(int[] widths, int offset, int barCount, float overprintEstimate) {
-    CodeString result = new CodeString();
+    CodeString result = createCodeString();
     int confidence = 0;
 
     // ok, did we find a start code?
@@ -217,8 +234,8 @@ public class Code39Decoder extends OneDDecoder {
       }
     }
 
-    Character c = Code39Constants.SYMBOLSBYPATTERN.get(pattern);
+    Symbol s = symbolTable.get(symbolTable.cellOf(pattern));
 
-    return (char) (null != c ? c : -1);
+    return (char) (null != s ? s.value : -1);
   }
 }
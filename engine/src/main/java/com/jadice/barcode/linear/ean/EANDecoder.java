@@ -27,6 +27,7 @@ import com.jadice.barcode.Settings;
 import com.jadice.barcode.Symbology;
 import com.jadice.barcode.linear.LinearCodeSettings;
 import com.jadice.barcode.linear.OneDDecoder;
+import com.jadice.barcode.linear.PatternTable;
 
 /**
  * A detector for UPC-A and EAN Codes.
@@ -71,10 +72,12 @@ public class EANDecoder extends OneDDecoder {
 
   private static int PARITY_TABLE[] = new int[32];
 
-  private static final Map<Integer, Symbol> symbolsByPattern = new HashMap<Integer, Symbol>();
+  /** The symbols by pattern */
+  private static final PatternTable symbolTable;
 
-  // build/initialize the node tree
+  // build/initialize the symbol table
   static {
+    Map<Integer, Symbol> symbolsByPattern = new HashMap<Integer, Symbol>();
     for (int i = 0; i < PATTERNS.length; i++) {
       final int[] w = splitCodeString(PATTERNS[i], 4);
       // even parity
@@ -82,6 +85,7 @@ public class EANDecoder extends OneDDecoder {
       // odd parity
       symbolsByPattern.put(PATTERNS[i], new Symbol(reverse(w), i + 10));
     }
+    symbolTable = new PatternTable(symbolsByPattern, 4, 4);
 
     // init parity table
     Arrays.fill(PARITY_TABLE, -1);
@@ -108,6 +112,9 @@ public class EANDecoder extends OneDDecoder {
   /** The code geometry descriptor */
   private static CodeGeometry geometry = new CodeGeometry(3, 3, 4, 3, 3, 7, 9, true);
 
+  /** Scratch space for the relative widths of the bars in a window */
+  private final float relativeBarWidths[] = new float[geometry.dataCodeWindowSize];
+
   /*
    * @see com.levigo.barcode.LinearCode#getCodeGeometry()
    */
@@ -116,6 +123,14 @@ public class EANDecoder extends OneDDecoder {
     return geometry;
   }
 
+  /*
+   * @see com.jadice.barcode.linear.OneDDecoder#getCodeAlphabetSize()
+   */
+  @Override
+  protected int getCodeAlphabetSize() {
+    return START + 1;
+  }
+
   private static int[] reverse(int[] w) {
     int[] r = new int[w.length];
     for (int i = 0; i < w.length; i++)
@@ -156,9 +171,6 @@ public class EANDecoder extends OneDDecoder {
       float overprintEstimate) {
     float pixelsPerModule = (float) sumWidths(barWidths, offset, windowSize, 1) / (float) totalCodeModules;
 
-    float relativeBarWidths[] = new float[windowSize];
-
-    int detectedCode = 0;
     for (int i = 0; i < windowSize; i++) {
       float relativeBarWidth = barWidths[offset + i] / pixelsPerModule;
 
@@ -175,39 +187,17 @@ public class EANDecoder extends OneDDecoder {
         relativeBarWidth = 4;
 
       relativeBarWidths[i] = relativeBarWidth;
-
-      detectedCode *= 10;
-      detectedCode += relativeBarWidth;
     }
 
-    if (symbolsByPattern.containsKey(detectedCode))
-      return symbolsByPattern.get(detectedCode);
+    int cell = symbolTable.cellOf(relativeBarWidths);
+    Symbol match = symbolTable.get(cell);
+    if (null != match)
+      return match;
 
     if (!tryHard)
       return null;
 
-    float leastMismatch = Float.MAX_VALUE;
-    Symbol bestMatch = null;
-    for (Map.Entry<Integer, Symbol> e : symbolsByPattern.entrySet()) {
-      Symbol s = e.getValue();
-
-      // calculate mismatch for this code
-      float mismatch = 0f;
-      float maxBarMismatch = 0f;
-      for (int j = 0; j < windowSize; j++) {
-        int w = s.widths[j];
-        final float barMismatch = Math.abs(relativeBarWidths[j] - w);
-        mismatch += barMismatch;
-        maxBarMismatch = Math.max(maxBarMismatch, barMismatch);
-      }
-
-      if (mismatch < leastMismatch && maxBarMismatch < linearCodeSettings.getBarWidthTolerance() / 100f) {
-        bestMatch = s;
-        leastMismatch = mismatch;
-      }
-    }
-
-    return bestMatch;
+    return symbolTable.findNearestQuantised(cell, linearCodeSettings.getBarWidthTolerance() / 100f);
   }
 
   /*
@@ -215,7 +205,7 @@ public class EANDecoder extends OneDDecoder {
    */
   @Override
   protected CodeString decodeBarsToCodeString(int[] barWidths, int offset, int barCount, float overprintEstimate) {
-    CodeString result = new CodeString();
+    CodeString result = createCodeString();
     int confidence = 0;
 
     int symbolPosition = 0;
@@ -329,7 +319,7 @@ public class EANDecoder extends OneDDecoder {
     if (!within(overprintEstimate, 0f, baseSettings.getOverprintTolerance()))
       return null;
 
-    return new EdgeDetection(x + totalWidthInWindow, y, totalWidthInWindow, overprintEstimate);
+    return createEdgeDetection(x + totalWidthInWindow, y, totalWidthInWindow, overprintEstimate);
   }
 
   /*
@@ -369,7 +359,7 @@ public class EANDecoder extends OneDDecoder {
         geometry.moduleWidthData, true, 0f) == null)
       return null;
 
-    return new EdgeDetection(x, y, widthInWindow, overprintEstimate);
+    return createEdgeDetection(x, y, widthInWindow, overprintEstimate);
   }
 
   /**
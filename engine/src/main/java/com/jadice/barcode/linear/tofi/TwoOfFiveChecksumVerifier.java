@@ -23,7 +23,8 @@ import com.jadice.barcode.AbstractDecoder.CodeString;
 import com.jadice.barcode.checksum.ChecksumVerifier;
 
 /**
- * A default implementation for a 2 of 5 checksum verifier.
+ * A default implementation for a 2 of 5 checksum verifier. The code values are the digits, possibly
+ * followed by a stop code, whose value is not a digit. The last digit is the check digit.
  */
 public class TwoOfFiveChecksumVerifier implements ChecksumVerifier {
 
@@ -31,8 +32,15 @@ public class TwoOfFiveChecksumVerifier implements ChecksumVerifier {
   public boolean verifyChecksum(CodeString result) {
     final int[] codes = result.getCodes();
 
-    int calculatedChecksum = calculateChecksum(codes);
-    int checksum = codes[codes.length - 1];
+    // skip the stop code
+    int length = codes.length;
+    if (length > 0 && (codes[length - 1] < 0 || codes[length - 1] > 9))
+      length--;
+    if (length < 2)
+      return false;
+
+    int calculatedChecksum = calculateChecksum(codes, length - 1);
+    int checksum = codes[length - 1];
 
     // calculated checksum matches appended checksum
     if (calculatedChecksum == checksum) {
@@ -43,10 +51,14 @@ public class TwoOfFiveChecksumVerifier implements ChecksumVerifier {
     return false;
   }
 
-  private int calculateChecksum(int[] codes) {
+  /**
+   * Calculate the check digit of the given number of digits, weighting them by 3 and 1 alternately,
+   * starting with the one next to the check digit.
+   */
+  private int calculateChecksum(int[] codes, int digits) {
     int checksum = 0;
-    for (int i = 0; i < codes.length - 1; i++)
-      checksum += codes[i] * (i % 2 != 0 ? 3 : 1);
-    return checksum % 10;
+    for (int i = 0; i < digits; i++)
+      checksum += codes[i] * ((digits - i) % 2 != 0 ? 3 : 1);
+    return (10 - checksum % 10) % 10;
   }
 }
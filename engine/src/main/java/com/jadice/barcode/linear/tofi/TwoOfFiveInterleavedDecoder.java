@@ -27,6 +27,7 @@ import java.util.Map;
 import com.jadice.barcode.Settings;
 import com.jadice.barcode.Symbology;
 import com.jadice.barcode.linear.OneDDecoder;
+import com.jadice.barcode.linear.PatternTable;
 
 /**
  * A detector implementatopn for a 2-of-5 interleaved code. Could be easily extended to cover 2-of-5
@@ -51,46 +52,51 @@ public class TwoOfFiveInterleavedDecoder extends OneDDecoder {
       12121, // 9
   };
 
-  /** The start code pattern */
-  private static final int STOP = 211;
-
-  /** The stop code pattern */
-  private static final int START = 1111;
+  /**
+   * The code value marking a detected stop code, next to the digits. Detected start codes aren't
+   * stored, as every code string begins with one.
+   */
+  private static final int STOP = 10;
 
-  private static final Map<Integer, Symbol> symbolsByPattern = new HashMap<Integer, Symbol>();
   private static final List<Symbol> symbolByValue = new ArrayList<Symbol>(PATTERNS.length);
 
-  // build/initialize the node tree
+  /** The symbols by pattern */
+  private static final PatternTable symbolTable;
+
+  // build/initialize the symbol table
   static {
+    Map<Integer, Symbol> symbolsByPattern = new HashMap<Integer, Symbol>();
     for (int i = 0; i < PATTERNS.length; i++) {
       final Symbol s = new Symbol(splitCodeString(PATTERNS[i], 5), i);
       symbolsByPattern.put(PATTERNS[i], s);
       symbolByValue.add(s);
     }
+    symbolTable = new PatternTable(symbolsByPattern, 5, 2);
   }
 
   /** The code geometry descriptor */
   private static CodeGeometry geometry = new CodeGeometry(4, 3, 5, 4, 4, 7, 7, false);
 
+  /** Scratch space for the relative widths of the bars in a window */
+  private final float relativeBarWidths[] = new float[geometry.dataCodeWindowSize];
+
   /*
    * @see com.levigo.barcode.LinearCode#decodeBarsToCodeString(int[], int)
    */
   @Override
   protected CodeString decodeBarsToCodeString(int[] barWidths, int offset, int barCount, float overprintEstimate) {
-    CodeString result = new CodeString();
+    CodeString result = createCodeString();
     int confidence = 0;
 
     // ok, did we find a start code?
     if (offset + geometry.startCodeWindowSize < barCount && detectStart(barWidths, offset, 0, 0, 0) != null) {
       confidence++; // a start code is, well, a good start :-)
 
-      // store start code
-      result.add(START);
-
       offset += geometry.startCodeWindowSize;
 
       // Step 2: detect codes (payload data)
       final int dataStartOffset = offset;
+      int digits = 0;
       while (offset + geometry.stopCodeWindowSize <= barCount) {
         boolean isBlack = ((offset - dataStartOffset) & 1) == 0;
 
@@ -104,6 +110,7 @@ public class TwoOfFiveInterleavedDecoder extends OneDDecoder {
             int code = symbol.value;
             confidence++;
             result.add(code);
+            digits++;
           } else
             confidence--;
 
@@ -123,7 +130,7 @@ public class TwoOfFiveInterleavedDecoder extends OneDDecoder {
       }
 
       // the number of digits has to be even for 2I0f5
-      if ((result.size() & 1) == 0)
+      if ((digits & 1) == 0)
         confidence += 4;
 
       if (verifyChecksum(result))
@@ -163,9 +170,6 @@ public class TwoOfFiveInterleavedDecoder extends OneDDecoder {
 
       // giant lookup/state machine for characters
       switch (code){
-        case START :
-          break;
-
         case STOP :
           if (i != codes.length - 1)
             decodedData.append('\uffff');
@@ -193,9 +197,6 @@ public class TwoOfFiveInterleavedDecoder extends OneDDecoder {
 
     float pixelsPerModule = (float) totalWidthInWindow / (float) totalCodeModules;
 
-    float relativeBarWidths[] = new float[windowSize];
-
-    int detectedCode = 0;
     for (int i = 0, p = offset; i < windowSize; i++, p += 2) {
       float relativeBarWidth = barWidths[p] / pixelsPerModule;
       relativeBarWidth = Math.round(relativeBarWidth);
@@ -206,39 +207,17 @@ public class TwoOfFiveInterleavedDecoder extends OneDDecoder {
         relativeBarWidth = 2;
 
       relativeBarWidths[i] = relativeBarWidth;
-
-      detectedCode *= 10;
-      detectedCode += relativeBarWidth;
     }
 
-    if (symbolsByPattern.containsKey(detectedCode))
-      return symbolsByPattern.get(detectedCode);
+    int cell = symbolTable.cellOf(relativeBarWidths);
+    Symbol match = symbolTable.get(cell);
+    if (null != match)
+      return match;
 
     if (!tryHard)
       return null;
 
-    float leastMismatch = Float.MAX_VALUE;
-    Symbol bestMatch = null;
-    for (Map.Entry<Integer, Symbol> e : symbolsByPattern.entrySet()) {
-      Symbol s = e.getValue();
-
-      // calculate mismatch for this code
-      float mismatch = 0f;
-      float maxBarMismatch = 0f;
-      for (int j = 0; j < geometry.dataCodeWindowSize * 2 / 2; j++) {
-        int w = s.widths[j];
-        final float barMismatch = Math.abs(relativeBarWidths[j] - w);
-        mismatch += barMismatch;
-        maxBarMismatch = Math.max(maxBarMismatch, barMismatch);
-      }
-
-      if (mismatch < leastMismatch && maxBarMismatch < linearCodeSettings.getBarWidthTolerance() / 100f) {
-        bestMatch = s;
-        leastMismatch = mismatch;
-      }
-    }
-
-    return bestMatch;
+    return symbolTable.findNearestQuantised(cell, linearCodeSettings.getBarWidthTolerance() / 100f);
   }
 
   /*
@@ -292,7 +271,7 @@ public class TwoOfFiveInterleavedDecoder extends OneDDecoder {
     float overprintEstimate = (nextDataBlackTotal - nextDataWhiteTotal) / pixelsPerUnit / 7;
 
     int startCodeWidth = sumWidths(barWidths, offset, geometry.startCodeWindowSize, 1);
-    return new EdgeDetection(x, y, startCodeWidth, overprintEstimate);
+    return createEdgeDetection(x, y, startCodeWidth, overprintEstimate);
   }
 
   // private int detectNonInterleavedCode(int[] barWidths, int offset,
@@ -370,7 +349,7 @@ public class TwoOfFiveInterleavedDecoder extends OneDDecoder {
     float overprintEstimate = (prevDataBlackTotal - prevDataWhiteTotal) / pixelsPerUnit / 7;
 
     int stopCodeWidth = stopBlackTotal + stopWhiteTotal;
-    return new EdgeDetection(x + stopCodeWidth - 1, y, stopCodeWidth, overprintEstimate);
+    return createEdgeDetection(x + stopCodeWidth - 1, y, stopCodeWidth, overprintEstimate);
   }
 
   /*
@@ -381,6 +360,14 @@ public class TwoOfFiveInterleavedDecoder extends OneDDecoder {
     return geometry;
   }
 
+  /*
+   * @see com.jadice.barcode.linear.OneDDecoder#getCodeAlphabetSize()
+   */
+  @Override
+  protected int getCodeAlphabetSize() {
+    return STOP + 1;
+  }
+
   public Class<? extends Settings> getSettingsClass() {
     return Code2of5Settings.class;
   }
@@ -26,10 +26,19 @@
  */
 package com.jadice.barcode.twod.dmtx;
 
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
+import com.jadice.barcode.BaseSettings;
+import com.jadice.barcode.DiagnosticSettings;
 import com.jadice.barcode.LuminanceDecoder;
 import com.jadice.barcode.Options;
 import com.jadice.barcode.Result;
@@ -42,6 +51,15 @@ public class DatamatrixDecoder implements LuminanceDecoder {
   public static final int DmtxUndefined = -1;
   static final double DmtxAlmostZero = 0.000001;
 
+  /** The minimum width and height of the tiles searched in parallel */
+  private static final int MIN_TILE_SIZE = 64;
+
+  /**
+   * The margin by which the cache window of a tile's worker exceeds the tile. Symbols reaching
+   * further beyond the tile are left to a search with a cache covering the whole image.
+   */
+  private static final int TILE_MARGIN = 128;
+
   @Override
   public void setOptions(Options options) {
     this.options = options;
@@ -55,23 +73,160 @@ public class DatamatrixDecoder implements LuminanceDecoder {
   @Override
   public Collection<Result> detect(LuminanceGrid grid) {
     // FIXME: support more options
+    DatamatrixSettings settings = options.getSettings(DatamatrixSettings.class);
     ScanGrid scanGrid = new ScanGrid(grid, options);
-    scanGrid.setMinExtent(options.getSettings(DatamatrixSettings.class).getMinExtent());
+    scanGrid.setMinExtent(settings.getMinExtent());
 
     Decode dec = new Decode(grid, scanGrid, 1, options);
+    scanGrid.setExclusion(dec);
 
+    // the diagnostic markup can't be collected concurrently
+    int tiles = Math.min(settings.getSearchTiles(), Math.min(dec.getWidth(), dec.getHeight()) / MIN_TILE_SIZE);
+    if (tiles > 1 && !options.getSettings(DiagnosticSettings.class).isMarkupEnabled())
+      return detectTiled(dec, tiles, settings.getMinExtent());
+
+    return detect(dec);
+  }
 
+  /**
+   * Find and decode the regions at the scan locations of the given decode. A region whose center
+   * lies within a symbol which has already been decoded by another worker is skipped before it is
+   * decoded.
+   */
+  private List<Result> detect(Decode dec) {
     List<Result> r = new ArrayList<Result>();
     Region reg;
     while ((reg = dec.findNextRegion()) != null) {
+      if (dec.isDecoded(reg.getCenter())) {
+        // keep this worker from detecting the symbol again
+        reg.markDecoded();
+        continue;
+      }
+
       Message msg = reg.decodeMatrixRegion(-1);
       if (msg != null) {
         String txt = new String(msg.output, 0, msg.outputIdx);
         r.add(new Result(getSymbology(), reg.getShape(), txt, true, true, reg.getBottomAngle()));
-        break; // FIXME: support finding more than one code
-      }
+      } else
+        dec.deferIfClipped();
     }
 
     return r;
   }
+
+  /**
+   * Search the image in a grid of tiles &times; tiles tiles, each by a worker of the given decode,
+   * concurrently if the {@link BaseSettings} supply an executor. The calling thread searches the
+   * tiles which haven't been picked up by the executor, so that the search completes even if all of
+   * the executor's threads are busy.
+   * 
+   * Workers skip the symbols decoded by others, but two workers may still decode the same symbol at
+   * the same time. Of those, only the result of the first tile is kept.
+   * 
+   * Each worker keeps the flags of its trails for its tile and a margin around it only. The
+   * locations whose trails reach beyond that are searched again afterwards, on the flags of the
+   * given decode, which by then mark the symbols decoded by all workers.
+   */
+  private List<Result> detectTiled(Decode dec, int tiles, int minExtent) {
+    int width = dec.getWidth();
+    int height = dec.getHeight();
+
+    List<Decode> workers = new ArrayList<Decode>(tiles * tiles);
+    List<FutureTask<List<Result>>> tasks = new ArrayList<FutureTask<List<Result>>>(tiles * tiles);
+    for (int ty = 0; ty < tiles; ty++)
+      for (int tx = 0; tx < tiles; tx++) {
+        int x0 = tx * width / tiles;
+        int y0 = ty * height / tiles;
+        Rectangle bounds = new Rectangle(x0, y0, (tx + 1) * width / tiles - x0, (ty + 1) * height / tiles - y0);
+
+        ScanGrid tileGrid = new ScanGrid(bounds, options);
+        tileGrid.setMinExtent(minExtent);
+        Rectangle window = new Rectangle(bounds);
+        window.grow(TILE_MARGIN, TILE_MARGIN);
+        final Decode worker = dec.createWorker(tileGrid, window);
+        tileGrid.setExclusion(worker);
+        workers.add(worker);
+
+        tasks.add(new FutureTask<List<Result>>(new Callable<List<Result>>() {
+          @Override
+          public List<Result> call() {
+            return detect(worker);
+          }
+        }));
+      }
+
+    Executor executor = options.getSettings(BaseSettings.class).getExecutor();
+    if (executor != null)
+      for (FutureTask<List<Result>> task : tasks.subList(1, tasks.size()))
+        executor.execute(task);
+
+    // a task which has already been started by the executor won't run again
+    for (FutureTask<List<Result>> task : tasks)
+      task.run();
+
+    List<Result> r = new ArrayList<Result>();
+    for (FutureTask<List<Result>> task : tasks)
+      for (Result result : await(task))
+        if (!isDuplicate(result, r))
+          r.add(result);
+
+    List<PixelLocation> deferred = new ArrayList<PixelLocation>();
+    for (Decode worker : workers)
+      deferred.addAll(worker.getDeferredLocations());
+    if (!deferred.isEmpty())
+      for (Result result : detect(dec.continueWith(new LocationList(deferred))))
+        if (!isDuplicate(result, r))
+          r.add(result);
+
+    return r;
+  }
+
+  /**
+   * A scan strategy visiting the given locations in order.
+   */
+  private static class LocationList implements ScanStrategy {
+    private final Iterator<PixelLocation> locations;
+
+    LocationList(List<PixelLocation> locations) {
+      this.locations = locations.iterator();
+    }
+
+    @Override
+    public boolean getNextScanLocation(PixelLocation p) {
+      if (!locations.hasNext())
+        return false;
+
+      PixelLocation next = locations.next();
+      p.x = next.x;
+      p.y = next.y;
+      return true;
+    }
+  }
+
+  /**
+   * Return whether the center of the given result lies within one of the other results.
+   */
+  private static boolean isDuplicate(Result result, List<Result> others) {
+    Rectangle2D bounds = result.getShape().getBounds2D();
+    for (Result other : others)
+      if (other.getShape().contains(bounds.getCenterX(), bounds.getCenterY()))
+        return true;
+    return false;
+  }
+
+  private static List<Result> await(FutureTask<List<Result>> task) {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for a tile to be searched", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw new RuntimeException("Searching a tile failed", cause);
+    }
+  }
 }
@@ -31,6 +31,14 @@ import com.jadice.barcode.Settings;
 public class DatamatrixSettings implements Settings {
   private int minExtent;
 
+  /**
+   * The number of tiles along each axis into which an image is split for searching regions in
+   * parallel.
+   * 
+   * Default: 1
+   */
+  private int searchTiles = 1;
+
   public int getMinExtent() {
     return minExtent;
   }
@@ -38,4 +46,30 @@ public class DatamatrixSettings implements Settings {
   public void setMinExtent(int minExtent) {
     this.minExtent = minExtent;
   }
+
+  /**
+   * Set the number of tiles along each axis into which an image is split for searching regions.
+   * The tiles are searched concurrently, using the executor of the
+   * {@link com.jadice.barcode.BaseSettings}, each by a worker of its own. This reduces the latency
+   * for pages carrying many symbols. Without an executor, the tiles are searched one after the
+   * other. A value of 1 searches the image as a whole.
+   * 
+   * Default: 1
+   * 
+   * @param searchTiles the number of tiles along each axis, at least 1
+   */
+  public void setSearchTiles(int searchTiles) {
+    if (searchTiles < 1)
+      throw new IllegalArgumentException("The number of tiles must be at least 1");
+    this.searchTiles = searchTiles;
+  }
+
+  /**
+   * Return the number of tiles along each axis into which an image is split for searching regions.
+   * 
+   * @return the number of tiles
+   */
+  public int getSearchTiles() {
+    return searchTiles;
+  }
 }
@@ -29,70 +29,19 @@ package com.jadice.barcode.twod.dmtx;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.jadice.barcode.BaseSettings;
+import com.jadice.barcode.Deadline;
 import com.jadice.barcode.Options;
 import com.jadice.barcode.grid.Grid;
 import com.jadice.barcode.grid.LuminanceGrid;
 
 public class Decode {
-  public class Cache {
-    private final int width;
-    private final int height;
-    private int x;
-    private int y;
-
-    Cache(int x, int y) throws OutOfRangeException {
-      width = getWidth();
-      height = getHeight();
-      seek(x, y);
-    }
-
-    public boolean isValid() throws OutOfRangeException {
-      return x >= 0 && x < width && y >= 0 && y < height;
-    }
-
-    public void seek(int x, int y) throws OutOfRangeException {
-      this.x = x;
-      this.y = y;
-
-    }
-
-    public int get() {
-      if (!isValid())
-        throw new OutOfRangeException("Cache location invalid");
-      return cache[y * width + x] & 0xff;
-    }
-
-    public void setTo(int value) {
-      if (!isValid())
-        throw new OutOfRangeException("Cache location invalid");
-      cache[y * width + x] = (byte) value;
-    }
-
-    public void set(int value) {
-      if (!isValid())
-        throw new OutOfRangeException("Cache location invalid");
-      cache[y * width + x] |= (byte) value;
-    }
-
-    public void reset() {
-      if (!isValid())
-        throw new OutOfRangeException("Cache location invalid");
-      cache[y * width + x] = 0;
-    }
-
-    public void clear(int value) {
-      if (!isValid())
-        throw new OutOfRangeException("Cache location invalid");
-      cache[y * width + x] &= (byte) ~value;
-    }
-
-    public boolean isAnySet(int value) {
-      return (cache[y * width + x] & (byte) value) != 0;
-    }
-  }
-
-  private static int timeout;
-
   /* Options */
   private int edgeMin;
   private int edgeMax;
@@ -106,12 +55,71 @@ public class Decode {
   private final int yMin;
   final int yMax;
   private final int scale;
+  private final int width;
+  private final int height;
+
+  /**
+   * The width of the white border around the luminance plane. It covers the neighbourhood sampled
+   * by {@link Region#getPointFlow(int, PixelLocation, int)}, so that the plane can be read without
+   * bounds checks for any location within the image.
+   */
+  static final int PLANE_PADDING = 1;
+
+  /*
+   * The scaled and vertically flipped luminance of the image, one unsigned byte per pixel,
+   * surrounded by PLANE_PADDING white pixels. It is read once, so that the region finder doesn't
+   * have to go through the grid for every sample. With a scale above 1, the plane may hold a column
+   * and a row more than the image: the samples taken from the remainder of the grid.
+   */
+  private final byte plane[];
+  private final int planeWidth;
+  private final int planeHeight;
+  private final int planeStride;
+
+  /** The offsets of the neighbours Region.dmtxPatternX/Y of a pixel in the plane */
+  final int patternOffsets[] = new int[8];
+
+  /*
+   * The flags of the pixels within the cache window, surrounded by PLANE_PADDING pixels whose flags
+   * are never set. vaiiiooo: 0x80 v = visited bit, 0x40 a = assigned bit, 0x38 u = 3 bits pointing
+   * upstream, 0x07 d = 3 bits pointing downstream. The window covers the whole image, except for
+   * the workers created with createWorker(), whose trails end at the border of their window.
+   */
+  final byte cache[];
+  private final Rectangle cacheWindow;
+  private final int cacheStride;
+
+  /** The offsets of the neighbours Region.dmtxPatternX/Y of a pixel in the cache */
+  final int cacheOffsets[] = new int[8];
+
+  /*
+   * For a worker, the decode which created it. The workers mark the symbols they decode as visited
+   * in the creator's cache, which is otherwise left alone while they search. A flag is only ever set
+   * to 0x80, so that the workers can write it without synchronization. A worker which misses another
+   * one's write merely detects a symbol twice, which the caller has to sort out.
+   */
+  private final Decode creator;
+
+  /** Whether a trail has been cut short by the border of the cache window since the last scan */
+  private boolean clipped;
+
+  /** The bounds of the continuous trail followed from the current scan location, if any */
+  private Rectangle trailBounds;
+
+  /** The current scan location and the locations deferred because of clipped trails */
+  private final PixelLocation scanLocation = new PixelLocation();
+  private final List<PixelLocation> deferred = new ArrayList<PixelLocation>();
+
+  /*
+   * The bounds of the clipped trails, shared by the workers of a decode. Further locations within
+   * them are deferred without being scanned, as they mostly lead to the same trails.
+   */
+  private final List<Rectangle> deferredAreas;
 
   /* Internals */
-  private final byte cache[];
   private final LuminanceGrid grid;
   private final ScanStrategy scanStrategy;
-  private final long startTime;
+  private final Deadline deadline;
   public static final long DMTX_USEC_PER_SEC = 1000000;
 
   private final Options options;
@@ -125,8 +133,8 @@ public class Decode {
     this.scanStrategy = scanStrategy;
     this.options = options;
 
-    int width = grid.getWidth() / scale;
-    int height = grid.getHeight() / scale;
+    width = grid.getWidth() / scale;
+    height = grid.getHeight() / scale;
 
     this.setEdgeMin(DatamatrixDecoder.DmtxUndefined);
     this.setEdgeMax(DatamatrixDecoder.DmtxUndefined);
@@ -140,9 +148,140 @@ public class Decode {
     this.yMax = height - 1;
     this.scale = scale;
 
-    cache = new byte[width * height];
+    // every sample within the grid is materialized, even beyond the scaled width and height
+    planeWidth = (grid.getWidth() + scale - 1) / scale;
+    planeHeight = (grid.getHeight() + scale - 1) / scale;
+    planeStride = planeWidth + 2 * PLANE_PADDING;
+    plane = new byte[planeStride * (planeHeight + 2 * PLANE_PADDING)];
+    fillPlane();
+    for (int i = 0; i < patternOffsets.length; i++)
+      patternOffsets[i] = Region.dmtxPatternY[i] * planeStride + Region.dmtxPatternX[i];
+
+    creator = null;
+    cacheWindow = new Rectangle(0, 0, width, height);
+    cacheStride = width + 2 * PLANE_PADDING;
+    cache = new byte[cacheStride * (height + 2 * PLANE_PADDING)];
+    initCacheOffsets();
+    deferredAreas = new CopyOnWriteArrayList<Rectangle>();
+
+    this.deadline = options.getSettings(BaseSettings.class).getDeadline();
+  }
+
+  /**
+   * Initialize a decode which shares the luminance plane with the given one, but scans its own
+   * locations. If a window is given, the decode has a cache of its own covering the window and
+   * marks the symbols it decodes in the parent's cache, too. Otherwise it shares the parent's cache.
+   */
+  private Decode(Decode parent, ScanStrategy scanStrategy, Rectangle window) {
+    this.grid = parent.grid;
+    this.scanStrategy = scanStrategy;
+    this.options = parent.options;
+
+    this.width = parent.width;
+    this.height = parent.height;
+
+    this.edgeMin = parent.edgeMin;
+    this.edgeMax = parent.edgeMax;
+    this.squareDevn = parent.squareDevn;
+    this.sizeIdxExpected = parent.sizeIdxExpected;
+    this.edgeThresh = parent.edgeThresh;
+
+    this.xMin = parent.xMin;
+    this.xMax = parent.xMax;
+    this.yMin = parent.yMin;
+    this.yMax = parent.yMax;
+    this.scale = parent.scale;
+
+    planeWidth = parent.planeWidth;
+    planeHeight = parent.planeHeight;
+    planeStride = parent.planeStride;
+    plane = parent.plane;
+    System.arraycopy(parent.patternOffsets, 0, patternOffsets, 0, patternOffsets.length);
+
+    if (window != null) {
+      creator = parent;
+      cacheWindow = window;
+      cacheStride = window.width + 2 * PLANE_PADDING;
+      cache = new byte[cacheStride * (window.height + 2 * PLANE_PADDING)];
+      deferredAreas = parent.deferredAreas;
+    } else {
+      creator = parent.creator;
+      cacheWindow = parent.cacheWindow;
+      cacheStride = parent.cacheStride;
+      cache = parent.cache;
+      deferredAreas = new CopyOnWriteArrayList<Rectangle>();
+    }
+    initCacheOffsets();
+
+    this.deadline = parent.deadline;
+  }
+
+  private void initCacheOffsets() {
+    for (int i = 0; i < cacheOffsets.length; i++)
+      cacheOffsets[i] = Region.dmtxPatternY[i] * cacheStride + Region.dmtxPatternX[i];
+  }
+
+  /**
+   * Create a worker which searches for regions at the locations of the given scan strategy. Its
+   * cache only covers the given window, which should enclose the scanned locations with some margin.
+   * The workers of a decode may search concurrently. The symbols decoded by one of them are skipped
+   * by the others. Locations whose trails reach beyond the window are deferred, see
+   * {@link #getDeferredLocations()}. This decode must not search while its workers do.
+   */
+  Decode createWorker(ScanStrategy scanStrategy, Rectangle window) {
+    return new Decode(this, scanStrategy, window.intersection(cacheWindow));
+  }
+
+  /**
+   * Create a decode which continues on the cache of this one, searching for regions at the
+   * locations of the given scan strategy. This decode must not search while the new one does.
+   */
+  Decode continueWith(ScanStrategy scanStrategy) {
+    return new Decode(this, scanStrategy, null);
+  }
+
+  /**
+   * Return the locations at which no symbol could be decoded because the trails reached beyond the
+   * cache window. They should be searched again by a decode whose cache covers the whole image.
+   */
+  List<PixelLocation> getDeferredLocations() {
+    return deferred;
+  }
+
+  /**
+   * Return whether a trail has been cut short by the border of the cache window since the current
+   * location has been scanned.
+   */
+  boolean isClipped() {
+    return clipped;
+  }
+
+  /**
+   * Defer the current scan location if a trail has been cut short by the border of the cache window
+   * since it has been scanned.
+   */
+  void deferIfClipped() {
+    if (clipped) {
+      deferred.add(scanLocation.clone());
+      if (trailBounds != null)
+        deferredAreas.add(trailBounds);
+      clipped = false;
+    }
+  }
+
+  /**
+   * Record the bounds of the continuous trail followed from the current scan location.
+   */
+  void setTrailBounds(PixelLocation min, PixelLocation max) {
+    if (min != null && max != null)
+      trailBounds = new Rectangle(min.x, min.y, max.x - min.x + 1, max.y - min.y + 1);
+  }
 
-    this.startTime = System.currentTimeMillis();
+  private boolean inDeferredArea(PixelLocation loc) {
+    for (final Rectangle area : deferredAreas)
+      if (area.contains(loc.x, loc.y))
+        return true;
+    return false;
   }
 
   public int getXMin() {
@@ -162,11 +301,103 @@ public class Decode {
   }
 
   public int getWidth() {
-    return grid.getWidth() / this.scale;
+    return width;
   }
 
   public int getHeight() {
-    return grid.getHeight() / this.scale;
+    return height;
+  }
+
+  /**
+   * Read the luminance plane from the grid, row by row.
+   */
+  private void fillPlane() {
+    Arrays.fill(plane, (byte) 0xff);
+
+    byte row[] = null;
+    for (int y = 0; y < planeHeight; y++) {
+      row = grid.getRow(grid.getHeight() - y * scale - 1, row);
+      int offset = planeIndex(0, y);
+      if (scale == 1)
+        System.arraycopy(row, 0, plane, offset, planeWidth);
+      else
+        for (int x = 0; x < planeWidth; x++)
+          plane[offset + x] = row[x * scale];
+    }
+  }
+
+  /**
+   * Return the luminance plane. The pixel (x,y) is at {@link #planeIndex(int, int)}, and the pixels
+   * up to {@link #PLANE_PADDING} outside the sampled grid are white.
+   */
+  byte[] getPlane() {
+    return plane;
+  }
+
+  /**
+   * Return the index of the pixel (x,y) in the luminance plane.
+   */
+  int planeIndex(int x, int y) {
+    return (y + PLANE_PADDING) * planeStride + x + PLANE_PADDING;
+  }
+
+  /**
+   * Return the index of the pixel (x,y) in the cache. The pixel must be {@link #holds(PixelLocation)
+   * held} by the cache.
+   */
+  int cacheIndex(int x, int y) {
+    return (y - cacheWindow.y + PLANE_PADDING) * cacheStride + x - cacheWindow.x + PLANE_PADDING;
+  }
+
+  int cacheIndex(PixelLocation loc) {
+    return cacheIndex(loc.x, loc.y);
+  }
+
+  private boolean inCacheWindow(int x, int y) {
+    return x >= cacheWindow.x && y >= cacheWindow.y && x < cacheWindow.x + cacheWindow.width
+        && y < cacheWindow.y + cacheWindow.height;
+  }
+
+  /**
+   * Return whether the cache holds the flags of the given location, i.e. whether a trail may enter
+   * it. A location within the image which the cache does not hold cuts the current trail short.
+   */
+  boolean holds(PixelLocation loc) {
+    if (inCacheWindow(loc.x, loc.y))
+      return true;
+    if (contains(loc))
+      clipped = true;
+    return false;
+  }
+
+  /**
+   * Return whether the pixel (x,y) lies within the image.
+   */
+  boolean contains(int x, int y) {
+    return x >= 0 && y >= 0 && x < width && y < height;
+  }
+
+  boolean contains(PixelLocation loc) {
+    return contains(loc.x, loc.y);
+  }
+
+  /**
+   * Return whether the given location is marked as visited, e.g. because it lies within a symbol
+   * that has already been decoded.
+   */
+  boolean isVisited(int x, int y) {
+    if (!contains(x, y))
+      return false;
+    return inCacheWindow(x, y) && (cache[cacheIndex(x, y)] & 0x80) != 0
+        || creator != null && creator.cache[creator.cacheIndex(x, y)] != 0;
+  }
+
+  /**
+   * Return whether the given location lies within a symbol which has already been decoded by
+   * another worker of the same decode.
+   */
+  boolean isDecoded(PixelLocation loc) {
+    return creator != null && contains(loc) && creator.cache[creator.cacheIndex(loc)] != 0;
   }
 
   /**
@@ -175,9 +406,6 @@ public class Decode {
    * 
    */
   int getPixelValue(int x, int y, int channel) throws OutOfRangeException {
-    int xUnscaled = x * this.scale;
-    int yUnscaled = y * this.scale;
-
     /* Remove spherical lens distortion */
     /*
      * int width, height; double radiusPow2, radiusPow4; double factor; DmtxVector2 pointShifted;
@@ -198,17 +426,12 @@ public class Decode {
      * return correctedPoint;
      */
 
-    // if (xUnscaled < 0 || yUnscaled < 0 || xUnscaled >= grid.getWidth() || yUnscaled >=
-    // grid.getHeight())
-    // throw new OutOfRangeException("");
-
-    int v = grid.getLuminance(xUnscaled, grid.getHeight() - yUnscaled - 1);
-    // System.out.println(xUnscaled + "/" + yUnscaled + "[" + channel + "]: " + v);
-    return v; // FIXME , channel);
-  }
+    // outside the sampled grid, everything is white
+    if (x < -PLANE_PADDING || y < -PLANE_PADDING || x >= planeWidth + PLANE_PADDING
+        || y >= planeHeight + PLANE_PADDING)
+      return 0xff;
 
-  Cache getCache(PixelLocation loc) {
-    return new Cache(loc.x, loc.y);
+    return plane[planeIndex(x, y)] & 0xff; // FIXME , channel);
   }
 
   public void setSizeIdxExpected(SymbolSize sizeIdxExpected) {
@@ -256,38 +479,59 @@ public class Decode {
   }
 
   /**
-   * \brief Find next barcode region \param dec Pointer to DmtxDecode information struct \param
-   * timeout Pointer to timeout time (null if none) \return Detected region (if found)
+   * \brief Find next barcode region. Gives up once the deadline of the {@link BaseSettings} has
+   * been reached. \return Detected region (if found)
    */
   public Region findNextRegion() {
     final PixelLocation loc = new PixelLocation();
 
     /* Continue until we find a region or run out of chances */
     for (;;) {
+      /* Ran out of time? */
+      if (deadline.isReached())
+        break;
+
       if (!scanStrategy.getNextScanLocation(loc))
         break;
 
+      /* Leave locations likely to lead to an already clipped trail to the follow-up decode */
+      if (!deferredAreas.isEmpty() && inDeferredArea(loc)) {
+        deferred.add(loc.clone());
+        continue;
+      }
+
       /* Scan location for presence of valid barcode region */
+      scanLocation.x = loc.x;
+      scanLocation.y = loc.y;
+      clipped = false;
+      trailBounds = null;
       Region reg = Region.scan(this, loc, options);
       if (reg != null)
         return reg;
 
-      /* Ran out of time? */
-      if (timeExceeded())
-        break;
+      deferIfClipped();
     }
 
     return null;
   }
 
-  private boolean timeExceeded() {
-    return 0 != timeout && System.currentTimeMillis() > startTime + timeout;
-  }
-
   /**
-   * \brief Fill the region covered by the quadrilateral given by (p0,p1,p2,p3) in the cache.
+   * \brief Fill the region covered by the quadrilateral given by (p0,p1,p2,p3) in the cache. The
+   * pixels inside the quadrilateral (including its outline) are marked as visited, so that neither
+   * the scan grid nor the trail blazing will enter an already decoded symbol again.
    */
   void cacheFillQuad(PixelLocation p0, PixelLocation p1, PixelLocation p2, PixelLocation p3) {
+    int minY = max(0, min(min(p0.y, p1.y), min(p2.y, p3.y)));
+    int maxY = min(yMax, max(max(p0.y, p1.y), max(p2.y, p3.y)));
+    if (minY > maxY)
+      return;
+
+    int sizeY = maxY - minY + 1;
+    int scanlineMin[] = new int[sizeY];
+    int scanlineMax[] = new int[sizeY];
+    Arrays.fill(scanlineMin, Integer.MAX_VALUE);
+    Arrays.fill(scanlineMax, Integer.MIN_VALUE);
+
     PixelLocation pEmpty = new PixelLocation();
     BresenhamLine lines[] = new BresenhamLine[4];
     lines[0] = new BresenhamLine(p0, p1, pEmpty);
@@ -295,41 +539,34 @@ public class Decode {
     lines[2] = new BresenhamLine(p2, p3, pEmpty);
     lines[3] = new BresenhamLine(p3, p0, pEmpty);
 
-    int minY = getYMax();
-    int maxY = 0;
-
-    minY = min(minY, p0.y);
-    maxY = max(maxY, p0.y);
-    minY = min(minY, p1.y);
-    maxY = max(maxY, p1.y);
-    minY = min(minY, p2.y);
-    maxY = max(maxY, p2.y);
-    minY = min(minY, p3.y);
-    maxY = max(maxY, p3.y);
-
-    int sizeY = maxY - minY + 1;
-
-    int scanlineMin[] = new int[sizeY]; // (int *)malloc(sizeY * sizeof(int));
-    int scanlineMax[] = new int[sizeY]; // (int *)calloc(sizeY, sizeof(int));
-
-    for (int i = 0; i < sizeY; i++)
-      scanlineMin[i] = getXMax();
-
+    /* Each line ends where the next one starts, so skipping loc1 still covers all corners */
     for (int i = 0; i < 4; i++)
       while (lines[i].loc.x != lines[i].loc1.x || lines[i].loc.y != lines[i].loc1.y) {
         int idx = lines[i].loc.y - minY;
-        scanlineMin[idx] = min(scanlineMin[idx], lines[i].loc.x);
-        scanlineMax[idx] = max(scanlineMax[idx], lines[i].loc.x);
+        if (idx >= 0 && idx < sizeY) {
+          scanlineMin[idx] = min(scanlineMin[idx], lines[i].loc.x);
+          scanlineMax[idx] = max(scanlineMax[idx], lines[i].loc.x);
+        }
         lines[i].step(1, 0);
       }
 
-    Decode.Cache cache = new Cache(0, 0);
-    for (int posY = minY; posY < maxY && posY < getYMax(); posY++) {
-      int idx = posY - minY;
-      for (int posX = scanlineMin[idx]; posX < scanlineMax[idx] && posX < getXMax(); posX++)
-        cache.seek(posX, posY);
-      if (cache.isValid())
-        cache.set(0x80);
+    for (int idx = 0; idx < sizeY; idx++) {
+      int y = minY + idx;
+      int fromX = max(0, scanlineMin[idx]);
+      int toX = min(xMax, scanlineMax[idx]);
+      if (fromX > toX)
+        continue;
+
+      if (y >= cacheWindow.y && y < cacheWindow.y + cacheWindow.height) {
+        int windowFromX = max(fromX, cacheWindow.x);
+        int windowToX = min(toX, cacheWindow.x + cacheWindow.width - 1);
+        for (int i = cacheIndex(windowFromX, y), end = i + windowToX - windowFromX; i <= end; i++)
+          cache[i] |= 0x80;
+      }
+
+      if (creator != null)
+        for (int i = creator.cacheIndex(fromX, y), end = i + toX - fromX; i <= end; i++)
+          creator.cache[i] = (byte) 0x80;
     }
   }
 
@@ -31,81 +31,10 @@ import static java.lang.Math.max;
 import java.util.Arrays;
 
 public class ReedSolomon {
-
-  public static class ByteList {
-    private int length;
-    private final byte b[];
-
-    public ByteList(int capacity) {
-      b = new byte[capacity];
-    }
-
-    public void append(int val, int length) {
-      Arrays.fill(b, (byte) val);
-      this.length = length;
-    }
-
-    public void clear() {
-      Arrays.fill(b, (byte) 0);
-    }
-
-    @Override
-    protected Object clone() throws CloneNotSupportedException {
-      final ByteList clone = new ByteList(b.length);
-      System.arraycopy(b, 0, clone.b, 0, b.length);
-      clone.length = length;
-      return clone;
-    }
-
-    public void append(int val) {
-      if (length >= b.length)
-        throw new ArrayIndexOutOfBoundsException();
-      b[length++] = (byte) val;
-    }
-
-    public int pop() {
-      if (length <= 0)
-        throw new ArrayIndexOutOfBoundsException();
-      return b[--length] & 0xff;
-    }
-
-    public int get(int index) {
-      return b[index] & 0xff;
-    }
-
-    public void checkBounds(int i) {
-      if (i < 0 || i >= length || length > b.length)
-        throw new ArrayIndexOutOfBoundsException("bounds check");
-    }
-
-    public void copyFrom(ByteList src) {
-      if (b.length < src.length)
-        throw new ArrayIndexOutOfBoundsException();
-
-      /*
-       * Copy as many bytes as dst can hold or src can provide (smaller of two)
-       */
-      System.arraycopy(src.b, 0, b, 0, Math.min(b.length, src.b.length));
-      length = src.length;
-    }
-
-    public void set(int i, int val) {
-      b[i] = (byte) val;
-    }
-
-    public void setLength(int length) {
-      this.length = length;
-    }
-
-    public int getLength() {
-      return length;
-    }
-  }
-
   private static final int NN = 255;
   private static final int MAX_ERROR_WORD_COUNT = 68;
   /* GF(256) log values using primitive polynomial 301 */
-  private static int log301[] = {
+  private static final int log301[] = {
       255, 0, 1, 240, 2, 225, 241, 53, 3, 38, 226, 133, 242, 43, 54, 210, 4, 195, 39, 114, 227, 106, 134, 28, 243, 140,
       44, 23, 55, 118, 211, 234, 5, 219, 196, 96, 40, 222, 115, 103, 228, 78, 107, 125, 135, 8, 29, 162, 244, 186, 141,
       180, 45, 99, 24, 49, 56, 13, 119, 153, 212, 199, 235, 91, 6, 76, 220, 217, 197, 11, 97, 184, 41, 36, 223, 253,
@@ -119,7 +48,7 @@ public class ReedSolomon {
       60, 237, 130, 111, 20, 93, 122, 177, 150
   };
   /* GF(256) antilog values using primitive polynomial 301 */
-  private static int antilog301[] = {
+  private static final int antilog301[] = {
       1, 2, 4, 8, 16, 32, 64, 128, 45, 90, 180, 69, 138, 57, 114, 228, 229, 231, 227, 235, 251, 219, 155, 27, 54, 108,
       216, 157, 23, 46, 92, 184, 93, 186, 89, 178, 73, 146, 9, 18, 36, 72, 144, 13, 26, 52, 104, 208, 141, 55, 110,
       220, 149, 7, 14, 28, 56, 112, 224, 237, 247, 195, 171, 123, 246, 193, 175, 115, 230, 225, 239, 243, 203, 187, 91,
@@ -133,6 +62,52 @@ public class ReedSolomon {
       96, 192, 173, 119, 238, 241, 207, 179, 75, 150, 0
   };
 
+  /* GF(256) products: gfMultTable[a << 8 | b] = a * b */
+  private static final byte gfMultTable[] = new byte[256 * 256];
+
+  /* The generator polynomials, indexed by SymbolSize ordinal; null for sizes without error words */
+  private static final int generators[][] = new int[SymbolSize.values().length][];
+
+  static {
+    for (int a = 1; a < 256; a++)
+      for (int b = 1; b < 256; b++)
+        gfMultTable[a << 8 | b] = (byte) antilog301[(log301[a] + log301[b]) % NN];
+
+    for (SymbolSize size : SymbolSize.values())
+      if (size.blockErrorWords > 0)
+        generators[size.ordinal()] = RsGenPoly(size.blockErrorWords);
+  }
+
+  /**
+   * The buffers used while encoding or decoding. They are sized for the largest block and reused
+   * for every block of every symbol decoded by a thread.
+   */
+  private static class Workspace {
+    final int ecc[] = new int[MAX_ERROR_WORD_COUNT];
+    final int syn[] = new int[MAX_ERROR_WORD_COUNT + 1];
+    final int rec[] = new int[NN];
+
+    /* The error locator polynomials of the Berlekamp-Massey iterations and their discrepancies */
+    final int elp[][] = new int[MAX_ERROR_WORD_COUNT + 2][MAX_ERROR_WORD_COUNT];
+    final int elpLength[] = new int[MAX_ERROR_WORD_COUNT + 2];
+    final int dis[] = new int[MAX_ERROR_WORD_COUNT + 1];
+
+    /* The final error locator polynomial, one of elp, and its degree */
+    int errorLocator[];
+    int lambda;
+
+    final int reg[] = new int[MAX_ERROR_WORD_COUNT];
+    final int loc[] = new int[NN];
+    final int z[] = new int[MAX_ERROR_WORD_COUNT + 1];
+  }
+
+  private static final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+    @Override
+    protected Workspace initialValue() {
+      return new Workspace();
+    }
+  };
+
   /**
    * \brief Retrieve data size for a specific symbol size and block number \param sizeIdx \param
    * blockIdx \return Attribute value
@@ -143,7 +118,11 @@ public class ReedSolomon {
 
     int count = size.symbolDataWords / size.interleavedBlocks;
 
-    return size == SymbolSize.Fixed144x144 && blockIdx < 8 ? count + 1 : count;
+    /*
+     * If the data words can't be split evenly (144x144), the leading blocks get one more, just like
+     * encode() distributes them
+     */
+    return blockIdx < size.symbolDataWords % size.interleavedBlocks ? count + 1 : count;
   }
 
   /**
@@ -182,14 +161,9 @@ public class ReedSolomon {
     return sizeIdx;
   }
 
-  /* GF add (a + b) */
-  private static int gfAdd(int a, int b) {
-    return (a ^ b) & 0xff;
-  }
-
   /* GF multiply (a * b) */
   private static int gfMult(int a, int b) {
-    return (a == 0 || b == 0 ? 0 : antilog301[(log301[a] + log301[b]) % NN]) & 0xff;
+    return gfMultTable[a << 8 | b] & 0xff;
   }
 
   /* GF multiply by antilog (a * alpha**b) */
@@ -202,8 +176,8 @@ public class ReedSolomon {
    * (DmtxPass|DmtxFail)
    */
   static void encode(Message message, SymbolSize sizeIdx) {
-    final ByteList gen = new ByteList(MAX_ERROR_WORD_COUNT);
-    final ByteList ecc = new ByteList(MAX_ERROR_WORD_COUNT);
+    final int gen[] = generators[sizeIdx.ordinal()];
+    final int ecc[] = workspaces.get().ecc;
 
     int blockStride = sizeIdx.interleavedBlocks;
     int blockErrorWords = sizeIdx.blockErrorWords;
@@ -211,44 +185,36 @@ public class ReedSolomon {
     int symbolErrorWords = sizeIdx.symbolErrorWords;
     int symbolTotalWords = symbolDataWords + symbolErrorWords;
 
-    /* Populate generator polynomial */
-    RsGenPoly(gen, blockErrorWords);
-
     /* For each interleaved block... */
     for (int blockIdx = 0; blockIdx < blockStride; blockIdx++) {
       /* Generate error codewords */
-      ecc.append(0, blockErrorWords);
+      Arrays.fill(ecc, 0, blockErrorWords, 0);
       for (int i = blockIdx; i < symbolDataWords; i += blockStride) {
-        int val = gfAdd(ecc.get(blockErrorWords - 1), message.code[i] & 0xff);
+        int val = ecc[blockErrorWords - 1] ^ message.code[i] & 0xff;
 
-        for (int j = blockErrorWords - 1; j > 0; j--) {
-          ecc.checkBounds(j);
-          ecc.checkBounds(j - 1);
-          gen.checkBounds(j);
-          ecc.set(j, gfAdd(ecc.get(j - 1), gfMult(gen.get(j), val)));
-        }
+        for (int j = blockErrorWords - 1; j > 0; j--)
+          ecc[j] = ecc[j - 1] ^ gfMult(gen[j], val);
 
-        ecc.set(0, gfMult(gen.get(0), val));
+        ecc[0] = gfMult(gen[0], val);
       }
 
       /* Copy to output message */
       int eccPtr = blockErrorWords;
       for (int i = symbolDataWords + blockIdx; i < symbolTotalWords; i += blockStride)
-        message.code[i] = (byte) ecc.get(--eccPtr);
+        message.code[i] = (byte) ecc[--eccPtr];
 
       assert 0 == eccPtr;
     }
   }
 
   /**
-   * Decode xyz. More detailed description. \param code \param sizeIdx \param fix \return Function
-   * success (DmtxPass|DmtxFail)
+   * Decode xyz. More detailed description. Blocks whose syndromes are all zero are left alone
+   * without looking for errors. \param code \param sizeIdx \param fix \return Function success
+   * (DmtxPass|DmtxFail)
    */
   static boolean decode(byte code[], SymbolSize sizeIdx, int fix) {
-    final ByteList elp = new ByteList(MAX_ERROR_WORD_COUNT);
-    final ByteList syn = new ByteList(MAX_ERROR_WORD_COUNT + 1);
-    final ByteList rec = new ByteList(NN);
-    final ByteList loc = new ByteList(NN);
+    final Workspace ws = workspaces.get();
+    final int rec[] = ws.rec;
 
     int blockStride = sizeIdx.interleavedBlocks;
     int blockErrorWords = sizeIdx.blockErrorWords;
@@ -263,57 +229,56 @@ public class ReedSolomon {
        * Data word count depends on blockIdx due to special case at 144x144
        */
       int blockDataWords = dmtxGetBlockDataSize(sizeIdx, blockIdx);
+
+      /* Compute syndromes (syn) directly from the code words; nothing to do for a clean block */
+      if (!RsComputeSyndromes(ws.syn, code, sizeIdx, blockIdx, blockDataWords))
+        continue;
+
       /* Populate received list (rec) with data and error codewords */
-      rec.append((byte) 0, 0);
+      int recLength = 0;
 
       /* Start with final error word and work backward */
       int wordP = symbolTotalWords + blockIdx - blockStride;
       for (int i = 0; i < blockErrorWords; i++) {
-        rec.append(code[wordP]);
+        rec[recLength++] = code[wordP] & 0xff;
         wordP -= blockStride;
       }
 
       /* Start with final data word and work backward */
       wordP = blockIdx + blockStride * (blockDataWords - 1);
       for (int i = 0; i < blockDataWords; i++) {
-        rec.append(code[wordP]);
+        rec[recLength++] = code[wordP] & 0xff;
         wordP -= blockStride;
       }
 
-      /* Compute syndromes (syn) */
-      boolean error = RsComputeSyndromes(syn, rec, blockErrorWords);
-
-      /* Error(s) detected: Attempt repair */
-      if (error) {
-        /* Find error locator polynomial (elp) */
-        boolean repairable = RsFindErrorLocatorPoly(elp, syn, blockErrorWords, blockMaxCorrectable);
-        if (!repairable)
-          return false;
+      /* Find error locator polynomial (elp) */
+      boolean repairable = RsFindErrorLocatorPoly(ws, blockErrorWords, blockMaxCorrectable);
+      if (!repairable)
+        return false;
 
-        /* Find error positions (loc) */
-        repairable = RsFindErrorLocations(loc, elp);
-        if (!repairable)
-          return false;
+      /* Find error positions (loc) */
+      repairable = RsFindErrorLocations(ws);
+      if (!repairable)
+        return false;
 
-        /* Find error values and repair */
-        RsRepairErrors(rec, loc, elp, syn);
-      }
+      /* Find error values and repair */
+      RsRepairErrors(ws);
 
       /*
-       * Overwrite output with correct/corrected values
+       * Overwrite output with corrected values
        */
 
       /* Start with first data word and work forward */
       wordP = blockIdx;
       for (int i = 0; i < blockDataWords; i++) {
-        code[wordP] = (byte) rec.pop();
+        code[wordP] = (byte) rec[--recLength];
         wordP += blockStride;
       }
 
       /* Start with first error word and work forward */
       wordP = symbolDataWords + blockIdx;
       for (int i = 0; i < blockErrorWords; i++) {
-        code[wordP] = (byte) rec.pop();
+        code[wordP] = (byte) rec[--recLength];
         wordP += blockStride;
       }
     }
@@ -322,112 +287,136 @@ public class ReedSolomon {
   }
 
   /**
-   * Populate generator polynomial. More detailed description. \param gen \param errorWordCount
-   * \return Function success (DmtxPass|DmtxFail)
+   * Populate generator polynomial. More detailed description. \param errorWordCount \return The
+   * generator polynomial
    */
-  private static void RsGenPoly(ByteList gen, int errorWordCount) {
+  private static int[] RsGenPoly(int errorWordCount) {
     /* Initialize all coefficients to 1 */
-    gen.append((byte) 1, errorWordCount);
+    final int gen[] = new int[errorWordCount];
+    Arrays.fill(gen, 1);
 
     /* Generate polynomial */
-    for (int i = 0; i < gen.getLength(); i++)
+    for (int i = 0; i < gen.length; i++)
       for (int j = i; j >= 0; j--) {
-        gen.set(j, gfMultAntilog(gen.get(j), i + 1));
+        gen[j] = gfMultAntilog(gen[j], i + 1);
         if (j > 0)
-          gen.set(j, gfAdd(gen.get(j), gen.get(j - 1)));
+          gen[j] ^= gen[j - 1];
       }
+
+    return gen;
   }
 
   /**
-   * Populate generator polynomial. Assume we have received bits grouped into mm-bit symbols in
-   * rec[i], i=0..(nn-1), and rec[i] is index form (ie as powers of alpha). We first compute the
-   * 2*tt syndromes by substituting alpha**i into rec(X) and evaluating, storing the syndromes in
-   * syn[i], i=1..2tt (leave syn[0] zero). \param syn \param rec \param blockErrorWords \return Are
-   * error(s) present? (DmtxPass|DmtxFail)
+   * Compute the syndromes of a block. The received word rec(X) has the error words, last one first,
+   * followed by the data words, last one first, as its coefficients. We compute the 2*tt syndromes
+   * by substituting alpha**i into rec(X) and evaluating, storing the syndromes in syn[i], i=1..2tt
+   * (leave syn[0] zero). The polynomial is evaluated with Horner's scheme, i.e. starting with its
+   * highest coefficient, the first data word, and reading the code words straight from the symbol,
+   * so that a clean block costs no more than this. \param syn \param code \param sizeIdx \param
+   * blockIdx \param blockDataWords \return Are error(s) present?
    */
-  /*
-   * XXX this CHKPASS isn't doing what we want ... really need a error reporting strategy
-   */
-  private static boolean RsComputeSyndromes(ByteList syn, ByteList rec, int blockErrorWords) {
-    int i, j;
-    boolean error = false;
+  private static boolean RsComputeSyndromes(int syn[], byte code[], SymbolSize sizeIdx, int blockIdx,
+      int blockDataWords) {
+    int blockStride = sizeIdx.interleavedBlocks;
+    int blockErrorWords = sizeIdx.blockErrorWords;
+    int symbolTotalWords = sizeIdx.symbolDataWords + sizeIdx.symbolErrorWords;
 
     /* Initialize all coefficients to 0 */
-    syn.append((byte) 0, blockErrorWords + 1);
+    Arrays.fill(syn, 0, blockErrorWords + 1, 0);
 
-    for (i = 1; i < syn.getLength(); i++) {
-      /* Calculate syndrome at i */
-      for (j = 0; j < rec.getLength(); j++)
-        /* alternatively: j < blockTotalWords */
-        syn.set(i, gfAdd(syn.get(i), gfMultAntilog(rec.get(j), i * j)));
+    /* First data word forward to final data word */
+    int wordP = blockIdx;
+    for (int i = 0; i < blockDataWords; i++) {
+      RsHornerStep(syn, blockErrorWords, code[wordP] & 0xff);
+      wordP += blockStride;
+    }
 
-      /* Non-zero syndrome indicates presence of error(s) */
-      if (syn.get(i) != 0)
-        error = true;
+    /* First error word forward to final error word */
+    wordP = symbolTotalWords + blockIdx - blockStride * blockErrorWords;
+    for (int i = 0; i < blockErrorWords; i++) {
+      RsHornerStep(syn, blockErrorWords, code[wordP] & 0xff);
+      wordP += blockStride;
     }
 
-    return error;
+    /* Non-zero syndrome indicates presence of error(s) */
+    int error = 0;
+    for (int i = 1; i <= blockErrorWords; i++)
+      error |= syn[i];
+
+    return error != 0;
+  }
+
+  /* syn[i] = syn[i] * alpha**i + word, i=1..blockErrorWords */
+  private static void RsHornerStep(int syn[], int blockErrorWords, int word) {
+    for (int i = 1; i <= blockErrorWords; i++)
+      syn[i] = gfMultTable[antilog301[i] << 8 | syn[i]] & 0xff ^ word;
   }
 
   /**
-   * Find the error location polynomial using Berlekamp-Massey. More detailed description. \param
-   * elpOut \param syn \param errorWordCount \param maxCorrectable \return Is block repairable?
-   * (DmtxTrue|DmtxFalse)
+   * Find the error location polynomial using Berlekamp-Massey. More detailed description. The result
+   * is left in ws.errorLocator and ws.lambda. \param ws \param errorWordCount \param
+   * maxCorrectable \return Is block repairable? (DmtxTrue|DmtxFalse)
    */
-  private static boolean RsFindErrorLocatorPoly(ByteList elpOut, ByteList syn, int errorWordCount, int maxCorrectable) {
+  private static boolean RsFindErrorLocatorPoly(Workspace ws, int errorWordCount, int maxCorrectable) {
     int i, iNext, j;
     int m, mCmp, lambda;
     int disTmp;
-    ByteList dis;
-    final ByteList elp[] = new ByteList[MAX_ERROR_WORD_COUNT + 2];
-    dis = new ByteList(MAX_ERROR_WORD_COUNT + 1);
-
-    for (i = 0; i < MAX_ERROR_WORD_COUNT + 2; i++)
-      elp[i] = new ByteList(MAX_ERROR_WORD_COUNT);
+    final int syn[] = ws.syn;
+    final int dis[] = ws.dis;
+    final int elp[][] = ws.elp;
+    final int elpLength[] = ws.elpLength;
 
     /* iNext = 0 */
-    elp[0].append(1);
-    dis.append(1);
+    elp[0][0] = 1;
+    elpLength[0] = 1;
+    dis[0] = 1;
 
     /* iNext = 1 */
-    elp[1].append(1);
-    dis.append(syn.get(1));
+    elp[1][0] = 1;
+    elpLength[1] = 1;
+    dis[1] = syn[1];
 
     for (iNext = 2, i = 1; /* explicit break */; i = iNext++) {
-      if (dis.get(i) == 0)
+      if (dis[i] == 0) {
         /* Simple case: Copy directly from previous iteration */
-        elp[iNext].copyFrom(elp[i]);
-      else {
+        System.arraycopy(elp[i], 0, elp[iNext], 0, elpLength[i]);
+        elpLength[iNext] = elpLength[i];
+      } else {
         /* Find earlier iteration (m) that provides maximal (m - lambda) */
         for (m = 0, mCmp = 1; mCmp < i; mCmp++)
-          if (dis.get(mCmp) != 0 && mCmp - elp[mCmp].getLength() >= m - elp[m].getLength())
+          if (dis[mCmp] != 0 && mCmp - elpLength[mCmp] >= m - elpLength[m])
             m = mCmp;
 
-        /* Calculate error location polynomial elp[i] (set 1st term) */
-        for (lambda = elp[m].getLength() - 1, j = 0; j <= lambda; j++)
-          elp[iNext].set(j + i - m, antilog301[(NN - log301[dis.get(m)] + log301[dis.get(i)] + log301[elp[m].get(j)])
-              % NN]);
+        /* The buffer has been used before, the terms not set below must be 0 */
+        elpLength[iNext] = max(elpLength[i], elpLength[m] + i - m);
+        Arrays.fill(elp[iNext], 0, elpLength[iNext], 0);
 
-        /* Calculate error location polynomial elp[i] (add 2nd term) */
-        for (lambda = elp[i].getLength() - 1, j = 0; j <= lambda; j++)
-          elp[iNext].set(j, gfAdd(elp[iNext].get(j), elp[i].get(j)));
+        /*
+         * Calculate error location polynomial elp[i] (set 1st term). A zero coefficient of elp[m]
+         * must stay zero, so it is multiplied rather than added to in the log domain.
+         */
+        int factor = antilog301[(NN - log301[dis[m]] + log301[dis[i]]) % NN];
+        for (lambda = elpLength[m] - 1, j = 0; j <= lambda; j++)
+          elp[iNext][j + i - m] = gfMult(elp[m][j], factor);
 
-        elp[iNext].setLength(max(elp[i].getLength(), elp[m].getLength() + i - m));
+        /* Calculate error location polynomial elp[i] (add 2nd term) */
+        for (lambda = elpLength[i] - 1, j = 0; j <= lambda; j++)
+          elp[iNext][j] ^= elp[i][j];
       }
 
-      lambda = elp[iNext].getLength() - 1;
+      lambda = elpLength[iNext] - 1;
       if (i == errorWordCount || i >= lambda + maxCorrectable)
         break;
 
       /* Calculate discrepancy dis.b[i] */
-      for (disTmp = syn.get(iNext), j = 1; j <= lambda; j++)
-        disTmp = gfAdd(disTmp, gfMult(syn.get(iNext - j), elp[iNext].get(j)));
+      for (disTmp = syn[iNext], j = 1; j <= lambda; j++)
+        disTmp ^= gfMult(syn[iNext - j], elp[iNext][j]);
 
-      assert dis.getLength() == iNext;
-      dis.append(disTmp);
+      dis[iNext] = disTmp;
     }
 
-    elpOut.copyFrom(elp[iNext]);
+    ws.errorLocator = elp[iNext];
+    ws.lambda = lambda;
 
     return lambda <= maxCorrectable;
   }
@@ -436,29 +425,30 @@ public class ReedSolomon {
    * Find roots of the error locator polynomial (Chien Search). If the degree of elp is <= tt, we
    * substitute alpha**i, i=1..n into the elp to get the roots, hence the inverse roots, the error
    * location numbers. If the number of errors located does not equal the degree of the elp, we have
-   * more than tt errors and cannot correct them. \param loc \param elp \return Is block repairable?
-   * (DmtxTrue|DmtxFalse)
+   * more than tt errors and cannot correct them. The locations are left in ws.loc. \param ws
+   * \return Is block repairable? (DmtxTrue|DmtxFalse)
    */
-  private static boolean RsFindErrorLocations(ByteList loc, ByteList elp) {
+  private static boolean RsFindErrorLocations(Workspace ws) {
     int i, j;
-    final int lambda = elp.getLength() - 1;
+    final int lambda = ws.lambda;
+    final int reg[] = ws.reg;
+    final int loc[] = ws.loc;
     int q;
-    final ByteList reg = new ByteList(MAX_ERROR_WORD_COUNT);
+    int locLength = 0;
 
-    reg.copyFrom(elp);
-    loc.append((byte) 0, 0);
+    System.arraycopy(ws.errorLocator, 0, reg, 0, lambda + 1);
 
     for (i = 1; i <= NN; i++) {
       for (q = 1, j = 1; j <= lambda; j++) {
-        reg.set(j, gfMultAntilog(reg.get(j), j));
-        q = gfAdd(q, reg.get(j));
+        reg[j] = gfMultTable[antilog301[j] << 8 | reg[j]] & 0xff;
+        q ^= reg[j];
       }
 
       if (q == 0)
-        loc.append((byte) (NN - i));
+        loc[locLength++] = NN - i;
     }
 
-    return loc.getLength() == lambda;
+    return locLength == lambda;
   }
 
   /**
@@ -467,28 +457,32 @@ public class ReedSolomon {
    * errors is known to be too large to correct, the information symbols as received are output (the
    * advantage of systematic encoding is that hopefully some of the information symbols will be okay
    * and that if we are in luck, the errors are in the parity part of the transmitted codeword).
-   * \param rec \param loc \param elp \param syn
+   * \param ws
    */
-  private static void RsRepairErrors(ByteList rec, ByteList loc, ByteList elp, ByteList syn) {
-    final int lambda = elp.getLength() - 1;
-    final ByteList z = new ByteList(MAX_ERROR_WORD_COUNT + 1);
+  private static void RsRepairErrors(Workspace ws) {
+    final int lambda = ws.lambda;
+    final int elp[] = ws.errorLocator;
+    final int syn[] = ws.syn;
+    final int loc[] = ws.loc;
+    final int rec[] = ws.rec;
+    final int z[] = ws.z;
 
     /* Form polynomial z(x) */
-    z.append((byte) 1);
+    z[0] = 1;
     for (int i = 1; i <= lambda; i++) {
       int zVal, j;
-      for (zVal = gfAdd(syn.get(i), elp.get(i)), j = 1; j < i; j++)
-        zVal = gfAdd(zVal, gfMult(elp.get(i - j), syn.get(j)));
-      z.append((byte) zVal);
+      for (zVal = syn[i] ^ elp[i], j = 1; j < i; j++)
+        zVal ^= gfMult(elp[i - j], syn[j]);
+      z[i] = zVal;
     }
 
     for (int i = 0; i < lambda; i++) {
       /* Calculate numerator of error term */
-      int root = NN - loc.get(i);
+      int root = NN - loc[i];
 
       int err, j;
       for (err = 1, j = 1; j <= lambda; j++)
-        err = gfAdd(err, gfMultAntilog(z.get(j), j * root));
+        err ^= gfMultAntilog(z[j], j * root);
 
       if (err == 0)
         continue;
@@ -497,11 +491,11 @@ public class ReedSolomon {
       int q;
       for (q = 0, j = 0; j < lambda; j++)
         if (j != i)
-          q += log301[1 ^ antilog301[(loc.get(j) + root) % NN]];
+          q += log301[1 ^ antilog301[(loc[j] + root) % NN]];
       q %= NN;
 
       err = gfMultAntilog(err, NN - q);
-      rec.set(loc.get(i), gfAdd(rec.get(loc.get(i)), err));
+      rec[loc[i]] ^= err;
     }
   }
 
@@ -60,8 +60,8 @@ public class Region {
    * @brief DmtxFollow
    */
   private class Follow {
-    Decode.Cache ptr; // FIXME
-    Decode.Cache neighbor; // FIXME
+    int ptr; // the index of loc in the cache
+    int neighbor; // the index of the location whose flags point to the next step
     int step;
     PixelLocation loc = new PixelLocation();
 
@@ -86,7 +86,7 @@ public class Region {
       final Region.Follow follow = new Follow();
 
       assert Math.abs(sign) == 1;
-      assert this.neighbor.isAnySet(0x40);
+      assert (dec.cache[this.neighbor] & 0x40) != 0;
 
       factor = stepsTotal + 1;
       if (sign > 0)
@@ -100,14 +100,13 @@ public class Region {
       else if (sign < 0 && stepMod == jumpToPos)
         follow.loc = finalPos.clone();
       else {
-        patternIdx = sign < 0 ? this.neighbor.get() & 0x07 : (this.neighbor.get() & 0x38) >> 3;
+        patternIdx = sign < 0 ? dec.cache[this.neighbor] & 0x07 : (dec.cache[this.neighbor] & 0x38) >> 3;
         follow.loc.x = this.loc.x + dmtxPatternX[patternIdx];
         follow.loc.y = this.loc.y + dmtxPatternY[patternIdx];
       }
 
       follow.step = this.step + sign;
-      follow.ptr = dec.getCache(follow.loc);
-      assert follow.ptr != null;
+      follow.ptr = dec.cacheIndex(follow.loc);
       follow.neighbor = follow.ptr;
 
       return follow;
@@ -122,15 +121,14 @@ public class Region {
       final Region.Follow follow = new Follow();
 
       assert Math.abs(sign) == 1;
-      assert this.neighbor.isAnySet(0x40);
+      assert (dec.cache[this.neighbor] & 0x40) != 0;
 
-      patternIdx = sign < 0 ? this.neighbor.get() & 0x07 : (this.neighbor.get() & 0x38) >> 3;
+      patternIdx = sign < 0 ? dec.cache[this.neighbor] & 0x07 : (dec.cache[this.neighbor] & 0x38) >> 3;
       follow.loc.x = this.loc.x + dmtxPatternX[patternIdx];
       follow.loc.y = this.loc.y + dmtxPatternY[patternIdx];
 
       follow.step = this.step + sign;
-      follow.ptr = dec.getCache(follow.loc);
-      assert follow.ptr != null;
+      follow.ptr = dec.cacheIndex(follow.loc);
       follow.neighbor = follow.ptr;
 
       return follow;
@@ -206,15 +204,15 @@ public class Region {
 
       int occupied = 0;
       int strongIdx = DatamatrixDecoder.DmtxUndefined;
+      final int center = dec.cacheIndex(this.loc);
       for (int i = 0; i < 8; i++) {
         loc.x = this.loc.x + Region.dmtxPatternX[i];
         loc.y = this.loc.y + Region.dmtxPatternY[i];
 
-        final Decode.Cache cache = dec.getCache(loc);
-        if (!cache.isValid())
+        if (!dec.holds(loc))
           continue;
 
-        if (cache.isAnySet(0x80))
+        if ((dec.cache[center + dec.cacheOffsets[i]] & 0x80) != 0)
           if (++occupied > 2)
             return dmtxBlankEdge;
           else
@@ -242,8 +240,7 @@ public class Region {
    * information struct \param loc Pixel location \return Detected region (if any)
    */
   static Region scan(Decode dec, PixelLocation loc, Options options) {
-    final Decode.Cache cache = dec.getCache(loc);
-    if (cache.isAnySet(0x80))
+    if ((dec.cache[dec.cacheIndex(loc)] & 0x80) != 0)
       return null;
 
     DiagnosticSettings diag = options.getSettings(DiagnosticSettings.class);
@@ -454,8 +451,11 @@ public class Region {
     } else
       maxDiagonal = DatamatrixDecoder.DmtxUndefined;
 
-    /* Follow to end in both directions */
-    if (!trailBlazeContinuous(begin, maxDiagonal) || this.stepsTotal < 40) {
+    /* Follow to end in both directions. A trail cut short by the border of the cache is left to a
+     * decode whose cache holds all of it. */
+    final boolean blazed = trailBlazeContinuous(begin, maxDiagonal);
+    dec.setTrailBounds(this.boundMin, this.boundMax);
+    if (!blazed || this.stepsTotal < 40 || dec.isClipped()) {
       TrailClear(0x40);
       return false;
     }
@@ -1098,13 +1098,12 @@ public class Region {
 
     follow.loc = this.flowBegin.loc.clone();
     follow.step = 0;
-    follow.ptr = dec.getCache(follow.loc);
+    follow.ptr = dec.cacheIndex(follow.loc);
     follow.neighbor = follow.ptr;
 
     sign = seek > 0 ? +1 : -1;
     for (i = 0; i != seek; i += sign) {
       follow = follow.followStep(sign);
-      assert follow.ptr != null;
       assert abs(follow.step) <= this.stepsTotal;
     }
 
@@ -1120,8 +1119,7 @@ public class Region {
 
     follow.loc = loc.clone();
     follow.step = 0;
-    follow.ptr = dec.getCache(follow.loc);
-    assert follow.ptr != null;
+    follow.ptr = dec.cacheIndex(follow.loc);
     follow.neighbor = follow.ptr;
 
     return follow;
@@ -1137,23 +1135,24 @@ public class Region {
     int posAssigns, negAssigns, clears;
     int sign;
     int steps;
-    Decode.Cache cache;
-    Decode.Cache cacheNext;
-    Decode.Cache cacheBeg;
+    final byte cache[] = dec.cache;
+    int ptr;
+    int ptrNext;
+    int ptrBeg;
     PointFlow flow, flowNext;
     PixelLocation boundMin, boundMax;
 
     boundMin = flowBegin.loc.clone();
     boundMax = flowBegin.loc.clone();
-    cacheBeg = dec.getCache(flowBegin.loc);
-    cacheBeg.setTo(0x80 | 0x40); /* Mark location as visited and assigned */
+    ptrBeg = dec.cacheIndex(flowBegin.loc);
+    cache[ptrBeg] = (byte) (0x80 | 0x40); /* Mark location as visited and assigned */
 
     this.flowBegin = flowBegin;
 
     posAssigns = negAssigns = 0;
     for (sign = 1; sign >= -1; sign -= 2) {
       flow = flowBegin.clone();
-      cache = cacheBeg;
+      ptr = ptrBeg;
 
       for (steps = 0;; steps++) {
         if (maxDiagonal != DatamatrixDecoder.DmtxUndefined
@@ -1171,15 +1170,15 @@ public class Region {
           break;
 
         /* Get the neighbor's cache location */
-        cacheNext = dec.getCache(flowNext.loc);
-        assert !cacheNext.isAnySet(0x80);
+        ptrNext = dec.cacheIndex(flowNext.loc);
+        assert (cache[ptrNext] & 0x80) == 0;
 
         /*
          * Mark departure from current location. If flowing downstream (sign < 0) then departure
          * vector here is the arrival vector of the next location. Upstream flow uses the opposite
          * rule.
          */
-        cache.set(sign < 0 ? flowNext.arrive : flowNext.arrive << 3);
+        cache[ptr] |= sign < 0 ? flowNext.arrive : flowNext.arrive << 3;
 
         /* Mark known direction for next location */
         /*
@@ -1188,8 +1187,8 @@ public class Region {
         /*
          * If testing upstream (sign > 0) then next downstream is opposite of next arrival
          */
-        cacheNext.setTo(sign < 0 ? (flowNext.arrive + 4) % 8 << 3 : (flowNext.arrive + 4) % 8);
-        cacheNext.set(0x80 | 0x40); // Mark location
+        cache[ptrNext] = (byte) (sign < 0 ? (flowNext.arrive + 4) % 8 << 3 : (flowNext.arrive + 4) % 8);
+        cache[ptrNext] |= 0x80 | 0x40; // Mark location
 
         // as visited
         // and assigned
@@ -1198,7 +1197,7 @@ public class Region {
           posAssigns++;
         else
           negAssigns++;
-        cache = cacheNext;
+        ptr = ptrNext;
         flow = flowNext.clone();
 
         if (flow.loc.x > boundMax.x)
@@ -1243,8 +1242,9 @@ public class Region {
    * 
    */
   private int trailBlazeGapped(BresenhamLine line, int streamDir) {
-    Decode.Cache beforeCache;
-    Decode.Cache afterCache;
+    final byte cache[] = dec.cache;
+    int beforePtr;
+    int afterPtr;
     boolean onEdge;
     int distSq, distSqMax;
     final int travel[] = new int[1], outward[] = new int[1];
@@ -1266,11 +1266,11 @@ public class Region {
     onEdge = true;
 
     beforeStep = loc0.clone();
-    beforeCache = dec.getCache(loc0);
-    if (!beforeCache.isValid())
+    if (!dec.holds(loc0))
       return 0;
 
-    beforeCache.reset(); /* probably should just overwrite one direction */
+    beforePtr = dec.cacheIndex(loc0);
+    cache[beforePtr] = 0; /* probably should just overwrite one direction */
 
     do {
       if (onEdge) {
@@ -1295,9 +1295,9 @@ public class Region {
       }
 
       afterStep = line.loc.clone();
-      afterCache = dec.getCache(afterStep);
-      if (!afterCache.isValid())
+      if (!dec.holds(afterStep))
         break;
+      afterPtr = dec.cacheIndex(afterStep);
 
       /* Determine step direction using pure magic */
       xStep = afterStep.x - beforeStep.x;
@@ -1307,11 +1307,11 @@ public class Region {
       assert stepDir != 8;
 
       if (streamDir < 0) {
-        beforeCache.set(0x40 | stepDir);
-        afterCache.setTo((stepDir + 4) % 8 << 3);
+        cache[beforePtr] |= 0x40 | stepDir;
+        cache[afterPtr] = (byte) ((stepDir + 4) % 8 << 3);
       } else {
-        beforeCache.set(0x40 | stepDir << 3);
-        afterCache.setTo((stepDir + 4) % 8);
+        cache[beforePtr] |= 0x40 | stepDir << 3;
+        cache[afterPtr] = (byte) ((stepDir + 4) % 8);
       }
 
       /* Guaranteed to have taken one step since top of loop */
@@ -1320,7 +1320,7 @@ public class Region {
       distSq = xDiff * xDiff + yDiff * yDiff;
 
       beforeStep = line.loc.clone();
-      beforeCache = afterCache;
+      beforePtr = afterPtr;
       steps++;
 
       // System.out.printf("TPG: dsq: %d, dsqm: %d diff: %d/%d\n", distSq, distSqMax, xDiff,
@@ -1344,9 +1344,12 @@ public class Region {
     clears = 0;
     follow = followSeek(0);
     while (abs(follow.step) <= this.stepsTotal) {
-      assert follow.ptr.isAnySet(clearMask);
-      follow.ptr.clear(clearMask);
+      assert (dec.cache[follow.ptr] & clearMask) != 0;
+
+      /* Step before clearing, as following relies on the assigned bit */
+      final int ptr = follow.ptr;
       follow = follow.followStep(+1);
+      dec.cache[ptr] &= ~clearMask;
       clears++;
     }
 
@@ -1778,26 +1781,7 @@ public class Region {
     if (!ReedSolomon.decode(msg.code, sizeIdx, fix))
       return null;
 
-    final Vector2 topLeft = new Vector2(), topRight = new Vector2(), bottomLeft = new Vector2(), bottomRight = new Vector2();
-    topLeft.x = bottomLeft.x = topLeft.y = topRight.y = -0.1;
-    topRight.x = bottomRight.x = bottomLeft.y = bottomRight.y = 1.1;
-
-    topLeft.multiply(fit2raw);
-    topRight.multiply(fit2raw);
-    bottomLeft.multiply(fit2raw);
-    bottomRight.multiply(fit2raw);
-
-    final PixelLocation pxTopLeft = new PixelLocation(), pxTopRight = new PixelLocation(), pxBottomLeft = new PixelLocation(), pxBottomRight = new PixelLocation();
-    pxTopLeft.x = (int) (0.5 + topLeft.x);
-    pxTopLeft.y = (int) (0.5 + topLeft.y);
-    pxBottomLeft.x = (int) (0.5 + bottomLeft.x);
-    pxBottomLeft.y = (int) (0.5 + bottomLeft.y);
-    pxTopRight.x = (int) (0.5 + topRight.x);
-    pxTopRight.y = (int) (0.5 + topRight.y);
-    pxBottomRight.x = (int) (0.5 + bottomRight.x);
-    pxBottomRight.y = (int) (0.5 + bottomRight.y);
-
-    dec.cacheFillQuad(pxTopLeft, pxTopRight, pxBottomRight, pxBottomLeft);
+    markDecoded();
 
     new Codec(msg).DecodeDataStream(sizeIdx, null);
 
@@ -1900,8 +1884,32 @@ public class Region {
     return dmtxBlankEdge;
   }
 
-  Shape getShape() {
-    // merge this code with the one from decodeMatrixRegion?
+  /**
+   * Mark the area covered by the region, including a margin of a tenth of its size, as visited, so
+   * that it isn't detected again.
+   */
+  void markDecoded() {
+    final PixelLocation corners[] = getCorners();
+    dec.cacheFillQuad(corners[0], corners[1], corners[2], corners[3]);
+  }
+
+  /**
+   * Return the location of the center of the region.
+   */
+  PixelLocation getCenter() {
+    final Vector2 center = new Vector2(0.5, 0.5);
+    center.multiply(fit2raw);
+    final PixelLocation loc = new PixelLocation();
+    loc.x = (int) (0.5 + center.x);
+    loc.y = (int) (0.5 + center.y);
+    return loc;
+  }
+
+  /**
+   * Return the corners top left, top right, bottom right and bottom left of the area covered by the
+   * region, including a margin of a tenth of its size.
+   */
+  private PixelLocation[] getCorners() {
     final Vector2 topLeft = new Vector2(), topRight = new Vector2(), bottomLeft = new Vector2(), bottomRight = new Vector2();
     topLeft.x = bottomLeft.x = topLeft.y = topRight.y = -0.1;
     topRight.x = bottomRight.x = bottomLeft.y = bottomRight.y = 1.1;
@@ -1921,12 +1929,20 @@ public class Region {
     pxBottomRight.x = (int) (0.5 + bottomRight.x);
     pxBottomRight.y = (int) (0.5 + bottomRight.y);
 
+    return new PixelLocation[]{
+        pxTopLeft, pxTopRight, pxBottomRight, pxBottomLeft
+    };
+  }
+
+  Shape getShape() {
+    final PixelLocation corners[] = getCorners();
+
     GeneralPath path = new GeneralPath();
-    path.moveTo(pxBottomLeft.x, dec.getHeight() - pxBottomLeft.y);
-    path.lineTo(pxBottomRight.x, dec.getHeight() - pxBottomRight.y);
-    path.lineTo(pxTopRight.x, dec.getHeight() - pxTopRight.y);
-    path.lineTo(pxTopLeft.x, dec.getHeight() - pxTopLeft.y);
-    path.lineTo(pxBottomLeft.x, dec.getHeight() - pxBottomLeft.y);
+    path.moveTo(corners[3].x, dec.getHeight() - corners[3].y);
+    path.lineTo(corners[2].x, dec.getHeight() - corners[2].y);
+    path.lineTo(corners[1].x, dec.getHeight() - corners[1].y);
+    path.lineTo(corners[0].x, dec.getHeight() - corners[0].y);
+    path.lineTo(corners[3].x, dec.getHeight() - corners[3].y);
 
     return path;
   }
@@ -1947,16 +1963,18 @@ public class Region {
     // 6 5 4
     // 7 L 3
     // 0 1 2
-    for (int patternIdx = 0; patternIdx < 8; patternIdx++) {
-      try {
+    if (dec.contains(loc.x, loc.y)) {
+      // the neighbourhood lies within the padded plane
+      final byte plane[] = dec.getPlane();
+      final int center = dec.planeIndex(loc.x, loc.y);
+      for (int patternIdx = 0; patternIdx < 8; patternIdx++)
+        colorPattern[patternIdx] = plane[center + dec.patternOffsets[patternIdx]] & 0xff;
+    } else
+      for (int patternIdx = 0; patternIdx < 8; patternIdx++)
         colorPattern[patternIdx] = dec.getPixelValue( //
             loc.x + Region.dmtxPatternX[patternIdx], //
             loc.y + Region.dmtxPatternY[patternIdx], //
             colorPlane);
-      } catch (final OutOfRangeException e) {
-        return dmtxBlankEdge;
-      }
-    }
 
     // Calculate this pixel's flow intensity for each direction (-45, 0, 45, 90)
     // @formatter:off
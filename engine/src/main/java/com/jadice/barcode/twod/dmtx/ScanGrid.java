@@ -27,6 +27,7 @@
 package com.jadice.barcode.twod.dmtx;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 
 import com.jadice.barcode.DiagnosticSettings;
 import com.jadice.barcode.Options;
@@ -64,22 +65,35 @@ public class ScanGrid implements ScanStrategy {
   private final boolean createMarkup;
   private final DiagnosticSettings diagnostics;
 
+  /* The decode whose already decoded symbols are skipped, if any */
+  private Decode exclusion;
+
   /**
    * \brief Initialize scan grid pattern \param dec \return Initialized grid
    * 
    * @param options
    */
   ScanGrid(Grid grid, Options options) {
+    this(new Rectangle(0, 0, grid.getWidth(), grid.getHeight()), options);
+  }
+
+  /**
+   * Initialize a scan grid pattern which covers only the given bounds, e.g. a tile of the image.
+   * 
+   * @param bounds the bounds in image coordinates
+   * @param options
+   */
+  ScanGrid(Rectangle bounds, Options options) {
     createMarkup = options.getSettings(DiagnosticSettings.class).isMarkupEnabled();
     diagnostics = options.getSettings(DiagnosticSettings.class);
 
     int scale = 1;
     int smallestFeature = 1 / scale;
 
-    xMin = 0;
-    xMax = grid.getWidth() - 1;
-    yMin = 0;
-    yMax = grid.getHeight() - 1;
+    xMin = bounds.x;
+    xMax = bounds.x + bounds.width - 1;
+    yMin = bounds.y;
+    yMax = bounds.y + bounds.height - 1;
 
     /* Values that get set once */
     int xExtent = xMax - xMin;
@@ -174,6 +188,9 @@ public class ScanGrid implements ScanStrategy {
     if (loc.x < xMin || loc.x > xMax || loc.y < yMin || loc.y > yMax)
       return Range.Bad;
 
+    if (exclusion != null && exclusion.isVisited(loc.x, loc.y))
+      return Range.Bad;
+
     return Range.Good;
   }
 
@@ -217,4 +234,14 @@ public class ScanGrid implements ScanStrategy {
   public void setMinExtent(int minExtent) {
     this.minExtent = minExtent;
   }
+
+  /**
+   * Skip the locations which are marked as visited in the given decode's cache, i.e. which lie
+   * within a symbol that has already been decoded.
+   * 
+   * @param exclusion the decode or <code>null</code> to scan all locations
+   */
+  void setExclusion(Decode exclusion) {
+    this.exclusion = exclusion;
+  }
 }
\ No newline at end of file
@@ -67,17 +67,7 @@ public class ZXingDatamatrixDecoder implements LuminanceDecoder {
           new BinaryBitmap(new HybridBinarizer(new LuminanceSource(grid.getWidth(), grid.getHeight()) {
             @Override
             public byte[] getRow(final int y, final byte[] row) {
-              int w = grid.getWidth();
-
-              byte r[] = row;
-              if (null == r || r.length < w)
-                r = new byte[w];
-
-              for (int x = 0; x < w; x++) {
-                r[x] = (byte) grid.getLuminance(x, y);
-              }
-
-              return r;
+              return grid.getRow(y, row);
             }
 
             @Override
@@ -86,11 +76,10 @@ public class ZXingDatamatrixDecoder implements LuminanceDecoder {
               int h = grid.getHeight();
               byte m[] = new byte[w * h];
 
+              byte row[] = null;
               for (int y = 0; y < h; y++) {
-                int y0 = y * w;
-                for (int x = 0; x < w; x++) {
-                  m[y0 + x] = (byte) grid.getLuminance(x, y);
-                }
+                row = grid.getRow(y, row);
+                System.arraycopy(row, 0, m, y * w, w);
               }
 
               return m;
@@ -30,7 +30,8 @@ import javax.imageio.ImageIO;
 import org.junit.Assert;
 import org.junit.Test;
 
-import com.jadice.barcode.j2d.BufferedImageLuminanceSource;
+import com.jadice.barcode.grid.LuminanceGrid;
+import com.jadice.barcode.j2d.Java2DUtils;
 
 public abstract class AbstractDecodeTest {
   private final String imageName;
@@ -57,7 +58,7 @@ public abstract class AbstractDecodeTest {
 
       BufferedImage bi = loadImage();
 
-      BufferedImageLuminanceSource luminanceSource = new BufferedImageLuminanceSource(bi);
+      LuminanceGrid luminanceSource = Java2DUtils.createLuminanceSource(bi);
 
       long start = System.currentTimeMillis();
 
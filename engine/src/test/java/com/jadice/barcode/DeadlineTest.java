@@ -0,0 +1,169 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.grid.LuminanceGrid;
+import com.jadice.barcode.j2d.Java2DUtils;
+import com.jadice.barcode.linear.c128.Code128;
+import com.jadice.barcode.twod.dmtx.Datamatrix;
+
+public class DeadlineTest {
+  /**
+   * A deadline which is reached after a given number of checks, so that a decoding run can be cut
+   * short at a deterministic point.
+   */
+  private static class CountingDeadline extends Deadline {
+    private final int limit;
+    private int checks;
+
+    CountingDeadline(int limit) {
+      this.limit = limit;
+    }
+
+    @Override
+    public boolean isReached() {
+      if (++checks > limit && !isCancelled())
+        cancel();
+      return super.isReached();
+    }
+  }
+
+  private static LuminanceGrid loadGrid(String imageName) throws Exception {
+    InputStream is = DeadlineTest.class.getResourceAsStream(imageName);
+    Assert.assertNotNull("Input not found for " + imageName, is);
+
+    BufferedImage bi = ImageIO.read(is);
+    BufferedImage biCopy = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+    biCopy.createGraphics().drawImage(bi, 0, 0, null);
+
+    return Java2DUtils.createLuminanceSource(biCopy);
+  }
+
+  private static Options createOptions(Class<? extends Symbology> symbology, Deadline deadline) {
+    Options options = new Options();
+    BaseSettings baseSettings = options.getSettings(BaseSettings.class);
+    baseSettings.setSymbologyEnabled(symbology, true);
+    baseSettings.setThresholds(Arrays.asList(50, 25, 75));
+    baseSettings.setDeadline(deadline);
+    return options;
+  }
+
+  private static List<String> describe(List<Result> results) {
+    List<String> descriptions = new ArrayList<String>();
+    for (Result result : results)
+      descriptions.add(result.getCodeString() + " @ " + result.getShape().getBounds());
+    return descriptions;
+  }
+
+  @Test
+  public void testGenerousDeadlineIsComplete() throws Exception {
+    assertGenerousDeadlineIsComplete("linear/c128/levigo test.png", Code128.class);
+    assertGenerousDeadlineIsComplete("twod/dmtx/compare_siemens/siemens_000_a.png", Datamatrix.class);
+  }
+
+  private static void assertGenerousDeadlineIsComplete(String imageName, Class<? extends Symbology> symbology)
+      throws Exception {
+    LuminanceGrid grid = loadGrid(imageName);
+    List<Result> unbounded = Detector.decode(createOptions(symbology, null), grid);
+    Assert.assertFalse(imageName, unbounded.isEmpty());
+
+    Deadline deadline = new Deadline(1, TimeUnit.HOURS);
+    List<Result> bounded = Detector.decode(createOptions(symbology, deadline), grid);
+
+    Assert.assertEquals(imageName, describe(unbounded), describe(bounded));
+    Assert.assertFalse(imageName, deadline.isIncomplete());
+  }
+
+  @Test
+  public void testReachedDeadlineReturnsImmediately() throws Exception {
+    assertReachedDeadlineReturnsImmediately("linear/c128/levigo test.png", Code128.class);
+    assertReachedDeadlineReturnsImmediately("twod/dmtx/compare_siemens/siemens_000_a.png", Datamatrix.class);
+  }
+
+  private static void assertReachedDeadlineReturnsImmediately(String imageName,
+      Class<? extends Symbology> symbology) throws Exception {
+    LuminanceGrid grid = loadGrid(imageName);
+
+    Deadline cancelled = new Deadline();
+    cancelled.cancel();
+    Assert.assertTrue(imageName, Detector.decode(createOptions(symbology, cancelled), grid).isEmpty());
+    Assert.assertTrue(imageName, cancelled.isIncomplete());
+
+    Deadline expired = new Deadline(0, TimeUnit.MILLISECONDS);
+    Assert.assertTrue(imageName, Detector.decode(createOptions(symbology, expired), grid).isEmpty());
+    Assert.assertTrue(imageName, expired.isIncomplete());
+  }
+
+  /**
+   * Cutting a run short at any point must yield a prefix of the results of the full run.
+   */
+  @Test
+  public void testPartialResults() throws Exception {
+    LuminanceGrid grid = loadGrid("linear/c128/alle richtungen.png");
+
+    CountingDeadline counter = new CountingDeadline(Integer.MAX_VALUE);
+    List<String> full = describe(Detector.decode(createOptions(Code128.class, counter), grid));
+    Assert.assertFalse(full.isEmpty());
+    Assert.assertFalse(counter.isIncomplete());
+
+    boolean sawPartial = false;
+    for (int limit = 0; limit < counter.checks; limit += Math.max(1, counter.checks / 50)) {
+      CountingDeadline deadline = new CountingDeadline(limit);
+      List<String> partial = describe(Detector.decode(createOptions(Code128.class, deadline), grid));
+
+      Assert.assertTrue("limit " + limit, deadline.isIncomplete());
+      Assert.assertEquals("limit " + limit, full.subList(0, partial.size()), partial);
+      sawPartial |= !partial.isEmpty() && partial.size() < full.size();
+    }
+    Assert.assertTrue(sawPartial);
+  }
+
+  @Test
+  public void testDerivedDeadline() {
+    Deadline parent = new Deadline();
+    Deadline derived = new Deadline(parent);
+    derived.cancel();
+    Assert.assertTrue(derived.isReached());
+    Assert.assertFalse(parent.isReached());
+    Assert.assertFalse(parent.isIncomplete());
+
+    derived = new Deadline(parent);
+    parent.cancel();
+    Assert.assertTrue(derived.isReached());
+    Assert.assertTrue(parent.isIncomplete());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testNoneCannotBeCancelled() {
+    Deadline.NONE.cancel();
+  }
+}
@@ -0,0 +1,83 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResultIndexTest {
+  private static Result createResult(Random random, int extent) {
+    Shape shape = new Rectangle(random.nextInt(extent), random.nextInt(extent), 1 + random.nextInt(300),
+        1 + random.nextInt(120));
+    if (random.nextBoolean()) {
+      Rectangle bounds = shape.getBounds();
+      shape = AffineTransform.getRotateInstance(random.nextDouble() * Math.PI, bounds.getCenterX(),
+          bounds.getCenterY()).createTransformedShape(shape);
+    }
+    return new Result(null, shape, "", false, false, 0);
+  }
+
+  /**
+   * The index must make exactly the same decisions as comparing every result against every other.
+   */
+  @Test
+  public void testMatchesExhaustiveSearch() {
+    Random random = new Random(4711);
+    for (int cellSize : new int[]{16, ResultIndex.DEFAULT_CELL_SIZE, 10000}) {
+      for (int round = 0; round < 20; round++) {
+        List<Result> exhaustive = new ArrayList<Result>();
+        ResultIndex index = new ResultIndex(cellSize);
+
+        for (int i = 0; i < 200; i++) {
+          Result s = createResult(random, 3000);
+
+          boolean duplicate = false;
+          for (Result d : exhaustive)
+            if (d.getShape().intersects(s.getShape().getBounds())) {
+              duplicate = true;
+              break;
+            }
+          if (!duplicate)
+            exhaustive.add(s);
+
+          Assert.assertEquals(!duplicate, index.addIfNoDuplicate(s));
+        }
+
+        Assert.assertEquals(exhaustive, index.getResults());
+      }
+    }
+  }
+
+  @Test
+  public void testBoundsFollowTransform() {
+    Result result = new Result(null, new Rectangle(10, 20, 30, 40), "", false, false, 0);
+    Assert.assertEquals(new Rectangle(10, 20, 30, 40), result.getBounds());
+
+    result.transform(AffineTransform.getTranslateInstance(100, 0));
+    Assert.assertEquals(new Rectangle(110, 20, 30, 40), result.getBounds());
+  }
+}
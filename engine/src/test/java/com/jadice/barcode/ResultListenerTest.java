@@ -0,0 +1,165 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.grid.LuminanceGrid;
+import com.jadice.barcode.j2d.Java2DUtils;
+import com.jadice.barcode.linear.LinearCodeSettings;
+import com.jadice.barcode.linear.LinearCodeSettings.Direction;
+import com.jadice.barcode.linear.c128.Code128;
+
+public class ResultListenerTest {
+  private static LuminanceGrid loadGrid(String imageName) throws Exception {
+    InputStream is = ResultListenerTest.class.getResourceAsStream(imageName);
+    Assert.assertNotNull("Input not found for " + imageName, is);
+
+    BufferedImage bi = ImageIO.read(is);
+    BufferedImage biCopy = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+    biCopy.createGraphics().drawImage(bi, 0, 0, null);
+
+    return Java2DUtils.createLuminanceSource(biCopy);
+  }
+
+  private static Options createOptions() {
+    Options options = new Options();
+    BaseSettings baseSettings = options.getSettings(BaseSettings.class);
+    baseSettings.setSymbologyEnabled(Code128.class, true);
+    baseSettings.setThresholds(Arrays.asList(50, 25, 75));
+    for (Direction d : Direction.values())
+      options.getSettings(LinearCodeSettings.class).setDirectionEnabled(d, true);
+    return options;
+  }
+
+  private static List<String> describe(List<Result> results) {
+    List<String> descriptions = new ArrayList<String>();
+    for (Result result : results)
+      descriptions.add(result.getCodeString() + " @ " + result.getShape().getBounds());
+    return descriptions;
+  }
+
+  /**
+   * Collects the reported results and asks to stop after a given number of them.
+   */
+  private static class CollectingListener implements ResultListener {
+    private final int stopAfter;
+    final List<Result> results = new ArrayList<Result>();
+
+    CollectingListener(int stopAfter) {
+      this.stopAfter = stopAfter;
+    }
+
+    @Override
+    public boolean resultFound(Result result) {
+      results.add(result);
+      return results.size() < stopAfter;
+    }
+  }
+
+  private static void assertListener(Options options, LuminanceGrid grid) {
+    List<String> expected = describe(Detector.decode(options, grid));
+    Assert.assertTrue(expected.size() > 1);
+
+    CollectingListener all = new CollectingListener(Integer.MAX_VALUE);
+    List<Result> results = Detector.decode(options, grid, all);
+    Assert.assertEquals(expected, describe(results));
+    Assert.assertEquals(expected, describe(all.results));
+
+    CollectingListener first = new CollectingListener(1);
+    results = Detector.decode(options, grid, first);
+    Assert.assertEquals(expected.subList(0, 1), describe(results));
+    Assert.assertEquals(expected.subList(0, 1), describe(first.results));
+  }
+
+  @Test
+  public void testSequential() throws Exception {
+    assertListener(createOptions(), loadGrid("linear/c128/alle richtungen.png"));
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Options options = createOptions();
+      options.getSettings(BaseSettings.class).setExecutor(executor);
+      assertListener(options, loadGrid("linear/c128/alle richtungen.png"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A listener may start a decoding run of its own on the calling thread, e.g. with other options,
+   * without disturbing the run which called it.
+   */
+  @Test
+  public void testNestedDecode() throws Exception {
+    final LuminanceGrid grid = loadGrid("linear/c128/alle richtungen.png");
+    Options options = createOptions();
+    List<String> expected = describe(Detector.decode(options, grid));
+
+    final Options nestedOptions = createOptions();
+    nestedOptions.getSettings(LinearCodeSettings.class).setScanInterval(1000);
+    final List<String> nestedExpected = describe(Detector.decode(nestedOptions, grid));
+
+    final List<List<String>> nested = new ArrayList<List<String>>();
+    List<Result> results = Detector.decode(options, grid, new ResultListener() {
+      @Override
+      public boolean resultFound(Result result) {
+        nested.add(describe(Detector.decode(nestedOptions, grid)));
+        return true;
+      }
+    });
+
+    Assert.assertEquals(expected, describe(results));
+    Assert.assertEquals(expected.size(), nested.size());
+    for (List<String> n : nested)
+      Assert.assertEquals(nestedExpected, n);
+  }
+
+  /**
+   * A run must complete on the calling thread even if the executor never gets around to running
+   * its tasks, e.g. because the caller is one of its threads.
+   */
+  @Test
+  public void testConcurrentWithStalledExecutor() throws Exception {
+    Options options = createOptions();
+    options.getSettings(BaseSettings.class).setExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        // never run
+      }
+    });
+    assertListener(options, loadGrid("linear/c128/alle richtungen.png"));
+  }
+}
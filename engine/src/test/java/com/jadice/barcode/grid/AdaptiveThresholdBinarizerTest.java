@@ -0,0 +1,177 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.grid;
+
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.BaseSettings;
+import com.jadice.barcode.Detector;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.Result;
+import com.jadice.barcode.j2d.Java2DUtils;
+import com.jadice.barcode.linear.c128.Code128;
+
+public class AdaptiveThresholdBinarizerTest {
+  /**
+   * A luminance grid backed by an array.
+   */
+  private static class ArrayGrid implements LuminanceGrid {
+    private final int width;
+    private final int height;
+    private final int[] luminance;
+
+    ArrayGrid(int width, int height, int[] luminance) {
+      this.width = width;
+      this.height = height;
+      this.luminance = luminance;
+    }
+
+    @Override
+    public int getLuminance(int x, int y) {
+      if (x < 0 || y < 0 || x >= width || y >= height)
+        return 0xff;
+      return luminance[y * width + x];
+    }
+
+    @Override
+    public int getNumChannels() {
+      return 1;
+    }
+
+    @Override
+    public int getWidth() {
+      return width;
+    }
+
+    @Override
+    public int getHeight() {
+      return height;
+    }
+
+    @Override
+    public AffineTransform getInverseTransform() {
+      return new AffineTransform();
+    }
+  }
+
+  @Test
+  public void testThresholdMatchesDirectComputation() {
+    int width = 97;
+    int height = 61;
+    int radius = 7;
+    float sensitivity = 0.3f;
+
+    Random r = new Random(4711);
+    int luminance[] = new int[width * height];
+    for (int i = 0; i < luminance.length; i++)
+      luminance[i] = r.nextInt(256);
+    ArrayGrid grid = new ArrayGrid(width, height, luminance);
+
+    AdaptiveThresholdBinarizer binarizer = new AdaptiveThresholdBinarizer(grid, radius, sensitivity);
+    for (int y = 0; y < height; y++)
+      for (int x = 0; x < width; x++) {
+        long sum = 0;
+        long sumOfSquares = 0;
+        int n = 0;
+        for (int v = Math.max(0, y - radius); v <= Math.min(height - 1, y + radius); v++)
+          for (int u = Math.max(0, x - radius); u <= Math.min(width - 1, x + radius); u++) {
+            int l = luminance[v * width + u];
+            sum += l;
+            sumOfSquares += l * l;
+            n++;
+          }
+        double mean = (double) sum / n;
+        double deviation = Math.sqrt(Math.max(0, (double) sumOfSquares / n - mean * mean));
+        int expected = (int) (mean * (1 + sensitivity * (deviation / 128 - 1)));
+
+        Assert.assertEquals(x + "/" + y, expected, binarizer.getThreshold(x, y));
+        Assert.assertEquals(x + "/" + y, luminance[y * width + x] < expected, binarizer.samplePixel(x, y));
+      }
+  }
+
+  /**
+   * The integral images overflow for large images, but the window sums must still be exact.
+   */
+  @Test
+  public void testOverflowingIntegralImages() {
+    int size = 3000;
+    int luminance[] = new int[size * size];
+    Arrays.fill(luminance, 250);
+
+    AdaptiveThresholdBinarizer binarizer = new AdaptiveThresholdBinarizer(new ArrayGrid(size, size, luminance),
+        AdaptiveThresholdBinarizer.MAX_RADIUS, 0.25f);
+    Assert.assertEquals(187, binarizer.getThreshold(0, 0));
+    Assert.assertEquals(187, binarizer.getThreshold(size / 2, size / 2));
+    Assert.assertEquals(187, binarizer.getThreshold(size - 1, size - 1));
+    Assert.assertFalse(binarizer.samplePixel(size - 1, size - 1));
+  }
+
+  private static List<String> decode(LuminanceGrid grid, int threshold) {
+    Options options = new Options();
+    options.getSettings(BaseSettings.class).setSymbologyEnabled(Code128.class, true);
+    options.getSettings(BaseSettings.class).setThreshold(threshold);
+
+    List<String> codes = new ArrayList<String>();
+    for (Result result : Detector.decode(options, grid))
+      codes.add(result.getCodeString());
+    return codes;
+  }
+
+  /**
+   * A code in a deep shadow can't be decoded with a single global threshold, but with the adaptive
+   * one.
+   */
+  @Test
+  public void testUnevenIllumination() throws Exception {
+    InputStream is = getClass().getResourceAsStream("/com/jadice/barcode/linear/c128/levigo test.png");
+    Assert.assertNotNull(is);
+    BufferedImage bi = ImageIO.read(is);
+    BufferedImage biCopy = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+    biCopy.createGraphics().drawImage(bi, 0, 0, null);
+    LuminanceGrid source = Java2DUtils.createLuminanceSource(biCopy);
+
+    List<String> expected = decode(source, 50);
+    Assert.assertFalse(expected.isEmpty());
+
+    // darken the image from the left to the right, down to a fifth of the original luminance
+    int width = source.getWidth();
+    int height = source.getHeight();
+    int luminance[] = new int[width * height];
+    for (int y = 0; y < height; y++)
+      for (int x = 0; x < width; x++)
+        luminance[y * width + x] = source.getLuminance(x, y) * (5 * width - 4 * x) / (5 * width);
+    LuminanceGrid shadowed = new ArrayGrid(width, height, luminance);
+
+    for (int threshold : new int[]{25, 50, 75})
+      Assert.assertNotEquals("threshold " + threshold, expected, decode(shadowed, threshold));
+    Assert.assertEquals(expected, decode(shadowed, BaseSettings.ADAPTIVE_THRESHOLD));
+  }
+}
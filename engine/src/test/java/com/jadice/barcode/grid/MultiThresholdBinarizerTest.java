@@ -0,0 +1,127 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.grid;
+
+import java.awt.geom.AffineTransform;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MultiThresholdBinarizerTest {
+  /**
+   * A grid of random luminance values in the range [min,max].
+   */
+  private static class RandomLuminanceGrid implements LuminanceGrid {
+    private final int[][] luminance;
+
+    RandomLuminanceGrid(int width, int height, long seed, int min, int max) {
+      Random r = new Random(seed);
+      luminance = new int[height][width];
+      for (int[] row : luminance)
+        for (int x = 0; x < width; x++)
+          row[x] = min + r.nextInt(max - min + 1);
+    }
+
+    @Override
+    public int getWidth() {
+      return luminance[0].length;
+    }
+
+    @Override
+    public int getHeight() {
+      return luminance.length;
+    }
+
+    @Override
+    public AffineTransform getInverseTransform() {
+      return new AffineTransform();
+    }
+
+    @Override
+    public int getLuminance(int x, int y) {
+      return luminance[y][x];
+    }
+
+    @Override
+    public int getNumChannels() {
+      return 1;
+    }
+  }
+
+  /**
+   * Every bit-plane must be identical to binarizing with a {@link FixedlThresholdBinarizer}.
+   */
+  @Test
+  public void testMatchesFixedThreshold() {
+    RandomLuminanceGrid grid = new RandomLuminanceGrid(201, 17, 4711, 0, 255);
+    int thresholds[] = {127, 25, 191, 0, 255, 63, 127};
+
+    PackedBinaryGrid planes[] = MultiThresholdBinarizer.binarize(grid, thresholds);
+    Assert.assertEquals(thresholds.length, planes.length);
+
+    for (int i = 0; i < thresholds.length; i++) {
+      FixedlThresholdBinarizer binarizer = new FixedlThresholdBinarizer(grid);
+      binarizer.setThreshold(thresholds[i]);
+      PackedBinaryGrid expected = new PackedBinaryGrid(binarizer);
+
+      Assert.assertEquals(grid.getWidth(), planes[i].getWidth());
+      Assert.assertEquals(grid.getHeight(), planes[i].getHeight());
+      for (int y = -1; y <= grid.getHeight(); y++)
+        for (int x = -1; x <= grid.getWidth(); x++)
+          Assert.assertEquals(thresholds[i] + ": " + x + "/" + y, expected.samplePixel(x, y),
+              planes[i].samplePixel(x, y));
+    }
+  }
+
+  /**
+   * Luminance values outside [0,255] must be clamped alike by the bulk rows and columns and by
+   * sampling single pixels. Rows and columns outside the grid are white.
+   */
+  @Test
+  public void testOutOfRangeLuminance() {
+    RandomLuminanceGrid grid = new RandomLuminanceGrid(201, 17, 4711, -300, 600);
+    int thresholds[] = {127, 1, 255};
+
+    for (int y = 0; y < grid.getHeight(); y++) {
+      byte row[] = grid.getRow(y, null);
+      for (int x = 0; x < grid.getWidth(); x++)
+        Assert.assertEquals(x + "/" + y, Math.max(0, Math.min(255, grid.getLuminance(x, y))), row[x] & 0xff);
+    }
+    for (byte value : grid.getRow(-1, null))
+      Assert.assertEquals(255, value & 0xff);
+    for (byte value : grid.getColumn(grid.getWidth(), null))
+      Assert.assertEquals(255, value & 0xff);
+
+    PackedBinaryGrid planes[] = MultiThresholdBinarizer.binarize(grid, thresholds);
+    for (int i = 0; i < thresholds.length; i++) {
+      FixedlThresholdBinarizer binarizer = new FixedlThresholdBinarizer(grid);
+      binarizer.setThreshold(thresholds[i]);
+      for (int y = 0; y < grid.getHeight(); y++) {
+        long bits[] = binarizer.getRow(y, null);
+        for (int x = 0; x < grid.getWidth(); x++) {
+          boolean expected = binarizer.samplePixel(x, y);
+          Assert.assertEquals(thresholds[i] + ": " + x + "/" + y, expected, (bits[x >> 6] & 1L << x) != 0);
+          Assert.assertEquals(thresholds[i] + ": " + x + "/" + y, expected, planes[i].samplePixel(x, y));
+        }
+      }
+    }
+  }
+}
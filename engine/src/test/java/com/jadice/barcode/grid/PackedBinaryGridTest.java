@@ -0,0 +1,221 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.grid;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.linear.LinearCodeSettings.Direction;
+
+public class PackedBinaryGridTest {
+  /**
+   * A random binary grid with runs of varying length.
+   */
+  private static class RandomGrid implements BinaryGrid {
+    private final boolean[][] pixels;
+
+    RandomGrid(int width, int height, long seed) {
+      Random r = new Random(seed);
+      pixels = new boolean[height][width];
+      for (boolean[] row : pixels) {
+        boolean black = r.nextBoolean();
+        for (int x = 0; x < width;) {
+          for (int l = 1 + r.nextInt(80); l > 0 && x < width; l--)
+            row[x++] = black;
+          black = !black;
+        }
+      }
+    }
+
+    @Override
+    public int getWidth() {
+      return pixels[0].length;
+    }
+
+    @Override
+    public int getHeight() {
+      return pixels.length;
+    }
+
+    @Override
+    public AffineTransform getInverseTransform() {
+      return new AffineTransform();
+    }
+
+    @Override
+    public boolean samplePixel(int x, int y) {
+      if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight())
+        return false;
+      return pixels[y][x];
+    }
+  }
+
+  @Test
+  public void testSamplePixel() {
+    RandomGrid source = new RandomGrid(201, 17, 4711);
+    PackedBinaryGrid packed = new PackedBinaryGrid(source);
+
+    for (int y = -1; y <= source.getHeight(); y++)
+      for (int x = -1; x <= source.getWidth(); x++)
+        Assert.assertEquals(x + "/" + y, source.samplePixel(x, y), packed.samplePixel(x, y));
+  }
+
+  @Test
+  public void testScanRow() {
+    for (int width : new int[]{1, 63, 64, 65, 128, 300}) {
+      RandomGrid source = new RandomGrid(width, 10, width);
+      PackedBinaryGrid packed = new PackedBinaryGrid(source);
+      int[] expected = new int[width + 4];
+      int[] actual = new int[width + 4];
+
+      for (int y = -1; y <= source.getHeight(); y++)
+        for (int x1 = -1; x1 < width; x1 += 7)
+          for (int x2 = Math.max(x1, 0); x2 <= width; x2 += 5) {
+            int expectedRuns = PackedBinaryGrid.scanRowSampling(source, y, x1, x2, expected);
+            int actualRuns = packed.scanRow(y, x1, x2, actual);
+            Assert.assertArrayEquals(width + ": " + y + " " + x1 + "-" + x2, Arrays.copyOf(expected, expectedRuns),
+                Arrays.copyOf(actual, actualRuns));
+          }
+    }
+  }
+
+  @Test
+  public void testScanRowThroughROI() {
+    RandomGrid source = new RandomGrid(150, 20, 42);
+    ROIGrid roi = new ROIGrid(new PackedBinaryGrid(source), new Rectangle(30, 5, 100, 10));
+    int[] expected = new int[102];
+    int[] actual = new int[102];
+
+    for (int y = 0; y < roi.getHeight(); y++) {
+      int expectedRuns = PackedBinaryGrid.scanRowSampling(roi, y, 0, roi.getWidth() - 1, expected);
+      int actualRuns = roi.scanRow(y, 0, roi.getWidth() - 1, actual);
+      Assert.assertArrayEquals(Arrays.copyOf(expected, expectedRuns), Arrays.copyOf(actual, actualRuns));
+    }
+  }
+
+  /**
+   * A materialized rotation must look exactly like the pixel-by-pixel rotation.
+   */
+  @Test
+  public void testRotate() {
+    for (int[] size : new int[][]{{1, 1}, {201, 17}, {64, 64}, {65, 130}, {17, 300}}) {
+      PackedBinaryGrid packed = new PackedBinaryGrid(new RandomGrid(size[0], size[1], size[0] * size[1]));
+
+      for (Direction d : Direction.values()) {
+        QuadrantRotationGrid expected = new QuadrantRotationGrid(packed, d);
+        PackedBinaryGrid rotated = packed.rotate(d);
+
+        String msg = size[0] + "x" + size[1] + " " + d;
+        Assert.assertEquals(msg, expected.getWidth(), rotated.getWidth());
+        Assert.assertEquals(msg, expected.getHeight(), rotated.getHeight());
+        Assert.assertEquals(msg, d == Direction.EAST ? new AffineTransform() : expected.getInverseTransform(),
+            rotated.getInverseTransform());
+
+        for (int y = -1; y <= expected.getHeight(); y++)
+          for (int x = -1; x <= expected.getWidth(); x++)
+            Assert.assertEquals(msg + ": " + x + "/" + y, expected.samplePixel(x, y), rotated.samplePixel(x, y));
+
+        int[] expectedRuns = new int[rotated.getWidth() + 2];
+        int[] actualRuns = new int[rotated.getWidth() + 2];
+        for (int y = 0; y < rotated.getHeight(); y++) {
+          int expectedCount = PackedBinaryGrid.scanRowSampling(expected, y, 0, rotated.getWidth() - 1, expectedRuns);
+          int actualCount = rotated.scanRow(y, 0, rotated.getWidth() - 1, actualRuns);
+          Assert.assertArrayEquals(msg + ": " + y, Arrays.copyOf(expectedRuns, expectedCount),
+              Arrays.copyOf(actualRuns, actualCount));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTranspose64() {
+    Random r = new Random(4711);
+    long[] matrix = new long[64];
+    for (int i = 0; i < 64; i++)
+      matrix[i] = r.nextLong();
+
+    long[] transposed = matrix.clone();
+    PackedBinaryGrid.transpose64(transposed);
+    for (int i = 0; i < 64; i++)
+      for (int j = 0; j < 64; j++)
+        Assert.assertEquals(i + "/" + j, (matrix[i] >>> j) & 1, (transposed[j] >>> i) & 1);
+  }
+
+  private static void assertSameRowsAndColumns(String message, BinaryGrid grid) {
+    // start with dirty buffers to make sure that they are cleared
+    long bits[] = new long[10];
+    for (int y = -1; y <= grid.getHeight(); y++) {
+      Arrays.fill(bits, -1L);
+      bits = grid.getRow(y, bits);
+      for (int x = 0; x < (grid.getWidth() + 63 & ~63); x++)
+        Assert.assertEquals(message + " row " + x + "/" + y, grid.samplePixel(x, y) && x < grid.getWidth(),
+            (bits[x >> 6] & (1L << x)) != 0);
+    }
+    for (int x = -1; x <= grid.getWidth(); x++) {
+      Arrays.fill(bits, -1L);
+      bits = grid.getColumn(x, bits);
+      for (int y = 0; y < (grid.getHeight() + 63 & ~63); y++)
+        Assert.assertEquals(message + " column " + x + "/" + y, grid.samplePixel(x, y) && y < grid.getHeight(),
+            (bits[y >> 6] & (1L << y)) != 0);
+    }
+  }
+
+  @Test
+  public void testRowAndColumnAccess() {
+    RandomGrid source = new RandomGrid(201, 133, 4711);
+    PackedBinaryGrid packed = new PackedBinaryGrid(source);
+
+    assertSameRowsAndColumns("source", source);
+    assertSameRowsAndColumns("packed", packed);
+    assertSameRowsAndColumns("cached", new CachingBinaryGrid(source));
+    assertSameRowsAndColumns("roi", new ROIGrid(source, new Rectangle(37, 5, 150, 101)));
+    assertSameRowsAndColumns("packed roi", new ROIGrid(packed, new Rectangle(64, 64, 130, 65)));
+    for (Direction d : Direction.values()) {
+      assertSameRowsAndColumns(d.name(), new QuadrantRotationGrid(source, d));
+      assertSameRowsAndColumns("packed " + d, new QuadrantRotationGrid(packed, d));
+    }
+  }
+
+  @Test
+  public void testScanPackedRow() {
+    RandomGrid source = new RandomGrid(201, 5, 4711);
+    PackedBinaryGrid packed = new PackedBinaryGrid(source);
+
+    long row[] = null;
+    int expected[] = new int[300];
+    int actual[] = new int[300];
+    for (int y = 0; y < source.getHeight(); y++) {
+      row = packed.getRow(y, row);
+      for (int x1 : new int[]{0, 1, 63, 64, 100})
+        for (int x2 : new int[]{x1, 127, 128, 200}) {
+          if (x2 < x1)
+            continue;
+          int runs = packed.scanRow(y, x1, x2, expected);
+          Assert.assertEquals(runs, PackedBinaryGrid.scanRow(row, x1, x2, actual));
+          Assert.assertArrayEquals(Arrays.copyOf(expected, runs), Arrays.copyOf(actual, runs));
+        }
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.j2d;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.grid.LuminanceGrid;
+
+public class RasterLuminanceSourceTest {
+  private static BufferedImage createImage(int type) {
+    BufferedImage image = new BufferedImage(77, 31, type);
+    Random r = new Random(type);
+    for (int y = 0; y < image.getHeight(); y++)
+      for (int x = 0; x < image.getWidth(); x++)
+        image.setRGB(x, y, r.nextInt());
+    return image;
+  }
+
+  private static void assertSameLuminance(BufferedImage image, Class<?> expectedType) {
+    LuminanceGrid expected = new BufferedImageLuminanceSource(image);
+    LuminanceGrid actual = Java2DUtils.createLuminanceSource(image);
+
+    Assert.assertEquals(expectedType, actual.getClass());
+    Assert.assertEquals(expected.getWidth(), actual.getWidth());
+    Assert.assertEquals(expected.getHeight(), actual.getHeight());
+    Assert.assertEquals(expected.getNumChannels(), actual.getNumChannels());
+    for (int y = -1; y <= image.getHeight(); y++)
+      for (int x = -1; x <= image.getWidth(); x++)
+        Assert.assertEquals(x + "/" + y, expected.getLuminance(x, y), actual.getLuminance(x, y));
+
+    byte values[] = new byte[3];
+    for (LuminanceGrid grid : new LuminanceGrid[]{expected, actual}) {
+      for (int y = -1; y <= image.getHeight(); y++) {
+        values = grid.getRow(y, values);
+        for (int x = 0; x < image.getWidth(); x++)
+          Assert.assertEquals("row " + x + "/" + y, expected.getLuminance(x, y), values[x] & 0xff);
+      }
+      for (int x = -1; x <= image.getWidth(); x++) {
+        values = grid.getColumn(x, values);
+        for (int y = 0; y < image.getHeight(); y++)
+          Assert.assertEquals("column " + x + "/" + y, expected.getLuminance(x, y), values[y] & 0xff);
+      }
+    }
+  }
+
+  private static void assertSameLuminance(int type, Class<?> expectedType) {
+    BufferedImage image = createImage(type);
+    assertSameLuminance(image, expectedType);
+    assertSameLuminance(image.getSubimage(13, 5, 41, 20), expectedType);
+  }
+
+  @Test
+  public void testByteGray() {
+    assertSameLuminance(BufferedImage.TYPE_BYTE_GRAY, ByteGrayLuminanceSource.class);
+  }
+
+  @Test
+  public void testThreeByteBGR() {
+    assertSameLuminance(BufferedImage.TYPE_3BYTE_BGR, ThreeByteBGRLuminanceSource.class);
+  }
+
+  @Test
+  public void testIntRGB() {
+    assertSameLuminance(BufferedImage.TYPE_INT_RGB, IntRGBLuminanceSource.class);
+    assertSameLuminance(BufferedImage.TYPE_INT_ARGB, IntRGBLuminanceSource.class);
+  }
+
+  @Test
+  public void testByteBinary() {
+    assertSameLuminance(BufferedImage.TYPE_BYTE_BINARY, ByteBinaryLuminanceSource.class);
+  }
+
+  @Test
+  public void testFallback() {
+    assertSameLuminance(BufferedImage.TYPE_USHORT_GRAY, BufferedImageLuminanceSource.class);
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.j2d;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.BaseSettings;
+import com.jadice.barcode.Detector;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.Result;
+import com.jadice.barcode.grid.LuminanceGrid;
+import com.jadice.barcode.linear.c128.Code128;
+
+public class TiledLuminanceSourceTest {
+  private static final String IMAGE = "/com/jadice/barcode/linear/c128/levigo test.png";
+
+  private static byte[] readBytes(String name) throws Exception {
+    InputStream is = TiledLuminanceSourceTest.class.getResourceAsStream(name);
+    Assert.assertNotNull("Input not found for " + name, is);
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      byte buffer[] = new byte[8192];
+      int read;
+      while ((read = is.read(buffer)) > 0)
+        bos.write(buffer, 0, read);
+      return bos.toByteArray();
+    } finally {
+      is.close();
+    }
+  }
+
+  private static ImageReader createReader(byte[] data) throws Exception {
+    ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(data));
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+    Assert.assertTrue(readers.hasNext());
+    ImageReader reader = readers.next();
+    reader.setInput(iis);
+    return reader;
+  }
+
+  private static List<String> describe(List<Result> results) {
+    List<String> descriptions = new ArrayList<String>();
+    for (Result result : results)
+      descriptions.add(result.getCodeString() + " @ " + result.getShape().getBounds());
+    return descriptions;
+  }
+
+  private static void assertSameLuminance(LuminanceGrid expected, LuminanceGrid actual) {
+    Assert.assertEquals(expected.getWidth(), actual.getWidth());
+    Assert.assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = -1; y <= expected.getHeight(); y++)
+      for (int x = -1; x <= expected.getWidth(); x++)
+        Assert.assertEquals(x + "/" + y, expected.getLuminance(x, y), actual.getLuminance(x, y));
+  }
+
+  @Test
+  public void testSameLuminance() throws Exception {
+    byte data[] = readBytes(IMAGE);
+    LuminanceGrid expected = Java2DUtils.createLuminanceSource(ImageIO.read(new ByteArrayInputStream(data)));
+    int tilesPerRow = (expected.getWidth() + 63) / 64;
+    int tileCount = tilesPerRow * ((expected.getHeight() + 63) / 64);
+
+    // a cache holding one band of tiles: each tile is loaded exactly once
+    TiledLuminanceSource band = new TiledLuminanceSource(createReader(data), 0, 64, tilesPerRow * 64 * 64);
+    assertSameLuminance(expected, band);
+    Assert.assertEquals(tileCount, band.getMisses());
+    Assert.assertTrue(band.getHits() > 0);
+    Assert.assertEquals(tilesPerRow, band.getCachedTileCount());
+
+    // a cache which is too small for a band: tiles are re-loaded, but the budget is kept
+    TiledLuminanceSource small = new TiledLuminanceSource(createReader(data), 0, 64, 2 * 64 * 64);
+    Assert.assertEquals(2, small.getMaxCachedTileCount());
+    assertSameLuminance(expected, small);
+    Assert.assertTrue(small.getMisses() > tileCount);
+    Assert.assertEquals(2, small.getCachedTileCount());
+  }
+
+  @Test
+  public void testRowAndColumnAccess() throws Exception {
+    byte data[] = readBytes(IMAGE);
+    LuminanceGrid expected = Java2DUtils.createLuminanceSource(ImageIO.read(new ByteArrayInputStream(data)));
+    TiledLuminanceSource tiled = new TiledLuminanceSource(createReader(data), 0, 64, 2 * 64 * 64);
+
+    byte values[] = null;
+    for (int y = -1; y <= expected.getHeight(); y++) {
+      values = tiled.getRow(y, values);
+      for (int x = 0; x < expected.getWidth(); x++)
+        Assert.assertEquals("row " + x + "/" + y, expected.getLuminance(x, y), values[x] & 0xff);
+    }
+    for (int x = -1; x <= expected.getWidth(); x++) {
+      values = tiled.getColumn(x, values);
+      for (int y = 0; y < expected.getHeight(); y++)
+        Assert.assertEquals("column " + x + "/" + y, expected.getLuminance(x, y), values[y] & 0xff);
+    }
+  }
+
+  @Test
+  public void testDecode() throws Exception {
+    byte data[] = readBytes(IMAGE);
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+
+    Options options = new Options();
+    options.getSettings(BaseSettings.class).setSymbologyEnabled(Code128.class, true);
+    options.getSettings(BaseSettings.class).setThresholds(Arrays.asList(50, 25));
+
+    List<String> expected = describe(Detector.decode(options, Java2DUtils.createLuminanceSource(image)));
+    Assert.assertFalse(expected.isEmpty());
+
+    TiledLuminanceSource tiled = new TiledLuminanceSource(createReader(data), 0, 128, 16 * 128 * 128);
+    Assert.assertEquals(expected, describe(Detector.decode(options, tiled)));
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.AbstractDecoder.CodeString;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.linear.c128.Code128;
+
+public class ConsolidateCodeStringsTest {
+  private final OneDDecoder decoder = (OneDDecoder) new Code128().createDecoder();
+
+  public ConsolidateCodeStringsTest() {
+    decoder.setOptions(new Options());
+  }
+
+  private CodeString codeString(int confidence, int... codes) {
+    CodeString s = decoder.new CodeString(codes);
+    s.setConfidence(confidence);
+    return s;
+  }
+
+  private int[] consolidate(CodeString... strings) {
+    List<CodeString> list = new ArrayList<CodeString>(Arrays.asList(strings));
+    return decoder.consolidateCodeStrings(list).getCodes();
+  }
+
+  @Test
+  public void testMajorityWins() {
+    Assert.assertArrayEquals(new int[]{104, 17, 42, 106}, consolidate( //
+        codeString(5, 104, 17, 42, 106), //
+        codeString(5, 104, 18, 42, 106), //
+        codeString(5, 104, 17, 43, 106)));
+  }
+
+  @Test
+  public void testVotesAreNotWeighted() {
+    Assert.assertArrayEquals(new int[]{104, 17, 106}, consolidate( //
+        codeString(1, 104, 17, 106), //
+        codeString(1, 104, 17, 106), //
+        codeString(5, 104, 18, 106)));
+  }
+
+  @Test
+  public void testTiesFavourSmallerCodeAndValidCodes() {
+    Assert.assertArrayEquals(new int[]{3, 7}, consolidate( //
+        codeString(2, 5, -1), //
+        codeString(2, 3, 7)));
+  }
+
+  @Test
+  public void testDifferentLengthsAndLargeCodes() {
+    Assert.assertArrayEquals(new int[]{104, 1111, 106}, consolidate( //
+        codeString(2, 104, 1111), //
+        codeString(2, 104, 1111, 106)));
+  }
+
+  @Test
+  public void testEmpty() {
+    Assert.assertNull(decoder.consolidateCodeStrings(new ArrayList<CodeString>()));
+  }
+}
@@ -0,0 +1,146 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.Options;
+import com.jadice.barcode.linear.OneDDecoder.EdgeDetection;
+
+public class EdgeIndexTest {
+  /**
+   * Registering hits through the index must build exactly the edges a linear search over the edges
+   * in the order of their registration builds.
+   */
+  @Test
+  public void testRegistrationMatchesLinearSearch() {
+    Options options = new Options();
+    Random random = new Random(4711);
+    for (int run = 0; run < 20; run++) {
+      List<Edge> linearEdges = new ArrayList<Edge>();
+      List<Edge> indexedEdges = new ArrayList<Edge>();
+      EdgeIndex index = new EdgeIndex();
+
+      for (int i = 0; i < 2000; i++) {
+        int x = random.nextInt(1000) - 100;
+        int y = random.nextInt(1000) - 100;
+        int width = 20 + random.nextInt(30);
+
+        Edge match = null;
+        EdgeDetection ed = new EdgeDetection(x, y, width, 0f);
+        for (Edge edge : linearEdges)
+          if (edge.testDetection(ed)) {
+            match = edge;
+            break;
+          }
+        if (null == match)
+          linearEdges.add(new Edge(options, 1, true, true, 10, ed));
+
+        ed = new EdgeDetection(x, y, width, 0f);
+        match = index.findMatch(ed);
+        if (null != match) {
+          Assert.assertTrue(match.testDetection(ed));
+          index.update(match);
+        } else {
+          match = new Edge(options, 1, true, true, 10, ed);
+          indexedEdges.add(match);
+          index.add(match);
+        }
+      }
+
+      Assert.assertEquals(linearEdges.size(), indexedEdges.size());
+      for (int i = 0; i < linearEdges.size(); i++) {
+        Assert.assertEquals(linearEdges.get(i).getConfidenceRectangle(), indexedEdges.get(i).getConfidenceRectangle());
+        Assert.assertEquals(linearEdges.get(i).getHits().size(), indexedEdges.get(i).getHits().size());
+      }
+
+      index.clear();
+    }
+  }
+
+  /**
+   * The partner search through the index must find the partners a search over all edges finds.
+   */
+  @Test
+  public void testPartnerSearchMatchesLinearSearch() {
+    Options options = new Options();
+    Random random = new Random(815);
+    for (int run = 0; run < 20; run++) {
+      EdgeIndex startIndex = new EdgeIndex();
+      EdgeIndex stopIndex = new EdgeIndex();
+      List<Edge> startEdges = createEdges(options, random, true, startIndex);
+      List<Edge> stopEdges = createEdges(options, random, false, stopIndex);
+      startIndex.prepareMatching(startEdges);
+      stopIndex.prepareMatching(stopEdges);
+
+      for (Edge edge : startEdges) {
+        Edge expected = null;
+        int bestPartnerConfidence = Integer.MIN_VALUE;
+        for (Edge possiblePartner : stopEdges) {
+          int confidence = edge.getPartnerConfidence(possiblePartner);
+          if (confidence > bestPartnerConfidence) {
+            expected = possiblePartner;
+            bestPartnerConfidence = confidence;
+          }
+        }
+        Assert.assertSame(expected, stopIndex.findBestPartner(edge));
+
+        for (Edge partner : stopEdges) {
+          int confidence = edge.getPartnerConfidence(partner);
+          boolean expectBetter = false;
+          for (Edge possiblePartner : startEdges)
+            expectBetter |= possiblePartner != edge && possiblePartner.getPartnerConfidence(partner) > confidence;
+          Assert.assertEquals(expectBetter, null != startIndex.findBetterPartner(partner, edge, confidence));
+        }
+      }
+    }
+  }
+
+  /**
+   * Create short, roughly vertical edges at random places and angles, some of them duplicated to
+   * provoke ties.
+   */
+  private static List<Edge> createEdges(Options options, Random random, boolean start, EdgeIndex index) {
+    List<Edge> edges = new ArrayList<Edge>();
+    for (int i = 0; i < 60; i++) {
+      int x = random.nextInt(800);
+      int y = random.nextInt(800);
+      int angle = random.nextInt(4) == 0 ? random.nextInt(130) - 65 : random.nextInt(21) - 10;
+      double gradient = Math.tan(Math.toRadians(angle));
+      int copies = random.nextInt(5) == 0 ? 2 : 1;
+      for (int c = 0; c < copies; c++) {
+        Edge edge = new Edge(options, 1, start, true, 10, new EdgeDetection(x, y, 20, 0f));
+        for (int dy = 1; dy < 10; dy++)
+          edge.getHits().add(new EdgeDetection(x + (int) Math.round(gradient * dy), y + dy, 20, 0f));
+        index.add(edge);
+
+        // like the decoder, drop the edges which fail to fit
+        if (edge.pruneHits())
+          edges.add(edge);
+      }
+    }
+    return edges;
+  }
+}
@@ -0,0 +1,181 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.BaseSettings;
+import com.jadice.barcode.Detector;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.Result;
+import com.jadice.barcode.grid.BinaryGrid;
+import com.jadice.barcode.j2d.Java2DUtils;
+import com.jadice.barcode.linear.c128.Code128;
+import com.jadice.barcode.linear.c39.Code39;
+import com.jadice.barcode.linear.ean.EAN;
+import com.jadice.barcode.linear.tofi.TwoOfFiveInterleaved;
+
+public class LinearCodeScannerTest {
+  private static BinaryGrid loadGrid(String imageName, Options options) throws Exception {
+    InputStream is = LinearCodeScannerTest.class.getResourceAsStream(imageName);
+    Assert.assertNotNull("Input not found for " + imageName, is);
+
+    BufferedImage bi = ImageIO.read(is);
+    BufferedImage biCopy = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+    biCopy.createGraphics().drawImage(bi, 0, 0, null);
+
+    return Detector.prepareBinaryGrid(options, Java2DUtils.createLuminanceSource(biCopy), 50);
+  }
+
+  private static List<OneDDecoder> createDecoders(Options options) {
+    List<OneDDecoder> decoders = new ArrayList<OneDDecoder>();
+    decoders.add((OneDDecoder) new Code128().createDecoder());
+    decoders.add((OneDDecoder) new Code39().createDecoder());
+    decoders.add((OneDDecoder) new EAN().createDecoder());
+    decoders.add((OneDDecoder) new TwoOfFiveInterleaved().createDecoder());
+    for (OneDDecoder decoder : decoders)
+      decoder.setOptions(options);
+    return decoders;
+  }
+
+  private static String describe(List<Result> results) {
+    StringBuilder sb = new StringBuilder();
+    for (Result result : results)
+      sb.append(result.getCodeString()).append(" @ ").append(result.getShape().getBounds()).append('\n');
+    return sb.toString();
+  }
+
+  /**
+   * The shared scan must yield exactly the same results as running the decoders separately.
+   */
+  @Test
+  public void testSharedScanMatchesSeparateScans() throws Exception {
+    for (String imageName : Arrays.asList("c128/alle richtungen.png", "c128/levigo test.png",
+        "c39/800px-Code_3_of_9.svg.png", "tofi/2iof5.png")) {
+      Options options = new Options();
+      options.getSettings(BaseSettings.class).setThresholds(Arrays.asList(50));
+      BinaryGrid grid = loadGrid(imageName, options);
+
+      List<OneDDecoder> decoders = createDecoders(options);
+      List<String> separate = new ArrayList<String>();
+      for (OneDDecoder decoder : decoders)
+        separate.add(describe(new ArrayList<Result>(decoder.detect(grid))));
+
+      List<String> shared = new ArrayList<String>();
+      for (List<Result> results : LinearCodeScanner.detect(decoders, grid))
+        shared.add(describe(results));
+
+      Assert.assertEquals(imageName, separate, shared);
+    }
+  }
+
+  @Test
+  public void testScanForEdgesReturnsRegisteredEdges() throws Exception {
+    Options options = new Options();
+    BinaryGrid grid = loadGrid("c128/levigo test.png", options);
+
+    OneDDecoder decoder = (OneDDecoder) new Code128().createDecoder();
+    decoder.setOptions(options);
+    decoder.startDetection();
+    Collection<Edge> edges = decoder.scanForEdges(grid, new ArrayList<Result>());
+
+    Assert.assertFalse(edges.isEmpty());
+    Assert.assertEquals(decoder.startEdges.size() + decoder.stopEdges.size(), edges.size());
+    Assert.assertTrue(edges.containsAll(decoder.startEdges));
+    Assert.assertTrue(edges.containsAll(decoder.stopEdges));
+  }
+
+  private static List<List<Result>> detect(String imageName, int stripes, Executor executor) throws Exception {
+    Options options = new Options();
+    options.getSettings(BaseSettings.class).setThresholds(Arrays.asList(50));
+    options.getSettings(BaseSettings.class).setExecutor(executor);
+    options.getSettings(LinearCodeSettings.class).setScanStripes(stripes);
+    BinaryGrid grid = loadGrid(imageName, options);
+
+    return LinearCodeScanner.detect(createDecoders(options), grid);
+  }
+
+  /**
+   * Assert that the same codes have been found at roughly the same places. The exact geometry may
+   * differ slightly, since the scan lines near the stripe boundaries differ.
+   */
+  private static void assertSameCodes(String message, List<List<Result>> expected, List<List<Result>> actual) {
+    Assert.assertEquals(message, expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertEquals(message, expected.get(i).size(), actual.get(i).size());
+      List<Result> unmatched = new ArrayList<Result>(expected.get(i));
+      for (Result result : actual.get(i)) {
+        Result match = null;
+        for (Result candidate : unmatched)
+          if (candidate.getCodeString().equals(result.getCodeString())
+              && candidate.getBounds().intersects(result.getBounds()))
+            match = candidate;
+        Assert.assertNotNull(message + ": unexpected " + result.getCodeString() + " @ " + result.getBounds(), match);
+        unmatched.remove(match);
+      }
+    }
+  }
+
+  /**
+   * Scanning in stripes, sequentially or concurrently, must find the same codes as scanning the
+   * image as a whole. The concurrent scan must not depend on the timing of the threads.
+   */
+  @Test
+  public void testStripedScanMatchesSequentialScan() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      for (String imageName : Arrays.asList("c128/alle richtungen.png", "c128/levigo test.png",
+          "c128/levigo-auftrag.png", "c128/c128-1.png", "c128/skaliert.png", "c128/fieses rauschen.png",
+          "c39/800px-Code_3_of_9.svg.png", "c39/279584391_14f7b9e27e_o.png", "tofi/2iof5.png",
+          "tofi/barcode-east.png", "tofi/IMG_0577.jpg")) {
+        List<List<Result>> sequential = detect(imageName, 1, null);
+        for (int stripes : new int[]{2, 3, 8}) {
+          List<List<Result>> striped = detect(imageName, stripes, null);
+          assertSameCodes(imageName + " / " + stripes, sequential, striped);
+
+          List<String> expected = new ArrayList<String>();
+          for (List<Result> results : striped)
+            expected.add(describe(results));
+          for (int run = 0; run < 3; run++) {
+            List<String> concurrent = new ArrayList<String>();
+            for (List<Result> results : detect(imageName, stripes, executor))
+              concurrent.add(describe(results));
+            Assert.assertEquals(imageName + " / " + stripes, expected, concurrent);
+          }
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,219 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.BaseSettings;
+import com.jadice.barcode.Detector;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.Result;
+import com.jadice.barcode.ResultListener;
+import com.jadice.barcode.grid.BinaryGrid;
+import com.jadice.barcode.grid.ROIGrid;
+import com.jadice.barcode.j2d.Java2DUtils;
+import com.jadice.barcode.linear.c128.Code128;
+import com.jadice.barcode.linear.c39.Code39;
+import com.jadice.barcode.linear.ean.EAN;
+import com.jadice.barcode.linear.tofi.TwoOfFiveInterleaved;
+
+public class LinearCodeStreamTest {
+  private static BinaryGrid loadGrid(String imageName, Options options) throws Exception {
+    InputStream is = LinearCodeStreamTest.class.getResourceAsStream(imageName);
+    Assert.assertNotNull("Input not found for " + imageName, is);
+
+    BufferedImage bi = ImageIO.read(is);
+    BufferedImage biCopy = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+    biCopy.createGraphics().drawImage(bi, 0, 0, null);
+
+    return Detector.prepareBinaryGrid(options, Java2DUtils.createLuminanceSource(biCopy), 50);
+  }
+
+  private static Options createOptions() {
+    Options options = new Options();
+    options.getSettings(BaseSettings.class).setThresholds(Arrays.asList(50));
+    return options;
+  }
+
+  private static List<OneDDecoder> createDecoders(Options options) {
+    List<OneDDecoder> decoders = new ArrayList<OneDDecoder>();
+    decoders.add((OneDDecoder) new Code128().createDecoder());
+    decoders.add((OneDDecoder) new Code39().createDecoder());
+    decoders.add((OneDDecoder) new EAN().createDecoder());
+    decoders.add((OneDDecoder) new TwoOfFiveInterleaved().createDecoder());
+    for (OneDDecoder decoder : decoders)
+      decoder.setOptions(options);
+    return decoders;
+  }
+
+  private static List<String> describe(List<Result> results) {
+    List<String> descriptions = new ArrayList<String>();
+    for (Result result : results)
+      descriptions.add(result.getCodeString() + " @ " + result.getBounds());
+    Collections.sort(descriptions);
+    return descriptions;
+  }
+
+  private static class CollectingListener implements ResultListener {
+    final List<Result> results = new ArrayList<Result>();
+
+    @Override
+    public boolean resultFound(Result result) {
+      results.add(result);
+      return true;
+    }
+  }
+
+  /**
+   * Streaming a whole image through a band holding all of it must find the same codes as scanning
+   * the image at once.
+   */
+  @Test
+  public void testStreamMatchesWholeImageScan() throws Exception {
+    for (String imageName : Arrays.asList("c128/levigo test.png", "c128/Barcode_Code128_wikipedia.png",
+        "c39/800px-Code_3_of_9.svg.png", "tofi/2iof5.png")) {
+      Options options = createOptions();
+      BinaryGrid grid = loadGrid(imageName, options);
+
+      List<Result> expected = new ArrayList<Result>();
+      for (List<Result> results : LinearCodeScanner.detect(createDecoders(options), grid))
+        expected.addAll(results);
+      Assert.assertFalse(imageName, expected.isEmpty());
+
+      CollectingListener listener = new CollectingListener();
+      LinearCodeStream stream = new LinearCodeStream(createDecoders(options), grid.getWidth(), grid.getHeight(),
+          listener);
+      for (int y = 0; y < grid.getHeight(); y++)
+        Assert.assertTrue(stream.pushRow(grid, y));
+      Assert.assertTrue(stream.finish());
+
+      Assert.assertEquals(imageName, describe(expected), describe(listener.results));
+    }
+  }
+
+  /**
+   * Rows of a source wider than the band must be cut off at the band width.
+   */
+  @Test
+  public void testSourceWiderThanBand() throws Exception {
+    Options options = createOptions();
+    BinaryGrid grid = loadGrid("c128/levigo test.png", options);
+    ROIGrid cropped = new ROIGrid(grid, new Rectangle(0, 0, grid.getWidth() - 37, grid.getHeight()));
+
+    List<Result> expected = new ArrayList<Result>();
+    for (List<Result> results : LinearCodeScanner.detect(createDecoders(options), cropped))
+      expected.addAll(results);
+    Assert.assertFalse(expected.isEmpty());
+
+    CollectingListener listener = new CollectingListener();
+    LinearCodeStream stream = new LinearCodeStream(createDecoders(options), cropped.getWidth(), grid.getHeight(),
+        listener);
+    for (int y = 0; y < grid.getHeight(); y++)
+      Assert.assertTrue(stream.pushRow(grid, y));
+    Assert.assertTrue(stream.finish());
+
+    Assert.assertEquals(describe(expected), describe(listener.results));
+  }
+
+  /**
+   * An image much taller than the band must be decoded completely, with the codes being reported
+   * while the rows are still arriving.
+   */
+  @Test
+  public void testTallImageThroughSmallBand() throws Exception {
+    Options options = createOptions();
+    BinaryGrid grid = loadGrid("c128/levigo test.png", options);
+    List<String> codes = new ArrayList<String>();
+    for (List<Result> results : LinearCodeScanner.detect(createDecoders(options), grid))
+      for (Result result : results)
+        codes.add(result.getCodeString());
+    Assert.assertFalse(codes.isEmpty());
+
+    final int repetitions = 5;
+    CollectingListener listener = new CollectingListener();
+    LinearCodeStream stream = new LinearCodeStream(createDecoders(options), grid.getWidth(), grid.getHeight(),
+        listener);
+    for (int i = 0; i < repetitions; i++) {
+      for (int y = 0; y < grid.getHeight(); y++)
+        stream.pushRow(grid, y);
+
+      // everything but the last copy must already have been reported
+      if (i > 0)
+        Assert.assertTrue(listener.results.size() >= i * codes.size());
+    }
+    Assert.assertEquals(repetitions * grid.getHeight(), stream.getRowCount());
+    stream.finish();
+
+    Assert.assertEquals(repetitions * codes.size(), listener.results.size());
+    for (int i = 0; i < repetitions; i++) {
+      List<String> copy = new ArrayList<String>();
+      for (Result result : listener.results) {
+        int y = result.getBounds().y + result.getBounds().height / 2;
+        if (y >= i * grid.getHeight() && y < (i + 1) * grid.getHeight())
+          copy.add(result.getCodeString());
+      }
+      Assert.assertEquals("copy " + i, codes.size(), copy.size());
+      Assert.assertTrue("copy " + i, copy.containsAll(codes));
+    }
+  }
+
+  @Test
+  public void testListenerStopsStream() throws Exception {
+    Options options = createOptions();
+    BinaryGrid grid = loadGrid("c128/levigo test.png", options);
+
+    final List<Result> results = new ArrayList<Result>();
+    LinearCodeStream stream = new LinearCodeStream(createDecoders(options), grid.getWidth(), grid.getHeight(),
+        new ResultListener() {
+          @Override
+          public boolean resultFound(Result result) {
+            results.add(result);
+            return false;
+          }
+        });
+
+    boolean running = true;
+    for (int i = 0; i < 3; i++)
+      for (int y = 0; y < grid.getHeight(); y++)
+        running &= stream.pushRow(grid, y);
+
+    Assert.assertFalse(running);
+    Assert.assertFalse(stream.finish());
+    Assert.assertEquals(1, results.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBandMustExceedScanInterval() {
+    Options options = createOptions();
+    new LinearCodeStream(createDecoders(options), 100, options.getSettings(LinearCodeSettings.class)
+        .getScanInterval(), new CollectingListener());
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.jadice.barcode.Detector;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.grid.BinaryGrid;
+import com.jadice.barcode.j2d.Java2DUtils;
+import com.jadice.barcode.linear.c39.Code39;
+
+public class OneDDecoderAllocationTest {
+  /**
+   * Upper bound for the bytes allocated by one warmed-up Code 39 decode of the test image. Before the
+   * scratch buffers were introduced, a decode allocated roughly 470KB, most of it proportional to the
+   * number of scanned rows. After warm-up, a decode allocates about 12KB, none of it per scan line:
+   * the {@link Edge}s with their hit lists and geometry, the list nodes holding them, the
+   * consolidated code string and the {@link com.jadice.barcode.Result} with its shape and text. A
+   * single buffer of the image width allocated per scanned row would exceed the bound.
+   */
+  private static final long MAX_BYTES_PER_DECODE = 16 * 1024;
+
+  @Test
+  public void testDecodeReusesScratchBuffers() throws Exception {
+    ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(mx instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threadMX = (com.sun.management.ThreadMXBean) mx;
+    Assume.assumeTrue(threadMX.isThreadAllocatedMemorySupported() && threadMX.isThreadAllocatedMemoryEnabled());
+
+    InputStream is = getClass().getResourceAsStream("c39/800px-Code_3_of_9.svg.png");
+    Assert.assertNotNull(is);
+    BufferedImage bi = ImageIO.read(is);
+
+    Options options = new Options();
+    BinaryGrid grid = Detector.prepareBinaryGrid(options, Java2DUtils.createLuminanceSource(bi), 50);
+    OneDDecoder decoder = (OneDDecoder) new Code39().createDecoder();
+    decoder.setOptions(options);
+
+    // warm up: size the scratch buffers and let the JIT settle
+    for (int i = 0; i < 200; i++)
+      Assert.assertFalse(decoder.detect(grid).isEmpty());
+
+    long threadId = Thread.currentThread().getId();
+    int iterations = 20;
+    long before = threadMX.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++)
+      decoder.detect(grid);
+    long bytesPerDecode = (threadMX.getThreadAllocatedBytes(threadId) - before) / iterations;
+
+    Assert.assertTrue("Allocated " + bytesPerDecode + " bytes per decode", bytesPerDecode < MAX_BYTES_PER_DECODE);
+  }
+}
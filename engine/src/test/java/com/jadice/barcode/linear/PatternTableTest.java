@@ -0,0 +1,137 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.linear.OneDDecoder.Symbol;
+
+public class PatternTableTest {
+  private static final int WINDOW_SIZE = 6;
+  private static final int MAX_MODULE_WIDTH = 4;
+
+  private final Map<Integer, Symbol> symbolsByPattern = new LinkedHashMap<Integer, Symbol>();
+  private final PatternTable table;
+  private final Random random = new Random(4711);
+
+  public PatternTableTest() {
+    while (symbolsByPattern.size() < 100) {
+      int pattern = 0;
+      for (int i = 0; i < WINDOW_SIZE; i++)
+        pattern = pattern * 10 + 1 + random.nextInt(MAX_MODULE_WIDTH);
+      symbolsByPattern.put(pattern, new Symbol(OneDDecoder.splitCodeString(pattern, WINDOW_SIZE),
+          symbolsByPattern.size()));
+    }
+    // a longer pattern which never matches exactly, like the Code 128 stop code
+    symbolsByPattern.put(2331112, new Symbol(OneDDecoder.splitCodeString(2331112, 7), 100));
+
+    table = new PatternTable(symbolsByPattern, WINDOW_SIZE, MAX_MODULE_WIDTH);
+  }
+
+  private Symbol findNearestLinear(float[] widths) {
+    float leastMismatchSQ = Float.MAX_VALUE;
+    Symbol bestMatch = null;
+    for (Symbol s : symbolsByPattern.values()) {
+      float mismatchSQ = 0f;
+      for (int j = 0; j < WINDOW_SIZE; j++) {
+        final float barMismatch = Math.abs(widths[j] - s.widths[j]);
+        mismatchSQ += barMismatch * barMismatch;
+      }
+      if (mismatchSQ < leastMismatchSQ) {
+        bestMatch = s;
+        leastMismatchSQ = mismatchSQ;
+      }
+    }
+    return bestMatch;
+  }
+
+  private Symbol findNearestQuantisedLinear(float[] widths, float maxBarMismatchLimit) {
+    float leastMismatch = Float.MAX_VALUE;
+    Symbol bestMatch = null;
+    for (Symbol s : symbolsByPattern.values()) {
+      float mismatch = 0f;
+      float maxBarMismatch = 0f;
+      for (int j = 0; j < WINDOW_SIZE; j++) {
+        final float barMismatch = Math.abs(widths[j] - s.widths[j]);
+        mismatch += barMismatch;
+        maxBarMismatch = Math.max(maxBarMismatch, barMismatch);
+      }
+      if (mismatch < leastMismatch && maxBarMismatch < maxBarMismatchLimit) {
+        bestMatch = s;
+        leastMismatch = mismatch;
+      }
+    }
+    return bestMatch;
+  }
+
+  @Test
+  public void testExactMatch() {
+    for (Map.Entry<Integer, Symbol> e : symbolsByPattern.entrySet()) {
+      int cell = table.cellOf(e.getKey());
+      if (e.getValue().widths.length != WINDOW_SIZE) {
+        Assert.assertEquals(-1, cell);
+        continue;
+      }
+
+      Assert.assertSame(e.getValue(), table.get(cell));
+
+      float widths[] = new float[WINDOW_SIZE];
+      for (int i = 0; i < WINDOW_SIZE; i++)
+        widths[i] = e.getValue().widths[i] + random.nextFloat() * 0.98f - 0.49f;
+      Assert.assertEquals(cell, table.cellOf(widths));
+    }
+
+    Assert.assertEquals(-1, table.cellOf(111151));
+    Assert.assertEquals(-1, table.cellOf(11111));
+    Assert.assertEquals(-1, table.cellOf(new float[]{1, 1, Float.NaN, 1, 1, 1}));
+    Assert.assertNull(table.get(-1));
+  }
+
+  @Test
+  public void testNearestMatchesLinearSearch() {
+    float widths[] = new float[WINDOW_SIZE];
+    for (int n = 0; n < 100000; n++) {
+      for (int i = 0; i < WINDOW_SIZE; i++)
+        widths[i] = 1 + random.nextFloat() * (MAX_MODULE_WIDTH - 1);
+      Assert.assertSame(findNearestLinear(widths), table.findNearest(widths));
+    }
+
+    // out of range widths fall back to the linear search
+    widths[0] = 7f;
+    Assert.assertSame(findNearestLinear(widths), table.findNearest(widths));
+  }
+
+  @Test
+  public void testNearestQuantisedMatchesLinearSearch() {
+    float widths[] = new float[WINDOW_SIZE];
+    for (int n = 0; n < 10000; n++) {
+      for (int i = 0; i < WINDOW_SIZE; i++)
+        widths[i] = 1 + random.nextInt(MAX_MODULE_WIDTH);
+      int cell = table.cellOf(widths);
+      for (float tolerance : new float[]{0f, 0.6f, 1f, 1.5f, 2f, 3.2f, 10f})
+        Assert.assertSame(findNearestQuantisedLinear(widths, tolerance), table.findNearestQuantised(cell, tolerance));
+    }
+  }
+}
@@ -21,13 +21,16 @@ package com.jadice.barcode.linear.c128;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
 import com.jadice.barcode.AbstractDecodeTest;
+import com.jadice.barcode.BaseSettings;
 import com.jadice.barcode.Configurer;
+import com.jadice.barcode.Options;
 import com.jadice.barcode.Symbology;
 
 @RunWith(Parameterized.class)
@@ -51,6 +54,18 @@ public class Code128Test extends AbstractDecodeTest {
     { "Barcode_Code128_wikipedia.png", "wikipedia", null }, //
     { "angefressene ecke.png", "levigo test barcode 128B", null }, //
     { "alle richtungen.png", "wikipedia" , null }, //
+    { "alle richtungen.png", "wikipedia" , new Configurer() {
+      @Override
+      public void configure(Options o) {
+        o.getSettings(BaseSettings.class).setExecutor(ForkJoinPool.commonPool());
+      }
+    }}, //
+    { "skaliert, rotiert.png", "levigo test barcode 128B", new Configurer() {
+      @Override
+      public void configure(Options o) {
+        o.getSettings(BaseSettings.class).setExecutor(ForkJoinPool.commonPool());
+      }
+    }}, //
   };
   // @formatter:on
 
@@ -0,0 +1,51 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ *
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ *
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.linear.tofi;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.AbstractDecoder;
+import com.jadice.barcode.AbstractDecoder.CodeString;
+
+public class TwoOfFiveChecksumVerifierTest {
+  private static final int STOP = 10;
+
+  private final AbstractDecoder decoder = (AbstractDecoder) new TwoOfFiveInterleaved().createDecoder();
+
+  private boolean verify(int... codes) {
+    CodeString s = decoder.new CodeString(codes);
+    return new TwoOfFiveChecksumVerifier().verifyChecksum(s) && s.isChecksumVerificationOK();
+  }
+
+  @Test
+  public void testCheckDigit() {
+    Assert.assertTrue(verify(1, 2, 3, 4, 5, 6, 7, 8, 9, 5, STOP));
+    Assert.assertTrue(verify(1, 2, 3, 4, 5, 6, 7, 8, 9, 5));
+    Assert.assertFalse(verify(1, 2, 3, 4, 5, 6, 7, 8, 9, 4, STOP));
+    Assert.assertFalse(verify(2, 1, 3, 4, 5, 6, 7, 8, 9, 5, STOP));
+  }
+
+  @Test
+  public void testTooShort() {
+    Assert.assertFalse(verify(STOP));
+    Assert.assertFalse(verify(0, STOP));
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.twod.dmtx;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.BaseSettings;
+import com.jadice.barcode.Options;
+import com.jadice.barcode.Result;
+import com.jadice.barcode.j2d.Java2DUtils;
+
+public class DatamatrixDecoderTest {
+  private static final String IMAGES[] = { //
+      "compare_siemens/siemens_000_8.png", //
+      "compare_siemens/siemens_001_8.png", //
+      "compare_siemens/siemens_004_8.png", //
+      "compare_siemens/siemens_005_8.png", //
+      "compare_siemens/siemens_006_8.png", //
+      "compare_siemens/siemens_011_8.png", //
+      "compare_siemens/siemens_000_8.png", //
+      "compare_confirmed/barcode_014_c.png" //
+  };
+
+  private static final int CELL_SIZE = 200;
+
+  private static final int COLUMNS = 4;
+
+  /**
+   * All symbols on a page must be found, including repeated ones, and each one only once.
+   */
+  @Test
+  public void testMultipleSymbols() throws Exception {
+    Assert.assertEquals(expectedCodes(), codes(detect(createPage(), new Options())));
+  }
+
+  /**
+   * Searching the page in tiles must find the same symbols, including the ones which cross the
+   * borders of the tiles.
+   */
+  @Test
+  public void testTiledSearch() throws Exception {
+    BufferedImage page = createPage();
+    List<String> expected = expectedCodes();
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      for (int tiles = 2; tiles <= 4; tiles++) {
+        Options options = new Options();
+        options.getSettings(DatamatrixSettings.class).setSearchTiles(tiles);
+        Assert.assertEquals("sequential, " + tiles + " tiles", expected, codes(detect(page, options)));
+
+        options.getSettings(BaseSettings.class).setExecutor(executor);
+        Assert.assertEquals("concurrent, " + tiles + " tiles", expected, codes(detect(page, options)));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * A symbol which reaches beyond the margins of the tiles' search windows must still be found.
+   */
+  @Test
+  public void testSymbolBeyondTileMargin() throws Exception {
+    BufferedImage symbol = loadImage(IMAGES[0]);
+    BufferedImage page = new BufferedImage(1000, 1000, BufferedImage.TYPE_BYTE_GRAY);
+    Graphics2D g = page.createGraphics();
+    g.setColor(Color.WHITE);
+    g.fillRect(0, 0, page.getWidth(), page.getHeight());
+    g.drawImage(symbol, 200, 200, 3 * symbol.getWidth(), 3 * symbol.getHeight(), null);
+    g.dispose();
+
+    List<String> expected = codes(detect(symbol, new Options()));
+    for (int tiles = 2; tiles <= 4; tiles++) {
+      Options options = new Options();
+      options.getSettings(DatamatrixSettings.class).setSearchTiles(tiles);
+      Assert.assertEquals(tiles + " tiles", expected, codes(detect(page, options)));
+    }
+  }
+
+  private BufferedImage createPage() throws IOException {
+    int rows = (IMAGES.length + COLUMNS - 1) / COLUMNS;
+    BufferedImage page = new BufferedImage(COLUMNS * CELL_SIZE, rows * CELL_SIZE, BufferedImage.TYPE_BYTE_GRAY);
+    Graphics2D g = page.createGraphics();
+    g.setColor(Color.WHITE);
+    g.fillRect(0, 0, page.getWidth(), page.getHeight());
+    for (int i = 0; i < IMAGES.length; i++)
+      g.drawImage(loadImage(IMAGES[i]), (i % COLUMNS) * CELL_SIZE, (i / COLUMNS) * CELL_SIZE, null);
+    g.dispose();
+    return page;
+  }
+
+  /**
+   * Return the sorted codes of the symbols on the page, decoded one by one.
+   */
+  private List<String> expectedCodes() throws IOException {
+    List<String> codes = new ArrayList<String>();
+    for (String image : IMAGES) {
+      Collection<Result> results = detect(loadImage(image), new Options());
+      Assert.assertEquals(1, results.size());
+      codes.addAll(codes(results));
+    }
+    Collections.sort(codes);
+    return codes;
+  }
+
+  private BufferedImage loadImage(String name) throws IOException {
+    return ImageIO.read(getClass().getResource(name));
+  }
+
+  private static List<String> codes(Collection<Result> results) {
+    List<String> codes = new ArrayList<String>();
+    for (Result r : results)
+      codes.add(r.getCodeString());
+    Collections.sort(codes);
+    return codes;
+  }
+
+  private static Collection<Result> detect(BufferedImage image, Options options) {
+    DatamatrixDecoder decoder = new DatamatrixDecoder();
+    decoder.setOptions(options);
+    return decoder.detect(Java2DUtils.createLuminanceSource(image));
+  }
+}
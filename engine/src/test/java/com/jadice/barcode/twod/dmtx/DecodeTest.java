@@ -0,0 +1,59 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.twod.dmtx;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jadice.barcode.Options;
+import com.jadice.barcode.grid.LuminanceGrid;
+import com.jadice.barcode.j2d.Java2DUtils;
+
+public class DecodeTest {
+  /**
+   * Sampling the luminance plane must yield exactly what sampling the scaled and flipped grid
+   * yields, including the samples beyond the scaled width and height and the white outside of the
+   * grid.
+   */
+  @Test
+  public void testLuminancePlane() {
+    BufferedImage image = new BufferedImage(37, 23, BufferedImage.TYPE_BYTE_GRAY);
+    Random random = new Random(4711);
+    for (int y = 0; y < image.getHeight(); y++)
+      for (int x = 0; x < image.getWidth(); x++)
+        image.getRaster().setSample(x, y, 0, random.nextInt(256));
+    LuminanceGrid grid = Java2DUtils.createLuminanceSource(image);
+
+    for (int scale = 1; scale <= 3; scale++) {
+      Decode dec = new Decode(grid, null, scale, new Options());
+      Assert.assertEquals(image.getWidth() / scale, dec.getWidth());
+      Assert.assertEquals(image.getHeight() / scale, dec.getHeight());
+
+      for (int y = -3; y < dec.getHeight() + 4; y++)
+        for (int x = -3; x < dec.getWidth() + 4; x++) {
+          int expected = grid.getLuminance(x * scale, grid.getHeight() - y * scale - 1);
+          Assert.assertEquals(x + "/" + y + " @ " + scale, expected, dec.getPixelValue(x, y, 0));
+        }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/**
+ * jadice barcode engine - a Java-based barcode decoding engine
+ * 
+ * Copyright (C) 1995-${year} levigo holding gmbh. All Rights Reserved.
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ * 
+ * Contact: solutions@levigo.de
+ */
+package com.jadice.barcode.twod.dmtx;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReedSolomonTest {
+  /**
+   * Encoded symbols must decode unchanged, and up to the correctable number of errors per
+   * interleaved block must be repaired, for every symbol size.
+   */
+  @Test
+  public void testRepair() {
+    Random random = new Random(4711);
+    for (SymbolSize size : SymbolSize.values()) {
+      if (size.interleavedBlocks < 1 || size.blockErrorWords < 1)
+        continue;
+
+      Message msg = new Message(size, Message.Format.DmtxFormatMatrix);
+      for (int i = 0; i < size.symbolDataWords; i++)
+        msg.code[i] = (byte) random.nextInt(256);
+      ReedSolomon.encode(msg, size);
+      byte clean[] = msg.code.clone();
+
+      byte work[] = clean.clone();
+      Assert.assertTrue(size + " clean", ReedSolomon.decode(work, size, -1));
+      Assert.assertArrayEquals(size + " clean", clean, work);
+
+      // damage the leading words of every block
+      int totalWords = size.symbolDataWords + size.symbolErrorWords;
+      for (int errors = 1; errors <= size.blockMaxCorrectable; errors++) {
+        work = clean.clone();
+        for (int block = 0; block < size.interleavedBlocks; block++)
+          for (int e = 0; e < errors; e++) {
+            int word = block + size.interleavedBlocks * e;
+            if (word < totalWords)
+              work[word] ^= 1 + random.nextInt(255);
+          }
+
+        Assert.assertTrue(size + " " + errors + " errors", ReedSolomon.decode(work, size, -1));
+        Assert.assertArrayEquals(size + " " + errors + " errors", clean, work);
+      }
+    }
+  }
+}
@@ -76,7 +76,7 @@ import com.jadice.barcode.DiagnosticSettings.TransientMarkerListener;
 import com.jadice.barcode.Options;
 import com.jadice.barcode.Result;
 import com.jadice.barcode.grid.BinaryGrid;
-import com.jadice.barcode.j2d.BufferedImageLuminanceSource;
+import com.jadice.barcode.grid.LuminanceGrid;
 import com.jadice.barcode.j2d.Java2DUtils;
 
 /**
@@ -478,7 +478,7 @@ public class BarcodeTest extends JFrame {
     if (null == image)
       return;
 
-    final BufferedImageLuminanceSource src = new BufferedImageLuminanceSource(image);
+    final LuminanceGrid src = Java2DUtils.createLuminanceSource(image);
     List<Integer> thresholds = options.getSettings(BaseSettings.class).getThresholds();
     int threshold = thresholds.isEmpty() ? BaseSettings.AUTO_THRESHOLD : thresholds.get(0);
     BinaryGrid binaryGrid = Detector.prepareBinaryGrid(options, src, threshold);